@@ -0,0 +1,3 @@
+-- Hash of the imported Pike13 fields, so the student import can skip unchanged students.
+-- Run once against the tracker database; until then the import compares every field.
+ALTER TABLE Students ADD COLUMN ContentHash BIGINT NULL;
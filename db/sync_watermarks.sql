@@ -0,0 +1,7 @@
+-- Last sync time per imported dataset, used by the student import for partial syncs.
+-- Run once against the tracker database before deploying the import lambdas.
+CREATE TABLE IF NOT EXISTS SyncWatermarks (
+	Dataset VARCHAR(40) NOT NULL PRIMARY KEY,
+	LastSync VARCHAR(30),
+	LastFullSync VARCHAR(30)
+);
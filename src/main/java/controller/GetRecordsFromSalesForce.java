@@ -8,8 +8,8 @@ import com.sforce.soap.enterprise.sobject.Account;
 import com.sforce.soap.enterprise.sobject.Contact;
 import com.sforce.soap.enterprise.sobject.Contact_Diary__c;
 
+import model.LogBatchWriter;
 import model.LogDataModel;
-import model.MySqlDbLogging;
 import model.StudentNameModel;
 
 public class GetRecordsFromSalesForce {
@@ -39,7 +39,7 @@ public class GetRecordsFromSalesForce {
 			}
 
 		} catch (Exception e) {
-			MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_CONTACTS_IMPORT_ERROR,
+			LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_CONTACTS_IMPORT_ERROR,
 					new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return null;
 		}
@@ -75,7 +75,7 @@ public class GetRecordsFromSalesForce {
 			}
 
 		} catch (Exception e) {
-			MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_CONTACTS_IMPORT_ERROR,
+			LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_CONTACTS_IMPORT_ERROR,
 					new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return null;
 		}
@@ -101,11 +101,11 @@ public class GetRecordsFromSalesForce {
 		} catch (Exception e) {
 			if (e.getMessage() == null) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, "");
 
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, ": " + e.getMessage());
 			return null;
 		}
@@ -125,7 +125,7 @@ public class GetRecordsFromSalesForce {
 			if (queryResults.getSize() > 0) {
 				account = (Account) queryResults.getRecords()[0];
 				if (queryResults.getSize() > 1)
-					MySqlDbLogging.insertLogData(LogDataModel.DUPLICATE_SF_ACCOUNT_NAME,
+					LogBatchWriter.insertLogData(LogDataModel.DUPLICATE_SF_ACCOUNT_NAME,
 							new StudentNameModel("", "", false), 0, " '" + accountMgrName + "'");
 			} else {
 				account = new Account();
@@ -134,11 +134,11 @@ public class GetRecordsFromSalesForce {
 
 		} catch (Exception e) {
 			if (e.getMessage() == null) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, " for " + accountMgrName);
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_ACCOUNT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, " for " + accountMgrName + ": " + e.getMessage());
 		}
 
@@ -163,11 +163,11 @@ public class GetRecordsFromSalesForce {
 		} catch (Exception e) {
 			if (e.getMessage() == null) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
 						"");
 
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e.getMessage());
 		}
 
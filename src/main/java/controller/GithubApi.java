@@ -3,7 +3,8 @@ package controller;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import org.eclipse.egit.github.core.Repository;
 import org.eclipse.egit.github.core.RepositoryCommit;
@@ -15,9 +16,9 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
 import model.AttendanceEventModel;
+import model.LogBatchWriter;
 import model.LogDataModel;
 import model.MySqlDbImports;
-import model.MySqlDbLogging;
 import model.StudentNameModel;
 
 public class GithubApi {
@@ -38,48 +39,58 @@ public class GithubApi {
 	}
 
 	public boolean importGitComments(String startDate, ArrayList<AttendanceEventModel> eventList) {
-		// eventList contains all attendance since 'startDate' with null comments
-		String lastGithubUser = "";
-		List<Repository> repoList = null;
+		// eventList contains all attendance since 'startDate' with null comments.
+		// Index commits by git user & date in one pass over each user's repos.
+		HashMap<String, ArrayList<CommitInfo>> commitIndex = new HashMap<String, ArrayList<CommitInfo>>();
+		HashSet<String> indexedUsers = new HashSet<String>();
+		boolean success = true;
 
-		for (int i = 0; i < eventList.size(); i++) {
-			// Get commit info from DB for each student/date combo
-			AttendanceEventModel event = eventList.get(i);
+		for (AttendanceEventModel event : eventList) {
 			if (event.getGithubComments() != null && !event.getGithubComments().trim().equals(""))
 				// Skip non-empty comments
 				continue;
 
 			String gitUser = event.getGithubName().toLowerCase();
+			if (!indexedUsers.add(gitUser))
+				// Commits for this github user already indexed
+				continue;
 
 			try {
-				if (!gitUser.equals(lastGithubUser)) {
-					// New github user, need to get new repo array
-					lastGithubUser = gitUser;
-					repoList = repoService.getRepositories(gitUser);
-
-					// Loop through all repos to check for updates
-					for (int j = 0; j < repoList.size(); j++) {
-						Repository repo = repoList.get(j);
-
-						// Update all user comments in this repo list
-						updateUserGithubComments(gitUser, startDate, eventList, repo);
-					}
-				}
+				// Loop through all repos to add this user's commits to the index
+				for (Repository repo : repoService.getRepositories(gitUser))
+					indexUserGithubComments(gitUser, startDate, repo, commitIndex);
 
 			} catch (IOException e) {
 				if (e.getMessage().startsWith("API rate limit exceeded")) {
 					// Rate limit exceeded, so abort
-					MySqlDbLogging.insertLogData(LogDataModel.GITHUB_IMPORT_ABORTED,
+					LogBatchWriter.insertLogData(LogDataModel.GITHUB_IMPORT_ABORTED,
 							new StudentNameModel("", "", false), 0, ": Github API rate limit exceeded ***");
-					return false;
+					success = false;
+					break;
 
 				} else {
-					MySqlDbLogging.insertLogData(LogDataModel.GITHUB_IMPORT_FAILURE, event.getStudentNameModel(),
+					LogBatchWriter.insertLogData(LogDataModel.GITHUB_IMPORT_FAILURE, event.getStudentNameModel(),
 							event.getClientID(), " for gitUser '" + gitUser + "': " + e.getMessage());
 				}
 			}
 		}
-		return true;
+
+		// Update comments & repo name for all events with matching commits; append multiple comments
+		for (AttendanceEventModel event : eventList) {
+			ArrayList<CommitInfo> commits = commitIndex
+					.get(event.getGithubName().toLowerCase() + "," + event.getServiceDateString());
+			if (commits != null) {
+				for (CommitInfo commit : commits)
+					event.setGithubComments(commit.message);
+
+				// Repo name is from the last commit processed
+				sqlDbImports.updateAttendance(event.getClientID(), event.getStudentNameModel(),
+						event.getServiceDateString(), event.getEventName(), commits.get(commits.size() - 1).repoName,
+						event.getGithubComments(), event.getGitDescription());
+			}
+		}
+		sqlDbImports.flushAttendanceUpdates();
+		return success;
 	}
 
 	public void updateEmptyGithubComments(ArrayList<AttendanceEventModel> eventList) {
@@ -93,10 +104,11 @@ public class GithubApi {
 						event.getServiceDateString(), event.getEventName(), null, "", "");
 			}
 		}
+		sqlDbImports.flushAttendanceUpdates();
 	}
 
-	private void updateUserGithubComments(String githubUser, String startDate, List<AttendanceEventModel> eventList,
-			Repository repo) {
+	private void indexUserGithubComments(String githubUser, String startDate, Repository repo,
+			HashMap<String, ArrayList<CommitInfo>> commitIndex) {
 		// Get all the commits for this repo within date range
 		try {
 			for (Collection<RepositoryCommit> commitPage : commitService.pageCommits(repo, 20)) {
@@ -111,20 +123,16 @@ public class GithubApi {
 					if (commitDate.compareTo(startDate) < 0)
 						return;
 
-					// Find gituser & date match in event list; append multiple comments
-					for (int k = 0; k < eventList.size(); k++) {
-						AttendanceEventModel event = eventList.get(k);
-						if (commitDate.equals(event.getServiceDateString())
-								&& githubUser.equals(event.getGithubName().toLowerCase())) {
-							// Update comments & repo name, continue to next commit
-							String message = commit.getCommit().getMessage();
-							if (!message.equals("")) {
-								event.setGithubComments(message);
-								sqlDbImports.updateAttendance(event.getClientID(), event.getStudentNameModel(),
-										commitDate, event.getEventName(), repo.getName(), event.getGithubComments(),
-										event.getGitDescription());
-							}
+					// Keep every commit for this user & date, in the order processed
+					String message = commit.getCommit().getMessage();
+					if (!message.equals("")) {
+						String key = githubUser + "," + commitDate;
+						ArrayList<CommitInfo> commits = commitIndex.get(key);
+						if (commits == null) {
+							commits = new ArrayList<CommitInfo>();
+							commitIndex.put(key, commits);
 						}
+						commits.add(new CommitInfo(message, repo.getName()));
 					}
 				}
 			}
@@ -133,4 +141,14 @@ public class GithubApi {
 			// Repo is empty, so just return
 		}
 	}
+
+	private static class CommitInfo {
+		String message;
+		String repoName;
+
+		CommitInfo(String message, String repoName) {
+			this.message = message;
+			this.repoName = repoName;
+		}
+	}
 }
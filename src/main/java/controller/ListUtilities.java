@@ -1,6 +1,8 @@
 package controller;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import com.sforce.soap.enterprise.sobject.Account;
 import com.sforce.soap.enterprise.sobject.Contact;
@@ -8,7 +10,7 @@ import com.sforce.soap.enterprise.sobject.Contact_Diary__c;
 
 import model.AttendanceEventModel;
 import model.LocationLookup;
-import model.MySqlDbLogging;
+import model.LogBatchWriter;
 import model.SalesForceAttendanceModel;
 import model.StaffMemberModel;
 import model.StudentImportModel;
@@ -16,24 +18,74 @@ import model.StudentNameModel;
 
 public class ListUtilities {
 
-	public static Contact findClientIDInList(int errorCode, String clientID, String clientName, String eventName,
-			ArrayList<Contact> contactList) {
+	public static HashMap<String, Contact> createContactMap(ArrayList<Contact> contactList) {
+		// Index contacts by Front Desk ID; first entry in list wins for duplicates
+		HashMap<String, Contact> contactMap = new HashMap<String, Contact>();
 		for (Contact c : contactList) {
-			if (c.getFront_Desk_Id__c().equals(clientID)) {
-				return c;
-			}
+			if (c.getFront_Desk_Id__c() != null && !contactMap.containsKey(c.getFront_Desk_Id__c()))
+				contactMap.put(c.getFront_Desk_Id__c(), c);
+		}
+		return contactMap;
+	}
+
+	public static HashMap<Integer, StudentImportModel> createPike13ClientMap(ArrayList<StudentImportModel> clientList) {
+		HashMap<Integer, StudentImportModel> clientMap = new HashMap<Integer, StudentImportModel>();
+		if (clientList == null)
+			return clientMap;
+
+		for (StudentImportModel m : clientList) {
+			if (!clientMap.containsKey(m.getClientID()))
+				clientMap.put(m.getClientID(), m);
+		}
+		return clientMap;
+	}
+
+	public static HashMap<String, AttendanceEventModel> createAttendanceEventMap(
+			ArrayList<AttendanceEventModel> attendList) {
+		// Index attendance by visit ID, ignoring events with no visit ID
+		HashMap<String, AttendanceEventModel> attendMap = new HashMap<String, AttendanceEventModel>();
+		for (AttendanceEventModel a : attendList) {
+			String visitID = String.valueOf(a.getVisitID());
+			if (a.getVisitID() != 0 && !attendMap.containsKey(visitID))
+				attendMap.put(visitID, a);
+		}
+		return attendMap;
+	}
+
+	public static HashSet<String> createVisitIdSet(ArrayList<SalesForceAttendanceModel> attendanceList) {
+		HashSet<String> visitIdSet = new HashSet<String>();
+		for (SalesForceAttendanceModel a : attendanceList) {
+			if (a.getVisitID() != null)
+				visitIdSet.add(a.getVisitID());
 		}
+		return visitIdSet;
+	}
+
+	public static HashMap<String, StaffMemberModel> createStaffIDMap(ArrayList<StaffMemberModel> staffList) {
+		HashMap<String, StaffMemberModel> staffMap = new HashMap<String, StaffMemberModel>();
+		for (StaffMemberModel s : staffList) {
+			if (s.getClientID() != null && !staffMap.containsKey(s.getClientID()))
+				staffMap.put(s.getClientID(), s);
+		}
+		return staffMap;
+	}
+
+	public static Contact findClientIDInList(int errorCode, String clientID, String clientName, String eventName,
+			HashMap<String, Contact> contactMap) {
+		Contact c = contactMap.get(clientID);
+		if (c != null)
+			return c;
 
 		// -1 indicates error not to be posted
 		if (errorCode >= 0) {
 			if (clientName == null || clientName.startsWith("null"))
-				MySqlDbLogging.insertLogData(errorCode, new StudentNameModel("", "", false), Integer.parseInt(clientID),
+				LogBatchWriter.insertLogData(errorCode, new StudentNameModel("", "", false), Integer.parseInt(clientID),
 						", ClientID " + clientID);
 			else if (!eventName.equals(""))
-				MySqlDbLogging.insertLogData(errorCode, new StudentNameModel(clientName, "", false),
+				LogBatchWriter.insertLogData(errorCode, new StudentNameModel(clientName, "", false),
 						Integer.parseInt(clientID), ", " + eventName);
 			else
-				MySqlDbLogging.insertLogData(errorCode, new StudentNameModel(clientName, "", false),
+				LogBatchWriter.insertLogData(errorCode, new StudentNameModel(clientName, "", false),
 						Integer.parseInt(clientID), ", ClientID " + clientID + " " + clientName);
 		}
 		return null;
@@ -49,17 +101,11 @@ public class ListUtilities {
 	}
 
 	public static StudentImportModel findClientIDInPike13List(String clientIDString,
-			ArrayList<StudentImportModel> clientList) {
-		if (!clientIDString.matches("\\d+") || clientList == null)
+			HashMap<Integer, StudentImportModel> clientMap) {
+		if (!clientIDString.matches("\\d+") || clientMap == null)
 			return null;
 
-		int clientID = Integer.parseInt(clientIDString);
-
-		for (StudentImportModel m : clientList) {
-			if (m.getClientID() == clientID)
-				return m;
-		}
-		return null;
+		return clientMap.get(Integer.parseInt(clientIDString));
 	}
 
 	public static Contact findStudentContactInPike13List(String studentName, String accountID,
@@ -71,34 +117,23 @@ public class ListUtilities {
 		return null;
 	}
 
-	public static boolean findVisitIdInList(String visitID, ArrayList<SalesForceAttendanceModel> attendanceList) {
-		for (SalesForceAttendanceModel a : attendanceList) {
-			if (a.getVisitID().equals(visitID)) {
-				return true;
-			}
-		}
-		return false;
+	public static boolean findVisitIdInList(String visitID, HashSet<String> visitIdSet) {
+		return visitIdSet.contains(visitID);
 	}
 
 	public static AttendanceEventModel findAttendanceEventInList(String visitID,
-			ArrayList<AttendanceEventModel> attendList) {
+			HashMap<String, AttendanceEventModel> attendMap) {
 		if (visitID == null || visitID.equals("") || visitID.equals("0"))
 			return null;
 
-		for (AttendanceEventModel a : attendList) {
-			if (a.getVisitID() != 0 && String.valueOf(a.getVisitID()).equals(visitID))
-				return a;
-		}
-		return null;
+		return attendMap.get(visitID);
 	}
 
 	public static StaffMemberModel findStaffIDInList(int errorCode, String clientID, String name, String serviceDate,
-			String eventName, ArrayList<StaffMemberModel> staffList) {
-		for (StaffMemberModel s : staffList) {
-			if (s.getClientID().equals(clientID)) {
-				return s;
-			}
-		}
+			String eventName, HashMap<String, StaffMemberModel> staffMap) {
+		StaffMemberModel s = staffMap.get(clientID);
+		if (s != null)
+			return s;
 
 		if (errorCode != -1) {
 			// Truncate service name up to '@' character
@@ -107,7 +142,7 @@ public class ListUtilities {
 				if (pos > 0)
 					eventName = eventName.substring(0, pos).trim();
 			}
-			MySqlDbLogging.insertLogData(errorCode, new StudentNameModel(name, "", false), Integer.parseInt(clientID),
+			LogBatchWriter.insertLogData(errorCode, new StudentNameModel(name, "", false), Integer.parseInt(clientID),
 					" for " + eventName + " on " + serviceDate);
 		}
 		return null;
@@ -217,7 +252,7 @@ public class ListUtilities {
 		return name1;
 	}
 
-	public static void fillInAccountID(ArrayList<StudentImportModel> clientList, ArrayList<Contact> contacts) {
+	public static void fillInAccountID(ArrayList<StudentImportModel> clientList, HashMap<String, Contact> contacts) {
 		for (StudentImportModel m : clientList) {
 			Contact c = ListUtilities.findClientIDInList(-1, String.valueOf(m.getClientID()), m.getFullName(), "",
 					contacts);
@@ -228,7 +263,8 @@ public class ListUtilities {
 		}
 	}
 
-	public static void fillInAccountIDForStaff(ArrayList<StaffMemberModel> clientList, ArrayList<Contact> contacts) {
+	public static void fillInAccountIDForStaff(ArrayList<StaffMemberModel> clientList,
+			HashMap<String, Contact> contacts) {
 		for (StaffMemberModel m : clientList) {
 			Contact c = ListUtilities.findClientIDInList(-1, String.valueOf(m.getClientID()), m.getFullName(), "",
 					contacts);
@@ -1,25 +1,160 @@
 package controller;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
 
 import javax.json.Json;
+import javax.json.JsonException;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
 
+import model.LogBatchWriter;
 import model.LogDataModel;
-import model.MySqlDbLogging;
 import model.StudentNameModel;
 
 public class Pike13Connect {
 	private final String USER_AGENT = "Mozilla/5.0";
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	// Idle keep-alive connections kept per host; pages are fetched in parallel
+	private static final String MAX_KEEP_ALIVE_CONNECTIONS = "8";
+
+	// Requests that are throttled or fail with a server error are retried with backoff
+	private static final int MAX_SEND_ATTEMPTS = 4;
+
 	private String pike13Token;
+	private Pike13ResponseCache responseCache;
+	private Pike13RateLimiter rateLimiter = new Pike13RateLimiter();
+
+	// Shared factories so that parser buffers are pooled across requests
+	private JsonParserFactory parserFactory = Json.createParserFactory(null);
+	private JsonReaderFactory readerFactory = Json.createReaderFactory(null);
+
+	// Read buffers are kept per thread and reused for each response that thread reads
+	private static final ThreadLocal<byte[]> inflateBuffer = ThreadLocal.withInitial(() -> new byte[READ_BUFFER_SIZE]);
+	private static final ThreadLocal<byte[]> copyBuffer = ThreadLocal.withInitial(() -> new byte[READ_BUFFER_SIZE]);
 	
 	public Pike13Connect(String pike13Token) {
 		this.pike13Token = pike13Token;
+
+		// Keep-alive connections are reused as long as each response is read and closed,
+		// rather than disconnected
+		if (System.getProperty("http.maxConnections") == null)
+			System.setProperty("http.maxConnections", MAX_KEEP_ALIVE_CONNECTIONS);
+	}
+
+	public void setResponseCache(Pike13ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	public Pike13Page queryPage(String endPoint, Pike13Query query) {
+		return queryPage(endPoint, query.toJson(), query.getFields());
+	}
+
+	public Pike13Page queryPage(String endPoint, String command, Pike13Fields fields) {
+		if (responseCache == null) {
+			// Decode rows directly from the connection
+			HttpURLConnection conn = sendQueryToUrl(endPoint, command, false);
+			if (conn == null)
+				return null;
+			return readPage(conn, fields);
+		}
+
+		String key = Pike13ResponseCache.getKey(endPoint, command);
+		byte[] body = getResponse(key, endPoint, command, false);
+		if (body == null)
+			return null;
+
+		try {
+			return parsePage(new ByteArrayInputStream(body), fields);
+
+		} catch (JsonException e) {
+			e.printStackTrace();
+			responseCache.remove(key);
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+					": " + e.getMessage());
+		}
+		return null;
+	}
+
+	public JsonObject queryCore(String endPoint) {
+		if (responseCache == null) {
+			HttpURLConnection conn = sendQueryToUrl(endPoint, "", true);
+			if (conn == null)
+				return null;
+			return readCoreInputStream(conn);
+		}
+
+		String key = Pike13ResponseCache.getKey(endPoint, "");
+		byte[] body = getResponse(key, endPoint, "", true);
+		if (body == null)
+			return null;
+
+		try {
+			JsonReader repoReader = readerFactory.createReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+			JsonObject object = ((JsonObject) repoReader.read());
+			repoReader.close();
+			return object;
+
+		} catch (JsonException e) {
+			e.printStackTrace();
+			responseCache.remove(key);
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+					" for Core API: " + e.getMessage());
+		}
+		return null;
+	}
+
+	private byte[] getResponse(String key, String endPoint, String command, boolean coreApi) {
+		// Use cached response if there is one
+		byte[] body = responseCache.get(key, endPoint);
+		if (body != null)
+			return body;
+
+		if (responseCache.isOffline()) {
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+					": No cached response for '" + endPoint + "' in offline mode");
+			return null;
+		}
+
+		// Get URL connection with authorization and send query
+		HttpURLConnection conn = sendQueryToUrl(endPoint, command, coreApi);
+		if (conn == null)
+			return null;
+
+		try {
+			// Read whole response, then save to the cache
+			InputStream inputStream = getInputStream(conn);
+			ByteArrayOutputStream bodyStream = new ByteArrayOutputStream();
+			byte[] buffer = copyBuffer.get();
+			int len;
+			while ((len = inputStream.read(buffer)) > 0)
+				bodyStream.write(buffer, 0, len);
+			inputStream.close();
+
+			body = bodyStream.toByteArray();
+			responseCache.put(key, body);
+			return body;
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			conn.disconnect();
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+					": " + e.getMessage());
+		}
+		return null;
 	}
 
 	private HttpURLConnection connectUrl(String endPoint, boolean coreApi) {
@@ -38,13 +173,14 @@ public class Pike13Connect {
 			URL url = new URL(urlString);
 			conn = (HttpURLConnection) url.openConnection();
 			if (conn == null) {
-				MySqlDbLogging.insertLogData(LogDataModel.PIKE13_CONNECTION_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.PIKE13_CONNECTION_ERROR, new StudentNameModel("", "", false), 0,
 						": Failed to open connection for endpoint '" + endPoint + "'");
 				return null;
 			}
 			String basicAuth = "Bearer " + pike13Token;
 			conn.setRequestProperty("Authorization", basicAuth);
 			conn.setRequestProperty("User-Agent", USER_AGENT);
+			conn.setRequestProperty("Accept-Encoding", "gzip");
 
 			if (coreApi)
 				conn.setRequestMethod("GET");
@@ -56,7 +192,7 @@ public class Pike13Connect {
 			return conn;
 
 		} catch (Exception e) {
-			MySqlDbLogging.insertLogData(LogDataModel.PIKE13_CONNECTION_ERROR, new StudentNameModel("", "", false), 0,
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_CONNECTION_ERROR, new StudentNameModel("", "", false), 0,
 					": " + e.getMessage());
 			e.printStackTrace();
 		
@@ -67,14 +203,25 @@ public class Pike13Connect {
 	}
 
 	public HttpURLConnection sendQueryToUrl(String connName, String getCommand, boolean coreApi) {
-		try {
-			// If necessary, try twice to send query
-			for (int i = 0; i < 2; i++) {
-				// Get URL connection with authorization
-				HttpURLConnection conn = connectUrl(connName, coreApi);
-				if (conn == null)
-					continue;
+		for (int i = 0; i < MAX_SEND_ATTEMPTS; i++) {
+			try {
+				// Back off before each retry, then wait for the rate limiter
+				if (i > 0)
+					rateLimiter.backoff(i);
+				rateLimiter.acquire();
+
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+
+			// Get URL connection with authorization
+			HttpURLConnection conn = connectUrl(connName, coreApi);
+			if (conn == null)
+				continue;
 
+			long startMillis = System.currentTimeMillis();
+			try {
 				// Send the query
 				if (!coreApi) {
 					OutputStream outputStream = conn.getOutputStream();
@@ -85,67 +232,190 @@ public class Pike13Connect {
 
 				// Check result
 				int responseCode = conn.getResponseCode();
+				rateLimiter.onResponse(responseCode, System.currentTimeMillis() - startMillis,
+						conn.getHeaderField("Retry-After"));
 				if (responseCode == HttpURLConnection.HTTP_OK)
 					return conn;
-				else {
-					MySqlDbLogging.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
-							" " + responseCode + " for '" + connName + "' (attempt #" + (i + 1) + "): " + conn.getResponseMessage());
-					conn.disconnect();
-				}
-			}
 
-		} catch (IOException e) {
-			e.printStackTrace();
-			MySqlDbLogging.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0, 
-					": " + e.getMessage());
+				LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+						" " + responseCode + " for '" + connName + "' (attempt #" + (i + 1) + "): " + conn.getResponseMessage());
+				conn.disconnect();
+
+				// Only throttling and server errors are retried more than once
+				if (i > 0 && responseCode != 429 && responseCode < 500)
+					break;
+
+			} catch (IOException e) {
+				e.printStackTrace();
+				rateLimiter.onResponse(-1, System.currentTimeMillis() - startMillis, null);
+				LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0, 
+						": " + e.getMessage());
+				conn.disconnect();
+			}
 		}
 
 		return null;
 	}
 
-	public JsonObject readInputStream(HttpURLConnection conn) {
+	public String getRequestStats() {
+		return rateLimiter.getStats();
+	}
+
+	public Pike13Page readPage(HttpURLConnection conn, Pike13Fields fields) {
 		try {
-			// Get input stream and read data
-			InputStream inputStream = conn.getInputStream();
-			JsonReader repoReader = Json.createReader(inputStream);
-			JsonObject object = ((JsonObject) repoReader.read()).getJsonObject("data").getJsonObject("attributes");
+			// Get input stream and decode rows as they are read
+			InputStream inputStream = getInputStream(conn);
+			Pike13Page page = parsePage(inputStream, fields);
 
-			repoReader.close();
+			// Closing the stream releases the connection for re-use
 			inputStream.close();
-			return object;
+			return page;
 
-		} catch (IOException e) {
+		} catch (IOException | JsonException e) {
 			e.printStackTrace();
-			MySqlDbLogging.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+			conn.disconnect();
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
 					": " + e.getMessage());
 		}
 		return null;
 	}
+
+	private Pike13Page parsePage(InputStream inputStream, Pike13Fields fields) {
+		JsonParser parser = parserFactory.createParser(inputStream, StandardCharsets.UTF_8);
+		Pike13Page page = new Pike13Page();
+
+		// Report data is in data.attributes: rows, has_more and last_key
+		String key = null;
+		int depth = 0, attributesDepth = -1;
+		while (parser.hasNext()) {
+			Event event = parser.next();
+			switch (event) {
+			case KEY_NAME:
+				key = parser.getString();
+				if (depth == attributesDepth) {
+					if (key.equals("rows") && parser.next() == Event.START_ARRAY)
+						readRows(parser, fields, page.getRows());
+					else if (key.equals("has_more"))
+						page.setHasMore(parser.next() == Event.VALUE_TRUE);
+					else if (key.equals("last_key") && parser.next() != Event.VALUE_NULL)
+						page.setLastKey(parser.getString());
+				}
+				break;
+			case START_OBJECT:
+				depth++;
+				if (depth == 3 && "attributes".equals(key))
+					attributesDepth = depth;
+				break;
+			case START_ARRAY:
+				depth++;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth--;
+				break;
+			default:
+				break;
+			}
+		}
+
+		parser.close();
+		return page;
+	}
+
+	private InputStream getInputStream(HttpURLConnection conn) throws IOException {
+		// Response body may be gzip compressed; the connection stream is already buffered
+		InputStream inputStream = conn.getInputStream();
+		if ("gzip".equalsIgnoreCase(conn.getContentEncoding()))
+			inputStream = new ThreadBufferGZIPInputStream(inputStream);
+		return inputStream;
+	}
+
+	private void readRows(JsonParser parser, Pike13Fields fields, ArrayList<Pike13Row> rows) {
+		// Each row is an array of cells in declared field order
+		Event event;
+		while ((event = parser.next()) == Event.START_ARRAY) {
+			String[] cells = new String[fields.size()];
+			int col = 0;
+			while ((event = parser.next()) != Event.END_ARRAY) {
+				String cell = readCell(parser, event);
+				if (col < cells.length)
+					cells[col] = cell;
+				col++;
+			}
+			rows.add(new Pike13Row(fields, cells));
+		}
+	}
+
+	private String readCell(JsonParser parser, Event event) {
+		switch (event) {
+		case VALUE_STRING:
+		case VALUE_NUMBER:
+			return parser.getString();
+		case VALUE_TRUE:
+			return "t";
+		case VALUE_FALSE:
+			return "f";
+		case START_ARRAY:
+		case START_OBJECT:
+			// Nested values are kept as JSON text
+			StringBuilder json = new StringBuilder();
+			appendNested(parser, event, json);
+			return json.toString();
+		default:
+			return null;
+		}
+	}
+
+	private void appendNested(JsonParser parser, Event event, StringBuilder json) {
+		boolean isObject = (event == Event.START_OBJECT);
+		json.append(isObject ? '{' : '[');
+		boolean first = true;
+		while ((event = parser.next()) != Event.END_OBJECT && event != Event.END_ARRAY) {
+			if (!first)
+				json.append(',');
+			first = false;
+			if (event == Event.KEY_NAME) {
+				json.append('"').append(parser.getString()).append("\":");
+				event = parser.next();
+			}
+			if (event == Event.START_ARRAY || event == Event.START_OBJECT)
+				appendNested(parser, event, json);
+			else if (event == Event.VALUE_STRING)
+				json.append('"').append(parser.getString()).append('"');
+			else if (event == Event.VALUE_NUMBER)
+				json.append(parser.getString());
+			else
+				json.append(event == Event.VALUE_TRUE ? "true" : event == Event.VALUE_FALSE ? "false" : "null");
+		}
+		json.append(isObject ? '}' : ']');
+	}
 	
 	public JsonObject readCoreInputStream(HttpURLConnection conn) {
 		try {
 			// Get input stream and read data
-			InputStream inputStream = conn.getInputStream();
-			JsonReader repoReader = Json.createReader(inputStream);
+			InputStream inputStream = getInputStream(conn);
+			JsonReader repoReader = readerFactory.createReader(inputStream, StandardCharsets.UTF_8);
 			JsonObject object = ((JsonObject) repoReader.read());
 
+			// Closing the stream releases the connection for re-use
 			repoReader.close();
 			inputStream.close();
 			return object;
 
 		} catch (IOException e) {
 			e.printStackTrace();
-			MySqlDbLogging.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+			conn.disconnect();
+			LogBatchWriter.insertLogData(LogDataModel.PIKE13_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
 					" for Core API: " + e.getMessage());
 		}
 		return null;
 	}
 
-	public String stripQuotes(String fieldData) {
-		// Strip off quotes around field string
-		if (fieldData.equals("\"\"") || fieldData.startsWith("null"))
-			return "";
-		else
-			return fieldData.substring(1, fieldData.length() - 1);
+	private static class ThreadBufferGZIPInputStream extends GZIPInputStream {
+		ThreadBufferGZIPInputStream(InputStream in) throws IOException {
+			// Smallest buffer is allocated, then replaced by this thread's buffer before any data is read
+			super(in, 1);
+			buf = inflateBuffer.get();
+		}
 	}
 }
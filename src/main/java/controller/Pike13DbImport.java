@@ -1,7 +1,12 @@
 package controller;
 
-import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.json.JsonArray;
 import javax.json.JsonObject;
@@ -32,503 +37,457 @@ public class Pike13DbImport {
 	private final String STAFF_SF_CLIENT_ID_FIELD = "custom_field_152501";
 	private final String STAFF_CATEGORY_FIELD = "custom_field_106325";
 
-	// Indices for client data
-	private final int CLIENT_ID_IDX = 0;
-	private final int FIRST_NAME_IDX = 1;
-	private final int LAST_NAME_IDX = 2;
-	private final int GITHUB_IDX = 3;
-	private final int GRAD_YEAR_IDX = 4;
-	private final int GENDER_IDX = 5;
-	private final int HOME_LOC_IDX = 6;
-	private final int FIRST_VISIT_IDX = 7;
-	private final int FUTURE_VISITS_IDX = 8;
-	private final int EMAIL_IDX = 10;
-	private final int ACCT_MGR_EMAIL_IDX = 11;
-	private final int EMERG_EMAIL_IDX = 12;
-	private final int MOBILE_PHONE_IDX = 13;
-	private final int ACCT_MGR_PHONE_IDX = 14;
-	//private final int HOME_PHONE_IDX = 15;
-	private final int EMERG_PHONE_IDX = 15;
-	private final int BIRTHDATE_IDX = 16;
-	private final int CURRENT_LEVEL_IDX = 17;
-	private final int LAST_EXAM_SCORE_IDX = 18;
-
-	// Indices for enrollment data
-	private final int ENROLL_CLIENT_ID_IDX = 0;
-	private final int ENROLL_FULL_NAME_IDX = 1;
-	private final int ENROLL_SERVICE_DATE_IDX = 2;
-	private final int ENROLL_EVENT_NAME_IDX = 3;
-	private final int ENROLL_VISIT_ID_IDX = 4;
-	private final int ENROLL_TEACHER_NAMES_IDX = 5;
-	private final int ENROLL_SERVICE_CATEGORY_IDX = 6;
-	private final int ENROLL_STATE_IDX = 7;
-	private final int ENROLL_SERVICE_TIME_IDX = 8;
-
-	// Indices for schedule data
-	private final int SCHED_SERVICE_DAY_IDX = 0;
-	private final int SCHED_SERVICE_TIME_IDX = 1;
-	private final int SCHED_DURATION_MINS_IDX = 2;
-	private final int SCHED_WKLY_EVENT_NAME_IDX = 3;
-	private final int SCHED_ID_IDX = 4;
-
-	// Indices for courses data
-	private final int COURSES_SCHEDULE_ID_IDX = 0;
-	private final int COURSES_EVENT_NAME_IDX = 1;
-	private final int COURSE_ENROLLMENT_IDX = 2;
-
-	// Indices for Student TA data
-	private final static int STUDENT_TA_CLIENT_ID_IDX = 0;
-	private final static int STUDENT_TA_STAFF_SINCE_DATE_IDX = 1;
-	private final static int STUDENT_TA_NUM_PAST_EVENTS_IDX = 2;
-
-	private final String getClientData = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit and filters
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"person_id\",\"first_name\",\"last_name\",\"" + GITHUB_FIELD + "\",\"" + GRAD_YEAR_FIELD + "\","
-			+ "            \"" + GENDER_FIELD + "\",\"home_location_name\",\"first_visit_date\","
-			+ "            \"future_visits\",\"completed_visits\",\"email\",\"account_manager_emails\","
-			+ "            \"" + EMERG_CONTACT_EMAIL_FIELD + "\",\"phone\",\"account_manager_phones\","
-			+ "            \"" + EMERG_CONTACT_PHONE_FIELD + "\",\"birthdate\","
-			+ "            \"" + CURRENT_LEVEL_FIELD + "\",\"" + LAST_EXAM_SCORE_FIELD + "\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500";
-	
-	private final String getClientData2 = "},"
-			// Filter on Dependents NULL and either has future visits or recent completed visits
-			+ "\"filter\":[\"and\",[[\"eq\",\"person_state\",\"active\"],"
-			+ "                     [\"emp\",\"dependent_names\"],"
-			+ "                     [\"or\",[[\"gt\",\"future_visits\",0],"
-			+ "                              [\"gt\",\"last_visit_date\",\"0000-00-00\"]]]]]}}}";
-
-	// Getting enrollment data is in 2 parts since page info gets inserted in middle.
-	private final String getEnrollmentStudentTracker = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"person_id\",\"full_name\",\"service_date\",\"event_name\",\"visit_id\",\"instructor_names\","
-			+ "            \"service_category\",\"state\",\"service_time\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500";
-
-	private final String getEnrollmentStudentTracker2 = "},"
-			// Filter on State completed and since date OR make-up class for this week
-			+ "\"filter\":[\"or\",[[\"and\",[[\"eq\",\"state\",\"completed\"],"
-			+ "                              [\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]]]],"
-			+ "                    [\"and\",[[\"eq\",\"state\",\"registered\"],"
-			+ "                              [\"btw\",\"service_date\",[\"2222-22-22\",\"3333-33-33\"]],"
-			+ "                              [\"starts\",\"service_category\",\"class\"]]]]]}}}";
-
-	private final String getEnrollmentStudentTracker2WithName = "},"
-			// Filter on State completed, since date and student name
-			+ "\"filter\":[\"and\",[[\"eq\",\"state\",\"completed\"],"
-			+ "                     [\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]],"
-			+ "                     [\"starts\",\"service_category\",\"Class\"],"
-			+ "                     [\"eq\",\"full_name\",\"NNNNNN\"]]]}}}";
-
-	private final String getEnrollmentStudentTracker2NotComplete = "},"
-			// Filter on State completed and since date OR make-up class for this week
-			+ "\"filter\":[\"and\",[[\"ne\",\"state\",\"completed\"],"
-			+ "                     [\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]]]]}}}";
-	
-	private final String getCourseEnrollmentStudentTracker2 = "},"
-			// Filter on course, state completed or enrolled and since date
-			+ "\"filter\":[\"and\",[[\"or\",[[\"eq\",\"state\",\"completed\"],"
-			+ "                              [\"eq\",\"state\",\"registered\"]]],"
-			+ "                     [\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]],"
-			+ "                     [\"starts\",\"service_type\",\"course\"],"
-			+ "                     [\"nemp\",\"event_name\"]]]}}}";
-
-	// Get schedule data
-	private final String getScheduleData = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit and filters
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"service_day\",\"service_time\",\"duration_in_minutes\",\"event_name\",\"event_occurrence_id\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500},"
-			// Filter on 'this week' and 'starts with Class' and event name not null
-			+ "\"filter\":[\"and\",[[\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]],"
-			+ "                     [\"starts\",\"service_category\",\"Class\"],"
-			+ "                     [\"ne\",\"service_category\",\"class jslam\"],"
-			+ "                     [\"nemp\",\"event_name\"]]]}}}";
-
-	// Get workshop and summer slam data
-	private final String getCoursesData = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit and filters
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"event_id\",\"event_name\",\"enrollment_count\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500},"
-			// Filter on 'this week' and 'starts with Class' and event name not null
-			+ "\"filter\":[\"and\",[[\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]],"
-			+ "                     [\"starts\",\"service_type\",\"course\"]]]}}}";
-
-	// Get Student TA data
-	private final String getStudentTAData = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit and filters
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"" + STAFF_SF_CLIENT_ID_FIELD + "\",\"staff_since_date\",\"past_events\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500},"
-			// Filter on Staff Category and staff member active
-			+ "\"filter\":[\"and\",[[\"eq\",\"person_state\",\"active\"],"
-			+ "                     [\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Student TA\"],"
-			+ "                     [\"starts\",\"full_name\",\"TA-\"]]]}}}";
+	// Fields for client data
+	private final Pike13Fields clientFields = new Pike13Fields("person_id", "first_name", "last_name", GITHUB_FIELD,
+			GRAD_YEAR_FIELD, GENDER_FIELD, "home_location_name", "first_visit_date", "future_visits",
+			"completed_visits", "email", "account_manager_emails", EMERG_CONTACT_EMAIL_FIELD, "phone",
+			"account_manager_phones", EMERG_CONTACT_PHONE_FIELD, "birthdate", CURRENT_LEVEL_FIELD,
+			LAST_EXAM_SCORE_FIELD);
+
+	// Fields for finding clients whose visits changed without a change to the person record
+	private final Pike13Fields clientVisitFields = new Pike13Fields("person_id", "first_name", "first_visit_date");
+
+	// Fields for enrollment data
+	private final Pike13Fields enrollFields = new Pike13Fields("person_id", "full_name", "service_date", "event_name",
+			"visit_id", "instructor_names", "service_category", "state", "service_time");
+
+	// Fields for schedule data
+	private final Pike13Fields scheduleFields = new Pike13Fields("service_day", "service_time", "duration_in_minutes",
+			"event_name", "event_occurrence_id");
+
+	// Fields for courses data
+	private final Pike13Fields coursesFields = new Pike13Fields("event_id", "event_name", "enrollment_count");
+
+	// Fields for Student TA data
+	private final Pike13Fields studentTAFields = new Pike13Fields(STAFF_SF_CLIENT_ID_FIELD, "staff_since_date",
+			"past_events");
+
+	// Max number of event occurrence ID's per room request
+	private final static int MAX_ROOM_IDS_PER_REQUEST = 50;
+
+	// Max number of client ID's per client query, and people per CORE API page
+	private final static int MAX_CLIENT_IDS_PER_REQUEST = 200;
+	private final static int PEOPLE_PER_PAGE = 100;
+
+	// Get Student TA data: filter on Staff Category and staff member active
+	private final Pike13Query studentTAQuery = new Pike13Query(studentTAFields,
+			Pike13Filter.and(Pike13Filter.eq("person_state", "active"),
+					Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Student TA"),
+					Pike13Filter.starts("full_name", "TA-")));
 
 	private MySqlDbImports mySqlDbImports;
 	private Pike13Connect pike13Conn;
+	private Pike13PageFetcher pageFetcher;
+	private HashMap<Integer, String> roomCache = new HashMap<Integer, String>();
 
 	public Pike13DbImport(MySqlDbImports mySqlDbImports, Pike13Connect pike13Conn) {
 		this.mySqlDbImports = mySqlDbImports;
 		this.pike13Conn = pike13Conn;
+		this.pageFetcher = new Pike13PageFetcher(pike13Conn);
 	}
 
 	public ArrayList<StudentImportModel> getClients() {
+		return getClients(null);
+	}
+
+	public ArrayList<StudentImportModel> getClients(ArrayList<Integer> clientIDs) {
+		// Get all clients, or only those in client ID list; returns null on error
 		ArrayList<StudentImportModel> studentList = new ArrayList<StudentImportModel>();
-		boolean hasMore = false;
-		String lastKey = "";
-
-		// Insert since date for completed visit (in last 30 days)
-		String clients2 = getClientData2.replaceFirst("0000-00-00",
-				new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).
-					minusDays(MySqlDatabase.CLASS_ATTEND_NUM_DAYS_TO_KEEP).toString("yyyy-MM-dd"));
-
-		do {
-			// Get URL connection with authorization
-			HttpURLConnection conn;
-
-			// Send the query
-			if (hasMore)
-				conn = pike13Conn.sendQueryToUrl("clients", getClientData + ",\"starting_after\":\"" + lastKey + "\"" + clients2, false);
-			else
-				conn = pike13Conn.sendQueryToUrl("clients", getClientData + clients2, false);
-
-			if (conn == null)
-				return studentList;
-
-			// Get input stream and read data
-			JsonObject jsonObj = pike13Conn.readInputStream(conn);
-			if (jsonObj == null) {
-				conn.disconnect();
-				return studentList;
-			}
-			JsonArray jsonArray = jsonObj.getJsonArray("rows");
 
-			for (int i = 0; i < jsonArray.size(); i++) {
+		// Since date for completed visit (in last 30 days)
+		String sinceDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"))
+				.minusDays(MySqlDatabase.CLASS_ATTEND_NUM_DAYS_TO_KEEP).toString("yyyy-MM-dd");
+
+		if (clientIDs == null) {
+			if (!fetchClients(getClientsQuery(sinceDate, null), studentList))
+				return null;
+			return studentList;
+		}
+
+		for (int start = 0; start < clientIDs.size(); start += MAX_CLIENT_IDS_PER_REQUEST) {
+			// Filter on this group of client ID's
+			List<Integer> ids = clientIDs.subList(start, Math.min(start + MAX_CLIENT_IDS_PER_REQUEST, clientIDs.size()));
+			if (!fetchClients(getClientsQuery(sinceDate, ids), studentList))
+				return null;
+		}
+		return studentList;
+	}
+
+	public ArrayList<Integer> getClientsUpdatedSince(String sinceTime) {
+		// Get ID's of people changed since the given time using Pike13 CORE API; returns null on error
+		ArrayList<Integer> clientIDs = new ArrayList<Integer>();
+
+		for (int page = 1; ; page++) {
+			JsonObject jsonObj = pike13Conn.queryCore("people?updated_since=" + sinceTime + "&per_page="
+					+ PEOPLE_PER_PAGE + "&page=" + page);
+			if (jsonObj == null)
+				return null;
+
+			JsonArray people = jsonObj.getJsonArray("people");
+			if (people == null)
+				return null;
+
+			for (int i = 0; i < people.size(); i++)
+				clientIDs.add(people.getJsonObject(i).getInt("id"));
+
+			if (people.size() < PEOPLE_PER_PAGE)
+				break;
+		}
+		return clientIDs;
+	}
+
+	public ArrayList<Integer> getClientsWithVisitChanges(ArrayList<Integer> removedClients) {
+		// Enrolling or attending doesn't update the person record, so find clients that are now in the
+		// client filter but not in the DB, or whose first visit date changed; returns null on error.
+		// Active DB students no longer in the client filter are added to removedClients.
+		HashMap<Integer, String> dbStartDates = mySqlDbImports.getActiveStudentStartDates();
+		if (dbStartDates == null)
+			return null;
+
+		String sinceDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"))
+				.minusDays(MySqlDatabase.CLASS_ATTEND_NUM_DAYS_TO_KEEP).toString("yyyy-MM-dd");
+		ArrayList<Integer> clientIDs = new ArrayList<Integer>();
+
+		boolean success = pageFetcher.fetchPages("clients", getClientsQuery(clientVisitFields, sinceDate, null),
+				(ArrayList<Pike13Row> rows) -> {
+					for (Pike13Row person : rows) {
+						if (isTestClient(person.getString("first_name")))
+							continue;
+
+						String dbStartDate = dbStartDates.remove(person.getInt("person_id"));
+						if (dbStartDate == null || !dbStartDate.equals(person.getString("first_visit_date")))
+							clientIDs.add(person.getInt("person_id"));
+					}
+				});
+		if (!success)
+			return null;
+
+		// Students still left in the DB list have dropped out of the client filter
+		removedClients.addAll(dbStartDates.keySet());
+		Collections.sort(removedClients);
+		return clientIDs;
+	}
+
+	private Pike13Query getClientsQuery(String sinceDate, List<Integer> clientIDs) {
+		return getClientsQuery(clientFields, sinceDate, clientIDs);
+	}
+
+	private Pike13Query getClientsQuery(Pike13Fields fields, String sinceDate, List<Integer> clientIDs) {
+		// Filter on Dependents NULL and either has future visits or recent completed visits
+		Pike13Filter filter = Pike13Filter.and(Pike13Filter.eq("person_state", "active"),
+				Pike13Filter.emp("dependent_names"),
+				Pike13Filter.or(Pike13Filter.gt("future_visits", 0), Pike13Filter.gt("last_visit_date", sinceDate)));
+		if (clientIDs != null)
+			filter = Pike13Filter.and(Pike13Filter.eq("person_id", clientIDs), filter);
+
+		return new Pike13Query(fields, filter);
+	}
+
+	private boolean fetchClients(Pike13Query query, ArrayList<StudentImportModel> studentList) {
+		// Send the query and read each page of data
+		return pageFetcher.fetchPages("clients", query, (ArrayList<Pike13Row> rows) -> {
+			for (Pike13Row person : rows) {
 				// Get fields for each person
-				JsonArray personArray = (JsonArray) jsonArray.get(i);
-				String firstName = pike13Conn.stripQuotes(personArray.get(FIRST_NAME_IDX).toString());
-				
-				String birthday = null;
-				if (personArray.get(BIRTHDATE_IDX) != null)
-					birthday = pike13Conn.stripQuotes(personArray.get(BIRTHDATE_IDX).toString());
-
-				if (!firstName.startsWith("Guest") && !firstName.toLowerCase().equals("test") && !firstName.startsWith("TestChild")) {
-					// Get fields for this Json array entry
-					StudentImportModel model = new StudentImportModel(personArray.getInt(CLIENT_ID_IDX),
-							pike13Conn.stripQuotes(personArray.get(LAST_NAME_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(FIRST_NAME_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(GITHUB_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(GENDER_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(FIRST_VISIT_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(HOME_LOC_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(GRAD_YEAR_IDX).toString().trim()),
-							pike13Conn.stripQuotes(personArray.get(EMAIL_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(ACCT_MGR_EMAIL_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(EMERG_EMAIL_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(MOBILE_PHONE_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(ACCT_MGR_PHONE_IDX).toString()),
-							"", //pike13Conn.stripQuotes(personArray.get(HOME_PHONE_IDX).toString()),
-							pike13Conn.stripQuotes(personArray.get(EMERG_PHONE_IDX).toString()),
-							birthday, pike13Conn.stripQuotes(personArray.get(CURRENT_LEVEL_IDX).toString()),
-							personArray.getInt(FUTURE_VISITS_IDX), 
-							pike13Conn.stripQuotes(personArray.get(LAST_EXAM_SCORE_IDX).toString()));
+				String firstName = person.getString("first_name");
+
+				if (!isTestClient(firstName)) {
+					// Get fields for this row
+					StudentImportModel model = new StudentImportModel(person.getInt("person_id"),
+							person.getString("last_name"), firstName,
+							person.getString(GITHUB_FIELD),
+							person.getString(GENDER_FIELD),
+							person.getString("first_visit_date"),
+							person.getString("home_location_name"),
+							person.getString(GRAD_YEAR_FIELD).trim(),
+							person.getString("email"),
+							person.getString("account_manager_emails"),
+							person.getString(EMERG_CONTACT_EMAIL_FIELD),
+							person.getString("phone"),
+							person.getString("account_manager_phones"),
+							"", // Home phone no longer imported
+							person.getString(EMERG_CONTACT_PHONE_FIELD),
+							person.getString("birthdate"), person.getString(CURRENT_LEVEL_FIELD),
+							person.getInt("future_visits"),
+							person.getString(LAST_EXAM_SCORE_FIELD));
 					studentList.add(model);
 				}
 			}
+		});
+	}
 
-			// Check to see if there are more pages
-			hasMore = jsonObj.getBoolean("has_more");
-			if (hasMore)
-				lastKey = jsonObj.getString("last_key");
-
-			conn.disconnect();
-
-		} while (hasMore);
-
-		return studentList;
+	private boolean isTestClient(String firstName) {
+		return firstName.startsWith("Guest") || firstName.toLowerCase().equals("test")
+				|| firstName.startsWith("TestChild");
 	}
 
 	public ArrayList<AttendanceEventModel> getAttendance(String startDate) {
-		// Insert start date and end date into enrollment command string
+		// Make-up classes registered for this week
 		DateTime today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"));
-		String enroll2 = getEnrollmentStudentTracker2.replaceFirst("0000-00-00", startDate);
-		enroll2 = enroll2.replaceFirst("1111-11-11", today.toString("yyyy-MM-dd"));
-		enroll2 = enroll2.replaceFirst("2222-22-22", today.toString("yyyy-MM-dd"));
-		enroll2 = enroll2.replaceFirst("3333-33-33", today.plusDays(6).toString("yyyy-MM-dd"));
-
-		// Get attendance for all students
-		return getEnrollmentByCmdString(getEnrollmentStudentTracker, enroll2);
+		Pike13Filter makeupFilter = Pike13Filter.and(Pike13Filter.eq("state", "registered"),
+				Pike13Filter.btw("service_date", today.toString("yyyy-MM-dd"), today.plusDays(6).toString("yyyy-MM-dd")),
+				Pike13Filter.starts("service_category", "class"));
+
+		// Get attendance for all students: state completed and since date OR make-up class for this week
+		return getEnrollmentByDateRange((String shardStart, String shardEnd) -> new Pike13Query(enrollFields,
+				Pike13Filter.or(Pike13Filter.and(Pike13Filter.eq("state", "completed"),
+						Pike13Filter.btw("service_date", shardStart, shardEnd)), makeupFilter)),
+				startDate, today.toString("yyyy-MM-dd"));
 	}
 	
 	public ArrayList<AttendanceEventModel> getIncompleteAttend(String startDate) {
-		// Insert start date and end date into enrollment command string
+		// Get attendance for all students that is not completed
 		DateTime today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"));
-		String enroll2 = getEnrollmentStudentTracker2NotComplete.replaceFirst("0000-00-00", startDate);
-		enroll2 = enroll2.replaceFirst("1111-11-11", today.toString("yyyy-MM-dd"));
+		return getEnrollmentByDateRange((String shardStart, String shardEnd) -> new Pike13Query(enrollFields,
+				Pike13Filter.and(Pike13Filter.ne("state", "completed"),
+						Pike13Filter.btw("service_date", shardStart, shardEnd))),
+				startDate, today.toString("yyyy-MM-dd"));
+	}
 
-		// Get attendance for all students
-		return getEnrollmentByCmdString(getEnrollmentStudentTracker, enroll2);
+	private boolean fetchEnrollment(Pike13Query query, ArrayList<AttendanceEventModel> eventList) {
+		// Send the query and read each page of data
+		return pageFetcher.fetchPages("enrollments", query,
+				(ArrayList<Pike13Row> rows) -> addEnrollmentRows(rows, eventList));
 	}
 
-	private ArrayList<AttendanceEventModel> getEnrollmentByCmdString(String cmdString1, String cmdString2) {
+	private ArrayList<AttendanceEventModel> getEnrollmentByDateRange(Pike13PageFetcher.DateRangeQuery rangeQuery,
+			String startDate, String endDate) {
 		ArrayList<AttendanceEventModel> eventList = new ArrayList<AttendanceEventModel>();
-		boolean hasMore = false;
-		String lastKey = "";
-
-		do {
-			// Get URL connection with authorization and send the query; add page info if necessary
-			HttpURLConnection conn;
-			if (hasMore)
-				conn = pike13Conn.sendQueryToUrl("enrollments", cmdString1 + ",\"starting_after\":\"" + lastKey + "\"" + cmdString2, false);
-			else
-				conn = pike13Conn.sendQueryToUrl("enrollments", cmdString1 + cmdString2, false);
-
-			if (conn == null)
-				return eventList;
-
-			// Get input stream and read data
-			JsonObject jsonObj = pike13Conn.readInputStream(conn);
-			if (jsonObj == null) {
-				conn.disconnect();
-				return eventList;
-			}
-			JsonArray jsonArray = jsonObj.getJsonArray("rows");
 
-			for (int i = 0; i < jsonArray.size(); i++) {
-				// Get fields for each event
-				JsonArray eventArray = (JsonArray) jsonArray.get(i);
-				String eventName = pike13Conn.stripQuotes(eventArray.get(ENROLL_EVENT_NAME_IDX).toString());
-				String serviceDate = pike13Conn.stripQuotes(eventArray.get(ENROLL_SERVICE_DATE_IDX).toString());
-				int visitID = 0;
-				if (eventArray.get(ENROLL_VISIT_ID_IDX) != null && eventArray.get(ENROLL_VISIT_ID_IDX).toString().matches("\\d+"))
-					visitID = eventArray.getInt(ENROLL_VISIT_ID_IDX);
-
-				// Add event to list
-				if (!eventName.equals("") && !eventName.equals("\"\"") && !serviceDate.equals("")) {
-					eventList.add(new AttendanceEventModel(eventArray.getInt(ENROLL_CLIENT_ID_IDX),
-							visitID,
-							pike13Conn.stripQuotes(eventArray.get(ENROLL_FULL_NAME_IDX).toString()), serviceDate, 
-							pike13Conn.stripQuotes(eventArray.get(ENROLL_SERVICE_TIME_IDX).toString()), eventName,
-							pike13Conn.stripQuotes(eventArray.get(ENROLL_TEACHER_NAMES_IDX).toString()),
-							pike13Conn.stripQuotes(eventArray.get(ENROLL_SERVICE_CATEGORY_IDX).toString()),
-							pike13Conn.stripQuotes(eventArray.get(ENROLL_STATE_IDX).toString()), null));
-				}
-			}
+		// Date range is split into shards which are fetched in parallel
+		pageFetcher.fetchPagesByDateRange("enrollments", rangeQuery, startDate, endDate,
+				(ArrayList<Pike13Row> rows) -> addEnrollmentRows(rows, eventList));
 
-			// Check to see if there are more pages
-			hasMore = jsonObj.getBoolean("has_more");
-			if (hasMore)
-				lastKey = jsonObj.getString("last_key");
-
-			conn.disconnect();
+		return eventList;
+	}
 
-		} while (hasMore && cmdString2 != "");
+	private void addEnrollmentRows(ArrayList<Pike13Row> rows, ArrayList<AttendanceEventModel> eventList) {
+		for (Pike13Row event : rows) {
+			// Get fields for each event
+			String eventName = event.getString("event_name");
+			String serviceDate = event.getString("service_date");
+			int visitID = 0;
+			if (event.getText("visit_id").matches("\\d+"))
+				visitID = event.getInt("visit_id");
 
-		return eventList;
+			// Add event to list
+			if (!eventName.equals("") && !serviceDate.equals("")) {
+				eventList.add(new AttendanceEventModel(event.getInt("person_id"), visitID,
+						event.getString("full_name"), serviceDate, event.getString("service_time"), eventName,
+						event.getString("instructor_names"), event.getString("service_category"),
+						event.getString("state"), null));
+			}
+		}
 	}
 
 	public ArrayList<AttendanceEventModel> getMissingAttendance(String endDate, ArrayList<StudentModel> studentList) {
 		ArrayList<AttendanceEventModel> eventList = new ArrayList<AttendanceEventModel>();
 
-		// Insert end date into enrollment command string
-		String enroll2 = getEnrollmentStudentTracker2WithName.replaceFirst("1111-11-11", endDate);
+		// Catch up only as far back as 3 months ago
+		String earliestDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).minusMonths(3)
+				.toString("yyyy-MM-dd");
 
-		for (int i = 0; i < studentList.size(); i++) {
-			StudentModel student = studentList.get(i);
+		// Group students by catch-up start date, so that each group needs only one query
+		TreeMap<String, ArrayList<StudentModel>> studentsByStartDate = new TreeMap<String, ArrayList<StudentModel>>();
+		for (StudentModel student : studentList) {
 			if (student.getStartDate() != null) {
 				// Get student start date and ignore if date is beyond end date
 				String catchupStartDate = student.getStartDate().toString();
 				if (catchupStartDate.compareTo(endDate) >= 0)
 					continue;
 
-				// Catch up only as far back as 3 months ago
-				String earliestDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).minusMonths(3)
-						.toString("yyyy-MM-dd");
 				if (catchupStartDate.compareTo(earliestDate) < 0)
 					catchupStartDate = earliestDate;
 
-				// Get attendance for this student
-				String enrollTemp = enroll2.replaceFirst("0000-00-00", catchupStartDate);
-				enrollTemp = enrollTemp.replaceFirst("NNNNNN", student.getFirstName() + " " + student.getLastName());
-				eventList.addAll(getEnrollmentByCmdString(getEnrollmentStudentTracker, enrollTemp));
+				ArrayList<StudentModel> group = studentsByStartDate.get(catchupStartDate);
+				if (group == null) {
+					group = new ArrayList<StudentModel>();
+					studentsByStartDate.put(catchupStartDate, group);
+				}
+				group.add(student);
+			}
+		}
 
-				// Set student 'NewStudent' flag back to false
-				mySqlDbImports.updateStudentFlags(student, "NewStudent", 0);
+		// Get completed class attendance since start date for each group of students
+		ArrayList<StudentModel> caughtUpStudents = new ArrayList<StudentModel>();
+		for (Map.Entry<String, ArrayList<StudentModel>> entry : studentsByStartDate.entrySet()) {
+			ArrayList<StudentModel> group = entry.getValue();
+			for (int start = 0; start < group.size(); start += MAX_CLIENT_IDS_PER_REQUEST) {
+				List<StudentModel> students = group.subList(start,
+						Math.min(start + MAX_CLIENT_IDS_PER_REQUEST, group.size()));
+				ArrayList<Integer> clientIDs = new ArrayList<Integer>();
+				for (StudentModel student : students)
+					clientIDs.add(student.getClientID());
+
+				if (fetchEnrollment(new Pike13Query(enrollFields,
+						Pike13Filter.and(Pike13Filter.eq("state", "completed"),
+								Pike13Filter.btw("service_date", entry.getKey(), endDate),
+								Pike13Filter.starts("service_category", "Class"),
+								Pike13Filter.eq("person_id", clientIDs))), eventList))
+					caughtUpStudents.addAll(students);
 			}
 		}
 
+		// Set 'NewStudent' flag back to false for all students that were caught up
+		mySqlDbImports.updateStudentFlags(caughtUpStudents, "NewStudent", 0);
+
 		return eventList;
 	}
 
 	public ArrayList<ScheduleModel> getSchedule(String startDate) {
 		ArrayList<ScheduleModel> scheduleList = new ArrayList<ScheduleModel>();
 
-		// Insert start date and end date into schedule command string.
-		String scheduleString = getScheduleData.replaceFirst("0000-00-00", startDate);
-		scheduleString = scheduleString.replaceFirst("1111-11-11",
-				new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).plusDays(6).toString("yyyy-MM-dd"));
-
-		// Get URL connection with authorization and send query
-		HttpURLConnection conn = pike13Conn.sendQueryToUrl("event_occurrences", scheduleString, false);
-		if (conn == null)
-			return scheduleList;
-
-		// Get input stream and read data
-		JsonObject jsonObj = pike13Conn.readInputStream(conn);
-		if (jsonObj == null) {
-			conn.disconnect();
+		// Filter on 'this week' and 'starts with Class' and event name not null
+		String endDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).plusDays(6)
+				.toString("yyyy-MM-dd");
+		Pike13Query scheduleQuery = new Pike13Query(scheduleFields,
+				Pike13Filter.and(Pike13Filter.btw("service_date", startDate, endDate),
+						Pike13Filter.starts("service_category", "Class"),
+						Pike13Filter.ne("service_category", "class jslam"),
+						Pike13Filter.nemp("event_name")));
+
+		// Send query and decode rows
+		Pike13Page page = pike13Conn.queryPage("event_occurrences", scheduleQuery);
+		if (page == null)
 			return scheduleList;
-		}
-		JsonArray jsonArray = jsonObj.getJsonArray("rows");
-
-		for (int i = 0; i < jsonArray.size(); i++) {
-			// Get fields for each event in the schedule
-			JsonArray scheduleArray = (JsonArray) jsonArray.get(i);
 
+		for (Pike13Row schedule : page.getRows()) {
 			// Get event name, day-of-week and duration
-			String eventName = pike13Conn.stripQuotes(scheduleArray.get(SCHED_WKLY_EVENT_NAME_IDX).toString());
-			String serviceDayString = pike13Conn.stripQuotes(scheduleArray.get(SCHED_SERVICE_DAY_IDX).toString());
-			int serviceDay = Integer.parseInt(serviceDayString);
-			String startTime = pike13Conn.stripQuotes(scheduleArray.get(SCHED_SERVICE_TIME_IDX).toString());
-			int duration = scheduleArray.getInt(SCHED_DURATION_MINS_IDX);
+			String eventName = schedule.getString("event_name");
+			int serviceDay = Integer.parseInt(schedule.getString("service_day"));
+			String startTime = schedule.getString("service_time");
+			int duration = schedule.getInt("duration_in_minutes");
 
 			// Add event to list
-			scheduleList.add(new ScheduleModel(scheduleArray.getInt(SCHED_ID_IDX), serviceDay, startTime, duration, eventName));
+			scheduleList.add(new ScheduleModel(schedule.getInt("event_occurrence_id"), serviceDay, startTime, duration,
+					eventName));
 		}
 
-		conn.disconnect();
 		return scheduleList;
 	}
 
 	public String getRoomField(int scheduleId) {
-		// Get URL connection with authorization and send query
-		HttpURLConnection conn = pike13Conn.sendQueryToUrl("event_occurrences?ids=" + scheduleId, "", true);
-		if (conn == null)
-			return "";
+		// Room names are cached for the run; fetch any that are missing
+		if (!roomCache.containsKey(scheduleId)) {
+			ArrayList<Integer> idList = new ArrayList<Integer>();
+			idList.add(scheduleId);
+			loadRoomFields(idList);
+		}
 
-		// Get input stream and read data
-		JsonObject jsonObj = pike13Conn.readCoreInputStream(conn);
-		if (jsonObj == null) {
-			conn.disconnect();
+		String roomName = roomCache.get(scheduleId);
+		if (roomName == null)
 			return "";
+		return roomName;
+	}
+
+	public void loadRoomFields(ArrayList<Integer> scheduleIds) {
+		// Request room names for many event occurrences at a time
+		LinkedHashSet<Integer> missingIds = new LinkedHashSet<Integer>();
+		for (Integer id : scheduleIds) {
+			if (!roomCache.containsKey(id))
+				missingIds.add(id);
 		}
+		ArrayList<Integer> idList = new ArrayList<Integer>(missingIds);
+
+		for (int start = 0; start < idList.size(); start += MAX_ROOM_IDS_PER_REQUEST) {
+			List<Integer> requestIds = idList.subList(start, Math.min(start + MAX_ROOM_IDS_PER_REQUEST, idList.size()));
+			StringBuilder ids = new StringBuilder();
+			for (Integer id : requestIds) {
+				if (ids.length() > 0)
+					ids.append(",");
+				ids.append(id);
+			}
+
+			// Cache empty room for each ID so that failed lookups are not repeated
+			for (Integer id : requestIds)
+				roomCache.put(id, "");
 
-		// Get all scheduled events using Pike13 CORE API
-		JsonArray jsonArray = jsonObj.getJsonArray("event_occurrences");
-		if (jsonArray != null && jsonArray.size() > 0) {
-			// Get fields for this event in the schedule
-			JsonObject event = jsonArray.getJsonObject(0);
-			JsonArray resources = event.getJsonArray("resources");
-			String eventName = event.get("name").toString();
-
-			/* Get fields for each scheduled event */
-			if (resources.size() > 0 && eventName.contains("Java@CV")) {
-				// Process resources field by extracting the ROOM field
-				String roomName = "";
-				for (int i = 0; i < resources.size(); i++) {
-					JsonObject res = resources.getJsonObject(i);
-					if (!roomName.equals(""))
-						roomName += ", ";
-					roomName += res.getString("name");
+			// Send query and read data
+			JsonObject jsonObj = pike13Conn.queryCore("event_occurrences?ids=" + ids);
+			if (jsonObj == null)
+				continue;
+
+			// Get all scheduled events using Pike13 CORE API
+			JsonArray jsonArray = jsonObj.getJsonArray("event_occurrences");
+			if (jsonArray == null)
+				continue;
+
+			for (int i = 0; i < jsonArray.size(); i++) {
+				// Get fields for this event in the schedule
+				JsonObject event = jsonArray.getJsonObject(i);
+				JsonArray resources = event.getJsonArray("resources");
+				String eventName = event.get("name").toString();
+
+				/* Get fields for each scheduled event */
+				if (resources != null && resources.size() > 0 && eventName.contains("Java@CV")) {
+					// Process resources field by extracting the ROOM field
+					String roomName = "";
+					for (int j = 0; j < resources.size(); j++) {
+						JsonObject res = resources.getJsonObject(j);
+						if (!roomName.equals(""))
+							roomName += ", ";
+						roomName += res.getString("name");
+					}
+					roomCache.put(event.getInt("id"), roomName);
 				}
-				return roomName;
 			}
 		}
-
-		conn.disconnect();
-		return "";
 	}
 
 	public ArrayList<CoursesModel> getCourses(String startDate, String endDate) {
 		ArrayList<CoursesModel> coursesList = new ArrayList<CoursesModel>();
 
-		// Insert start date and end date into schedule command string.
-		String coursesString = getCoursesData.replaceFirst("0000-00-00", startDate);
-		coursesString = coursesString.replaceFirst("1111-11-11", endDate);
-
-		// Get URL connection with authorization and send query
-		HttpURLConnection conn = pike13Conn.sendQueryToUrl("event_occurrences", coursesString, false);
-		if (conn == null)
-			return coursesList;
+		// Filter on date range and courses
+		Pike13Query coursesQuery = new Pike13Query(coursesFields,
+				Pike13Filter.and(Pike13Filter.btw("service_date", startDate, endDate),
+						Pike13Filter.starts("service_type", "course")));
 
-		// Get input stream and read data
-		JsonObject jsonObj = pike13Conn.readInputStream(conn);
-		if (jsonObj == null) {
-			conn.disconnect();
+		// Send query and decode rows
+		Pike13Page page = pike13Conn.queryPage("event_occurrences", coursesQuery);
+		if (page == null)
 			return coursesList;
-		}
-		JsonArray jsonArray = jsonObj.getJsonArray("rows");
-
-		for (int i = 0; i < jsonArray.size(); i++) {
-			// Get fields for each event in the schedule
-			JsonArray coursesArray = (JsonArray) jsonArray.get(i);
 
+		for (Pike13Row course : page.getRows()) {
 			// Add event to list
-			coursesList.add(new CoursesModel(coursesArray.getInt(COURSES_SCHEDULE_ID_IDX),
-					pike13Conn.stripQuotes(coursesArray.get(COURSES_EVENT_NAME_IDX).toString()),
-					coursesArray.getInt(COURSE_ENROLLMENT_IDX)));
+			coursesList.add(new CoursesModel(course.getInt("event_id"), course.getString("event_name"),
+					course.getInt("enrollment_count")));
 		}
 
-		conn.disconnect();
 		return coursesList;
 	}
 
 	public ArrayList<AttendanceEventModel> getCourseAttendance(String startDate, String endDate) {
-		// Insert start date and end date into enrollment command string
-		String enroll2 = getCourseEnrollmentStudentTracker2.replaceFirst("0000-00-00", startDate);
-		enroll2 = enroll2.replaceFirst("1111-11-11", endDate);
-
-		// Get attendance for all students
-		return getEnrollmentByCmdString(getEnrollmentStudentTracker, enroll2);
+		// Get course attendance for all students: state completed or registered
+		return getEnrollmentByDateRange((String shardStart, String shardEnd) -> new Pike13Query(enrollFields,
+				Pike13Filter.and(
+						Pike13Filter.or(Pike13Filter.eq("state", "completed"), Pike13Filter.eq("state", "registered")),
+						Pike13Filter.btw("service_date", shardStart, shardEnd),
+						Pike13Filter.starts("service_type", "course"),
+						Pike13Filter.nemp("event_name"))),
+				startDate, endDate);
 	}
 
 	public void updateStudentTAData(ArrayList<StudentImportModel> students) {
-		// Get URL connection and send the query
-		HttpURLConnection conn = pike13Conn.sendQueryToUrl("staff_members", getStudentTAData, false);
-		if (conn == null)
+		// Send query and decode rows
+		Pike13Page page = pike13Conn.queryPage("staff_members", studentTAQuery);
+		if (page == null)
 			return;
-
-		// Get input stream and read data
-		JsonObject jsonObj = pike13Conn.readInputStream(conn);
-		if (jsonObj == null) {
-			conn.disconnect();
-			return;
-		}
-		JsonArray jsonArray = jsonObj.getJsonArray("rows");
 		int taCount = 0;
 
-		for (int i = 0; i < jsonArray.size(); i++) {
+		for (Pike13Row staff : page.getRows()) {
 			// Get fields for each TA. Ignore all TA's without Client ID or not in student list
-			JsonArray staffArray = (JsonArray) jsonArray.get(i);
-			if (staffArray.get(STUDENT_TA_CLIENT_ID_IDX) == null)
+			if (staff.isNull(STAFF_SF_CLIENT_ID_FIELD))
 				continue;
-			
-			String clientID = pike13Conn.stripQuotes(staffArray.get(STUDENT_TA_CLIENT_ID_IDX).toString());
+
+			String clientID = staff.getString(STAFF_SF_CLIENT_ID_FIELD);
 			StudentImportModel ta = findClientID(clientID, students);
 			if (ta == null)
 				continue;
-			
-			ta.setStaffData(pike13Conn.stripQuotes(staffArray.get(STUDENT_TA_STAFF_SINCE_DATE_IDX).toString()), 
-					staffArray.getInt(STUDENT_TA_NUM_PAST_EVENTS_IDX));
+
+			ta.setStaffData(staff.getString("staff_since_date"), staff.getInt("past_events"));
 			taCount++;
 		}
 
-		conn.disconnect();
-		System.out.println("Num Student TA's: " + jsonArray.size() + " (" + taCount + ")");
+		System.out.println("Num Student TA's: " + page.getRows().size() + " (" + taCount + ")");
 	}
 
 	private StudentImportModel findClientID(String clientID, ArrayList<StudentImportModel> students) {
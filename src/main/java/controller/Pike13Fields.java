@@ -0,0 +1,53 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Field list declared by a Pike13 report query. The same list is used to build
+ * the query and to look up each field's column in the returned rows.
+ */
+public class Pike13Fields {
+	private String[] names;
+	private HashMap<String, Integer> indexMap = new HashMap<String, Integer>();
+
+	public Pike13Fields(String... names) {
+		this.names = names;
+		for (int i = 0; i < names.length; i++)
+			indexMap.put(names[i], i);
+	}
+
+	public Pike13Fields without(String... omitNames) {
+		// Same field list with some fields left out, for consumers that do not use them
+		ArrayList<String> keepNames = new ArrayList<String>(Arrays.asList(names));
+		keepNames.removeAll(Arrays.asList(omitNames));
+		return new Pike13Fields(keepNames.toArray(new String[keepNames.size()]));
+	}
+
+	public boolean contains(String name) {
+		return indexMap.containsKey(name);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public int getIndex(String name) {
+		Integer idx = indexMap.get(name);
+		if (idx == null)
+			throw new IllegalArgumentException("Field '" + name + "' not in query");
+		return idx;
+	}
+
+	public String toJson() {
+		// Field list formatted for the query "fields" attribute
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < names.length; i++) {
+			if (i > 0)
+				json.append(",");
+			json.append("\"").append(names[i]).append("\"");
+		}
+		return json.append("]").toString();
+	}
+}
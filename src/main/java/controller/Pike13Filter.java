@@ -0,0 +1,88 @@
+package controller;
+
+import java.util.Collection;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+
+/**
+ * Filter for a Pike13 reporting query. Filters are built from the operators
+ * supported by the reporting API and combined with and/or.
+ */
+public class Pike13Filter {
+	private JsonArray json;
+
+	private Pike13Filter(JsonArray json) {
+		this.json = json;
+	}
+
+	public static Pike13Filter eq(String field, String value) {
+		return new Pike13Filter(Json.createArrayBuilder().add("eq").add(field).add(value).build());
+	}
+
+	public static Pike13Filter eq(String field, Collection<Integer> values) {
+		// Matches any of the values
+		JsonArrayBuilder valueArray = Json.createArrayBuilder();
+		for (Integer value : values)
+			valueArray.add(value);
+		return new Pike13Filter(Json.createArrayBuilder().add("eq").add(field).add(valueArray).build());
+	}
+
+	public static Pike13Filter ne(String field, String value) {
+		return new Pike13Filter(Json.createArrayBuilder().add("ne").add(field).add(value).build());
+	}
+
+	public static Pike13Filter gt(String field, String value) {
+		return new Pike13Filter(Json.createArrayBuilder().add("gt").add(field).add(value).build());
+	}
+
+	public static Pike13Filter gt(String field, int value) {
+		return new Pike13Filter(Json.createArrayBuilder().add("gt").add(field).add(value).build());
+	}
+
+	public static Pike13Filter lt(String field, int value) {
+		return new Pike13Filter(Json.createArrayBuilder().add("lt").add(field).add(value).build());
+	}
+
+	public static Pike13Filter btw(String field, String startValue, String endValue) {
+		return new Pike13Filter(Json.createArrayBuilder().add("btw").add(field)
+				.add(Json.createArrayBuilder().add(startValue).add(endValue)).build());
+	}
+
+	public static Pike13Filter starts(String field, String value) {
+		return new Pike13Filter(Json.createArrayBuilder().add("starts").add(field).add(value).build());
+	}
+
+	public static Pike13Filter wo(String field, String value) {
+		// Without: field does not contain value
+		return new Pike13Filter(Json.createArrayBuilder().add("wo").add(field).add(value).build());
+	}
+
+	public static Pike13Filter emp(String field) {
+		return new Pike13Filter(Json.createArrayBuilder().add("emp").add(field).build());
+	}
+
+	public static Pike13Filter nemp(String field) {
+		return new Pike13Filter(Json.createArrayBuilder().add("nemp").add(field).build());
+	}
+
+	public static Pike13Filter and(Pike13Filter... filters) {
+		return combine("and", filters);
+	}
+
+	public static Pike13Filter or(Pike13Filter... filters) {
+		return combine("or", filters);
+	}
+
+	private static Pike13Filter combine(String operator, Pike13Filter[] filters) {
+		JsonArrayBuilder filterArray = Json.createArrayBuilder();
+		for (Pike13Filter filter : filters)
+			filterArray.add(filter.json);
+		return new Pike13Filter(Json.createArrayBuilder().add(operator).add(filterArray).build());
+	}
+
+	public String toJson() {
+		return json.toString();
+	}
+}
@@ -0,0 +1,33 @@
+package controller;
+
+import java.util.ArrayList;
+
+/**
+ * One page of decoded Pike13 report rows, plus the paging state needed to
+ * request the next page.
+ */
+public class Pike13Page {
+	private ArrayList<Pike13Row> rows = new ArrayList<Pike13Row>();
+	private boolean hasMore = false;
+	private String lastKey;
+
+	public ArrayList<Pike13Row> getRows() {
+		return rows;
+	}
+
+	public boolean getHasMore() {
+		return hasMore;
+	}
+
+	public void setHasMore(boolean hasMore) {
+		this.hasMore = hasMore;
+	}
+
+	public String getLastKey() {
+		return lastKey;
+	}
+
+	public void setLastKey(String lastKey) {
+		this.lastKey = lastKey;
+	}
+}
@@ -0,0 +1,141 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+
+/**
+ * Fetches paged Pike13 report queries. The request for the next page is sent
+ * while the rows of the current page are being handled, and long date ranges
+ * can be split into shards that are fetched in parallel.
+ */
+public class Pike13PageFetcher {
+	// Shard date ranges only when they are at least this long
+	private static final int MIN_DAYS_PER_SHARD = 14;
+	private static final int MAX_NUM_SHARDS = 8;
+
+	private Pike13Connect pike13Conn;
+	private ExecutorService executor;
+
+	public interface PageHandler {
+		public void handleRows(ArrayList<Pike13Row> rows);
+	}
+
+	public interface DateRangeQuery {
+		public Pike13Query getQuery(String startDate, String endDate);
+	}
+
+	public Pike13PageFetcher(Pike13Connect pike13Conn) {
+		this.pike13Conn = pike13Conn;
+
+		// Shard tasks wait on page tasks, so the pool must be able to grow
+		executor = Executors.newCachedThreadPool((Runnable r) -> {
+			Thread t = new Thread(r, "pike13-fetch");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public boolean fetchPage(String endPoint, Pike13Query query, PageHandler handler) {
+		// Single page query
+		Pike13Page page = pike13Conn.queryPage(endPoint, query.toJson(), query.getFields());
+		if (page == null)
+			return false;
+
+		handler.handleRows(page.getRows());
+		return true;
+	}
+
+	public boolean fetchPages(String endPoint, Pike13Query query, PageHandler handler) {
+		// Send request for first page
+		Future<Pike13Page> nextPage = requestPage(endPoint, query, null);
+
+		while (nextPage != null) {
+			Pike13Page page = waitForPage(nextPage);
+			if (page == null)
+				return false;
+
+			// Request next page before processing this one
+			nextPage = null;
+			if (page.getHasMore())
+				nextPage = requestPage(endPoint, query, page.getLastKey());
+
+			handler.handleRows(page.getRows());
+		}
+		return true;
+	}
+
+	public boolean fetchPagesByDateRange(String endPoint, DateRangeQuery rangeQuery, String startDate, String endDate,
+			PageHandler handler) {
+		// Split date range into shards, each with its own start & end date
+		ArrayList<Pike13Query> shardQueries = new ArrayList<Pike13Query>();
+		LocalDate start = LocalDate.parse(startDate);
+		LocalDate end = LocalDate.parse(endDate);
+		int numDays = Days.daysBetween(start, end).getDays() + 1;
+		int numShards = Math.max(1, Math.min(MAX_NUM_SHARDS, numDays / MIN_DAYS_PER_SHARD));
+		int daysPerShard = (numDays + numShards - 1) / numShards;
+
+		for (LocalDate shardStart = start; !shardStart.isAfter(end); shardStart = shardStart.plusDays(daysPerShard)) {
+			LocalDate shardEnd = shardStart.plusDays(daysPerShard - 1);
+			if (shardEnd.isAfter(end))
+				shardEnd = end;
+
+			shardQueries.add(rangeQuery.getQuery(shardStart.toString("yyyy-MM-dd"), shardEnd.toString("yyyy-MM-dd")));
+		}
+
+		if (shardQueries.size() == 1)
+			return fetchPages(endPoint, shardQueries.get(0), handler);
+
+		// Fetch all shards in parallel
+		ArrayList<Future<ArrayList<Pike13Row>>> shardResults = new ArrayList<Future<ArrayList<Pike13Row>>>();
+		for (Pike13Query shardQuery : shardQueries) {
+			shardResults.add(executor.submit(() -> {
+				ArrayList<Pike13Row> rows = new ArrayList<Pike13Row>();
+				if (!fetchPages(endPoint, shardQuery, (ArrayList<Pike13Row> pageRows) -> rows.addAll(pageRows)))
+					return null;
+				return rows;
+			}));
+		}
+
+		// Merge shards in date order, removing rows that matched more than one shard
+		LinkedHashSet<Pike13Row> mergedRows = new LinkedHashSet<Pike13Row>();
+		boolean success = true;
+		for (Future<ArrayList<Pike13Row>> future : shardResults) {
+			try {
+				ArrayList<Pike13Row> rows = future.get();
+				if (rows == null)
+					success = false;
+				else
+					mergedRows.addAll(rows);
+
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+				success = false;
+			}
+		}
+
+		handler.handleRows(new ArrayList<Pike13Row>(mergedRows));
+		return success;
+	}
+
+	private Future<Pike13Page> requestPage(String endPoint, Pike13Query query, String startingAfter) {
+		String command = (startingAfter == null) ? query.toJson() : query.toJson(startingAfter);
+		return executor.submit(() -> pike13Conn.queryPage(endPoint, command, query.getFields()));
+	}
+
+	private Pike13Page waitForPage(Future<Pike13Page> page) {
+		try {
+			return page.get();
+
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+}
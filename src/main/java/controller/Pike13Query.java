@@ -0,0 +1,37 @@
+package controller;
+
+/**
+ * Pike13 reporting query: the fields to return, a filter and the page limit.
+ * The query is compiled to JSON once; requests for later pages only insert the
+ * key of the last row already read.
+ */
+public class Pike13Query {
+	// Page limit max is 500
+	private static final int PAGE_LIMIT = 500;
+
+	private Pike13Fields fields;
+	private String jsonStart;
+	private String jsonEnd;
+
+	public Pike13Query(Pike13Fields fields, Pike13Filter filter) {
+		this.fields = fields;
+
+		// Page info goes between the fields and the filter
+		jsonStart = "{\"data\":{\"type\":\"queries\",\"attributes\":{\"fields\":" + fields.toJson()
+				+ ",\"page\":{\"limit\":" + PAGE_LIMIT;
+		jsonEnd = "}" + (filter == null ? "" : ",\"filter\":" + filter.toJson()) + "}}}";
+	}
+
+	public Pike13Fields getFields() {
+		return fields;
+	}
+
+	public String toJson() {
+		return jsonStart + jsonEnd;
+	}
+
+	public String toJson(String startingAfter) {
+		// Query for the page following the given row key
+		return jsonStart + ",\"starting_after\":\"" + startingAfter + "\"" + jsonEnd;
+	}
+}
@@ -0,0 +1,106 @@
+package controller;
+
+import java.util.Random;
+
+/**
+ * Token bucket shared by all threads sending Pike13 requests. The request rate
+ * is halved when Pike13 throttles or fails a request, and slowly raised again
+ * while responses stay fast. A Retry-After header pauses all requests for the
+ * time given. Wait times are counted so they can be reported at end of run.
+ */
+public class Pike13RateLimiter {
+	private static final double INITIAL_RATE = 5.0; // Requests per second
+	private static final double MIN_RATE = 0.5;
+	private static final double MAX_RATE = 10.0;
+	private static final double RATE_INCREASE = 0.25;
+	private static final double BURST_SIZE = 4.0;
+
+	// Slow down if responses take longer than this
+	private static final long TARGET_LATENCY_MILLIS = 2000;
+
+	private static final long BASE_BACKOFF_MILLIS = 1000;
+	private static final long MAX_BACKOFF_MILLIS = 30000;
+
+	private double rate = INITIAL_RATE;
+	private double tokens = BURST_SIZE;
+	private long lastRefillMillis = System.currentTimeMillis();
+	private long pausedUntilMillis = 0;
+	private Random random = new Random();
+
+	// Counters
+	private int numRequests = 0;
+	private int numThrottled = 0;
+	private int numRetries = 0;
+	private long rateWaitMillis = 0;
+	private long backoffWaitMillis = 0;
+
+	public void acquire() throws InterruptedException {
+		long waitMillis = 0;
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			tokens = Math.min(BURST_SIZE, tokens + (now - lastRefillMillis) * rate / 1000.0);
+			lastRefillMillis = now;
+
+			// Token is reserved now; a negative balance queues the waiting threads in order
+			tokens -= 1.0;
+			if (tokens < 0)
+				waitMillis = (long) Math.ceil(-tokens * 1000.0 / rate);
+			if (pausedUntilMillis > now)
+				waitMillis = Math.max(waitMillis, pausedUntilMillis - now);
+
+			numRequests++;
+			rateWaitMillis += waitMillis;
+		}
+
+		if (waitMillis > 0)
+			Thread.sleep(waitMillis);
+	}
+
+	public synchronized void onResponse(int responseCode, long latencyMillis, String retryAfter) {
+		if (responseCode == 429 || responseCode >= 500 || responseCode < 0) {
+			// Throttled or failed: halve the rate, and pause if server says how long to wait
+			rate = Math.max(MIN_RATE, rate / 2.0);
+			if (responseCode == 429 || responseCode == 503)
+				numThrottled++;
+
+			long retryAfterMillis = parseRetryAfter(retryAfter);
+			if (retryAfterMillis > 0)
+				pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + retryAfterMillis);
+
+		} else if (latencyMillis > TARGET_LATENCY_MILLIS)
+			rate = Math.max(MIN_RATE, rate * 0.9);
+		else
+			rate = Math.min(MAX_RATE, rate + RATE_INCREASE);
+	}
+
+	public void backoff(int attempt) throws InterruptedException {
+		// Exponential backoff, with jitter so that parallel fetches do not retry together
+		long delay = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+		long waitMillis = delay / 2 + (long) (random.nextDouble() * delay / 2);
+
+		synchronized (this) {
+			numRetries++;
+			backoffWaitMillis += waitMillis;
+		}
+		Thread.sleep(waitMillis);
+	}
+
+	public synchronized String getStats() {
+		return "Pike13 requests: " + numRequests + ", throttled: " + numThrottled + ", retries: " + numRetries
+				+ ", rate wait: " + rateWaitMillis + " ms, backoff wait: " + backoffWaitMillis + " ms, rate: "
+				+ String.format("%.2f", rate) + "/sec";
+	}
+
+	private long parseRetryAfter(String retryAfter) {
+		// Only the delay-seconds form is used
+		if (retryAfter == null)
+			return 0;
+
+		try {
+			return Math.min(MAX_BACKOFF_MILLIS, Long.parseLong(retryAfter.trim()) * 1000);
+
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
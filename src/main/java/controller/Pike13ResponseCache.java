@@ -0,0 +1,250 @@
+package controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * On-disk cache of Pike13 responses, shared by all imports that use the same
+ * cache directory. Entries are keyed by a hash of the endpoint and the
+ * normalized query, expire after a per-endpoint time-to-live, and the least
+ * recently used entries are removed once the cache exceeds its maximum size.
+ * In offline mode only cached responses are returned, whatever their age.
+ */
+public class Pike13ResponseCache {
+	private static final long DEFAULT_MAX_CACHE_BYTES = 256L * 1024 * 1024;
+	private static final int DEFAULT_TTL_MINUTES = 15;
+	private static final String FILE_SUFFIX = ".json.gz";
+
+	private File cacheDir;
+	private boolean offline;
+	private long maxCacheBytes = DEFAULT_MAX_CACHE_BYTES;
+	private long cacheBytes = 0;
+	private HashMap<String, Integer> ttlMinutes = new HashMap<String, Integer>();
+
+	// Cache files in least recently used order
+	private LinkedHashMap<String, File> entries = new LinkedHashMap<String, File>(16, 0.75f, true);
+
+	public Pike13ResponseCache(String cacheDirName, boolean offline) {
+		this.cacheDir = new File(cacheDirName);
+		this.offline = offline;
+		cacheDir.mkdirs();
+
+		// Client and staff lists change slowly; attendance changes during the day
+		ttlMinutes.put("clients", 60);
+		ttlMinutes.put("staff_members", 60);
+		ttlMinutes.put("enrollments", DEFAULT_TTL_MINUTES);
+		ttlMinutes.put("event_occurrences", 30);
+
+		loadEntries();
+	}
+
+	public boolean isOffline() {
+		return offline;
+	}
+
+	public void setTtlMinutes(String endPoint, int minutes) {
+		ttlMinutes.put(endPoint, minutes);
+	}
+
+	public void setMaxCacheBytes(long maxCacheBytes) {
+		this.maxCacheBytes = maxCacheBytes;
+	}
+
+	public static String getKey(String endPoint, String command) {
+		// Hash of endpoint and query, so that equivalent queries share an entry
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(endPoint.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+			digest.update(normalizeQuery(command).getBytes(StandardCharsets.UTF_8));
+
+			StringBuilder key = new StringBuilder();
+			for (byte b : digest.digest())
+				key.append(String.format("%02x", b));
+			return key.toString();
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public synchronized byte[] get(String key, String endPoint) {
+		File file = entries.get(key);
+		if (file == null)
+			return null;
+
+		// Expired entries are kept for offline use until evicted
+		long ageMillis = System.currentTimeMillis() - file.lastModified();
+		if (!offline && ageMillis > getTtlMinutes(endPoint) * 60L * 1000L)
+			return null;
+
+		try {
+			InputStream inputStream = new GZIPInputStream(new FileInputStream(file));
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int len;
+			while ((len = inputStream.read(buffer)) > 0)
+				body.write(buffer, 0, len);
+			inputStream.close();
+			return body.toByteArray();
+
+		} catch (IOException e) {
+			// Drop unreadable entries
+			System.out.println("Pike13 cache read failed for " + file.getName() + ": " + e.getMessage());
+			remove(key);
+			return null;
+		}
+	}
+
+	public synchronized void put(String key, byte[] body) {
+		if (offline)
+			return;
+
+		File file = new File(cacheDir, key + FILE_SUFFIX);
+		try {
+			// Write to temp file and rename, so that other readers never see a partial entry
+			File tempFile = File.createTempFile(key, ".tmp", cacheDir);
+			OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(tempFile));
+			outputStream.write(body);
+			outputStream.close();
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+
+			File oldFile = entries.put(key, file);
+			if (oldFile != null)
+				cacheBytes -= oldFile.length();
+			cacheBytes += file.length();
+			evictEntries();
+
+		} catch (IOException e) {
+			System.out.println("Pike13 cache write failed for " + file.getName() + ": " + e.getMessage());
+		}
+	}
+
+	public synchronized void remove(String key) {
+		File file = entries.remove(key);
+		if (file != null) {
+			cacheBytes -= file.length();
+			file.delete();
+		}
+	}
+
+	private int getTtlMinutes(String endPoint) {
+		// Core API endpoints include their query parameters
+		int paramIdx = endPoint.indexOf('?');
+		if (paramIdx >= 0)
+			endPoint = endPoint.substring(0, paramIdx);
+
+		Integer ttl = ttlMinutes.get(endPoint);
+		if (ttl == null)
+			return DEFAULT_TTL_MINUTES;
+		return ttl;
+	}
+
+	private void loadEntries() {
+		File[] files = cacheDir.listFiles((File dir, String name) -> name.endsWith(FILE_SUFFIX));
+		if (files == null)
+			return;
+
+		// Oldest entries are the first to be evicted
+		ArrayList<File> fileList = new ArrayList<File>(Arrays.asList(files));
+		Collections.sort(fileList, (File f1, File f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+		for (File file : fileList) {
+			String name = file.getName();
+			entries.put(name.substring(0, name.length() - FILE_SUFFIX.length()), file);
+			cacheBytes += file.length();
+		}
+		evictEntries();
+	}
+
+	private void evictEntries() {
+		Iterator<Map.Entry<String, File>> it = entries.entrySet().iterator();
+		while (cacheBytes > maxCacheBytes && it.hasNext()) {
+			File file = it.next().getValue();
+			cacheBytes -= file.length();
+			file.delete();
+			it.remove();
+		}
+	}
+
+	private static String normalizeQuery(String command) {
+		// Report queries are re-written with sorted keys and no white space
+		if (command == null || command.trim().isEmpty())
+			return "";
+
+		try {
+			JsonReader reader = Json.createReader(new ByteArrayInputStream(command.getBytes(StandardCharsets.UTF_8)));
+			JsonValue value = reader.read();
+			reader.close();
+
+			StringBuilder query = new StringBuilder();
+			appendNormalized(value, query);
+			return query.toString();
+
+		} catch (JsonException e) {
+			return command.trim();
+		}
+	}
+
+	private static void appendNormalized(JsonValue value, StringBuilder query) {
+		switch (value.getValueType()) {
+		case OBJECT:
+			JsonObject object = (JsonObject) value;
+			ArrayList<String> keys = new ArrayList<String>(object.keySet());
+			Collections.sort(keys);
+			query.append('{');
+			for (int i = 0; i < keys.size(); i++) {
+				if (i > 0)
+					query.append(',');
+				query.append('"').append(keys.get(i)).append("\":");
+				appendNormalized(object.get(keys.get(i)), query);
+			}
+			query.append('}');
+			break;
+		case ARRAY:
+			JsonArray array = (JsonArray) value;
+			query.append('[');
+			for (int i = 0; i < array.size(); i++) {
+				if (i > 0)
+					query.append(',');
+				appendNormalized(array.get(i), query);
+			}
+			query.append(']');
+			break;
+		case STRING:
+			query.append('"').append(((JsonString) value).getString()).append('"');
+			break;
+		default:
+			query.append(value.toString());
+			break;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package controller;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * One row of a Pike13 report, with cells looked up by the field names declared
+ * in the query. Cells hold the decoded text of each value, or null.
+ */
+public class Pike13Row {
+	private Pike13Fields fields;
+	private String[] cells;
+
+	public Pike13Row(Pike13Fields fields, String[] cells) {
+		this.fields = fields;
+		this.cells = cells;
+	}
+
+	public boolean hasField(String name) {
+		return fields.contains(name);
+	}
+
+	public boolean isNull(String name) {
+		return cells[fields.getIndex(name)] == null;
+	}
+
+	public String getString(String name) {
+		// Empty string for null fields
+		String cell = cells[fields.getIndex(name)];
+		if (cell == null)
+			return "";
+		return cell;
+	}
+
+	public String getText(String name) {
+		// Value as it appears in the response; used for numeric ID's
+		String cell = cells[fields.getIndex(name)];
+		if (cell == null)
+			return "null";
+		return cell;
+	}
+
+	public int getInt(String name) {
+		String cell = cells[fields.getIndex(name)];
+		if (cell == null)
+			return 0;
+		if (cell.indexOf('.') < 0 && cell.indexOf('e') < 0 && cell.indexOf('E') < 0)
+			return Integer.parseInt(cell);
+		return new BigDecimal(cell).intValue();
+	}
+
+	public double getDouble(String name) {
+		String cell = cells[fields.getIndex(name)];
+		if (cell == null)
+			return 0.0;
+		return Double.parseDouble(cell);
+	}
+
+	public boolean getBoolean(String name) {
+		// Pike13 boolean fields are 't' or 'f'
+		return getString(name).equalsIgnoreCase("t");
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof Pike13Row && Arrays.equals(cells, ((Pike13Row) other).cells);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(cells);
+	}
+}
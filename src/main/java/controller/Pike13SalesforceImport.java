@@ -1,11 +1,7 @@
 package controller;
 
-import java.net.HttpURLConnection;
 import java.util.ArrayList;
 
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-
 import model.SalesForceAttendanceModel;
 import model.SalesForceStaffHoursModel;
 import model.StaffMemberModel;
@@ -71,332 +67,143 @@ public class Pike13SalesforceImport {
 	private final String STAFF_GITHUB_USER_FIELD = "custom_field_127885";
 	private final String STAFF_TITLE_FIELD = "custom_field_154726";
 
-	// Indices for client data import to SF
-	private final int CLIENT_SF_ID_IDX = 0;
-	private final int CLIENT_EMAIL_IDX = 1;
-	private final int CLIENT_PHONE_1_IDX = 2;
-	private final int CLIENT_FULL_ADDRESS_IDX = 3;
-	private final int CLIENT_BIRTHDATE_IDX = 4;
-	private final int CLIENT_COMPLETED_VISITS_IDX = 5;
-	private final int CLIENT_FUTURE_VISITS_IDX = 6;
-	private final int CLIENT_HAS_SIGNED_WAIVER_IDX = 7;
-	private final int CLIENT_HAS_MEMBERSHIP_IDX = 8;
-	private final int CLIENT_PASS_ON_FILE_IDX = 9;
-	private final int CLIENT_HOME_LOC_LONG_IDX = 10;
-	private final int CLIENT_FIRST_NAME_IDX = 11;
-	private final int CLIENT_LAST_NAME_IDX = 12;
-	private final int CLIENT_SCHOOL_NAME_IDX = 13;
-	private final int CLIENT_GENDER_IDX = 14;
-	private final int CLIENT_EMERG_CONTACT_NAME_IDX = 15;
-	private final int CLIENT_EMERG_CONTACT_PHONE_IDX = 16;
-	private final int CLIENT_CURR_GRADE_IDX = 17;
-	private final int CLIENT_HEAR_ABOUT_US_IDX = 18;
-	private final int CLIENT_GRAD_YEAR_IDX = 19;
-	private final int CLIENT_WHO_TO_THANK_IDX = 20;
-	private final int CLIENT_EMERG_CONTACT_EMAIL_IDX = 21;
-	private final int CLIENT_FINANCIAL_AID_IDX = 22;
-	private final int CLIENT_FINANCIAL_AID_PERCENT_IDX = 23;
-	private final int CLIENT_GITHUB_IDX = 24;
-	private final int CLIENT_GRANT_INFO_IDX = 25;
-	private final int CLIENT_FIRST_VISIT_IDX = 26;
-	private final int CLIENT_ACCOUNT_MGR_NAMES_IDX = 27;
-	private final int CLIENT_ACCOUNT_MGR_EMAILS_IDX = 28;
-	private final int CLIENT_ACCOUNT_MGR_PHONES_IDX = 29;
-	private final int CLIENT_DEPENDENT_NAMES_IDX = 30;
-	private final int CLIENT_CURRENT_LEVEL_IDX = 31;
-
-	private final int CLIENT_RELATIONSHIP_IDX = 32;
-	private final int CLIENT_PREF_CONTACT_METHOD_IDX = 33;
-	private final int CLIENT_PRIMARY_LANGUAGE_IDX = 34;
-	private final int CLIENT_EMERG_RELATION_TO_STUD_IDX = 35;
-	private final int CLIENT_PREF_CLASS_LOC_IDX = 36;
-	private final int CLIENT_STUD_ADDR_SAME_IDX = 37;
-	private final int CLIENT_STUD_ADDR_IF_DIFF_IDX = 38;
-	private final int CLIENT_WORK_WITH_COMPUTER_IDX = 39;
-	private final int CLIENT_SCHOOL_COMPLETED_1_IDX = 40;
-	private final int CLIENT_SCHOOL_COMPLETED_2_IDX = 41;
-	private final int CLIENT_STUDENT_ETHNICITY_IDX = 42;
-	private final int CLIENT_STUDENT_RACE_IDX = 43;
-	private final int CLIENT_TECH_ACCESS_IDX = 44;
-	private final int CLIENT_QUESTIONS_COMMENTS_IDX = 45;
-	
-	// Indices for SalesForce enrollment data
-	private final int SF_PERSON_ID_IDX = 0;
-	private final int SF_SERVICE_DATE_IDX = 1;
-	private final int SF_SERVICE_TIME_IDX = 2;
-	private final int SF_EVENT_NAME_IDX = 3;
-	private final int SF_SERVICE_NAME_IDX = 4;
-	private final int SF_SERVICE_CATEGORY_IDX = 5;
-	private final int SF_STATE_IDX = 6;
-	private final int SF_VISIT_ID_IDX = 7;
-	private final int SF_EVENT_OCCURRENCE_ID_IDX = 8;
-	private final int SF_LOCATION_NAME_IDX = 9;
-	private final int SF_INSTRUCTOR_NAMES_IDX = 10;
-	private final int SF_FULL_NAME_IDX = 11;
-	private final int SF_END_AT_IDX = 12;
-	private final int SF_DURATION_IDX = 13;
-
-	// Indices for Staff Member data
-	private final int TEACHER_CLIENT_ID_IDX = 0;
-	private final int TEACHER_FIRST_NAME_IDX = 1;
-	private final int TEACHER_LAST_NAME_IDX = 2;
-	private final int TEACHER_SF_CLIENT_ID_IDX = 3;
-	private final int TEACHER_CATEGORY_IDX = 4;
-	private final int TEACHER_ROLE_IDX = 5;
-	private final int TEACHER_OCCUPATION_IDX = 6;
-	private final int TEACHER_EMPLOYER_IDX = 7;
-	private final int TEACHER_START_INFO_IDX = 8;
-	private final int TEACHER_GENDER_IDX = 9;
-	private final int TEACHER_PHONE_IDX = 10;
-	private final int TEACHER_ADDRESS_IDX = 11;
-	private final int TEACHER_EMAIL_IDX = 12;
-	private final int TEACHER_ALTERNATE_EMAIL_IDX = 13;
-	private final int TEACHER_HOME_LOCATION_IDX = 14;
-	private final int TEACHER_GITHUB_USER_IDX = 15;
-	private final int TEACHER_BIRTHDATE_IDX = 16;
-	private final int TEACHER_PAST_EVENTS_IDX = 17;
-	private final int TEACHER_FUTURE_EVENTS_IDX = 18;
-	private final int TEACHER_KEY_HOLDER_IDX = 19;
-	private final int TEACHER_LIVE_SCAN_DATE_IDX = 20;
-	private final int TEACHER_T_SHIRT_IDX = 21;
-	private final int TEACHER_WHERE_DID_YOU_HEAR_IDX = 22;
-	private final int TEACHER_LEAVE_IDX = 23;
-	private final int TEACHER_EMERG_NAME_IDX = 24;
-	private final int TEACHER_EMERG_EMAIL_IDX = 25;
-	private final int TEACHER_EMERG_PHONE_IDX = 26;
-	private final int TEACHER_CURR_BOARD_MEMBER_IDX = 27;
-	private final int TEACHER_CURR_STAFF_MEMBER_IDX = 28;
-	private final int TEACHER_IS_ALSO_CLIENT_IDX = 29;
-	private final int TEACHER_TITLE_IDX = 30;
-
-	// Indices for Staff Hours data
-	private final int STAFF_CLIENT_ID_IDX = 0;
-	private final int STAFF_EVENT_SERVICE_NAME_IDX = 1;
-	private final int STAFF_EVENT_SERVICE_DATE_IDX = 2;
-	private final int STAFF_EVENT_SERVICE_TIME_IDX = 3;
-	private final int STAFF_EVENT_DURATION_IDX = 4;
-	private final int STAFF_EVENT_LOCATION_IDX = 5;
-	private final int STAFF_EVENT_COMPLETED_COUNT_IDX = 6;
-	private final int STAFF_EVENT_NO_SHOW_COUNT_IDX = 7;
-	private final int STAFF_EVENT_CANCELED_COUNT_IDX = 8;
-	private final int STAFF_EVENT_NAME_IDX = 9;
-	private final int STAFF_EVENT_SCHEDULE_ID_IDX = 10;
-	private final int STAFF_EVENT_FULL_NAME_IDX = 11;
-	private final int STAFF_EVENT_SERVICE_CATEGORY_IDX = 12;
-
-	private final String getClientDataForSF = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit and filters
-			+ "\"attributes\":{"
-			// Select fields for client data import to SF
-			+ "\"fields\":[\"person_id\",\"email\",\"phone\",\"address\",\"birthdate\",\"completed_visits\",\"future_visits\","
-			+ "            \"has_signed_waiver\",\"has_membership\",\"current_plans\","
-			+ "            \"home_location_name\",\"first_name\",\"last_name\",\"" + SCHOOL_ATTENDING_FIELD + "\","
-			+ "            \"" + GENDER_FIELD + "\",\"" + EMERG_CONTACT_NAME_FIELD + "\","
-			+ "            \"" + EMERG_CONTACT_PHONE_FIELD + "\",\"" + CURRENT_GRADE_FIELD + "\","
-			+ "            \"" + HEAR_ABOUT_US_FIELD + "\",\"" + GRAD_YEAR_FIELD + "\",\"" + WHO_TO_THANK_FIELD + "\","
-			+ "            \"" + EMERG_CONTACT_EMAIL_FIELD + "\",\"" + FINANCIAL_AID_FIELD + "\",\"" + FINANCIAL_AID_PERCENT_FIELD + "\","
-			+ "            \"" + GITHUB_FIELD + "\",\"" + GRANT_INFO_FIELD + "\",\"first_visit_date\","
-			+ "            \"account_manager_names\",\"account_manager_emails\",\"account_manager_phones\",\"dependent_names\","
-			+ "            \"" + CURRENT_LEVEL_FIELD + "\","
-			
-					// New fields added 3/2020
-			+ "            \"" + RELATIONSHIP_FIELD        + "\",\"" + PREF_CONTACT_METHOD_FIELD + "\",\"" + PRIMARY_LANGUAGE_FIELD   + "\","
-			+ "            \"" + EMERG_RELATION_TO_STUD_FIELD + "\",\"" + PREF_CLASS_LOC_FIELD     + "\","
-			+ "            \"" + STUD_ADDR_SAME_FIELD      + "\",\"" + STUD_ADDR_IF_DIFF_FIELD      + "\",\"" + WORK_WITH_COMPUTER_FIELD + "\","
-			+ "            \"" + SCHOOL_COMPLETED_1_FIELD  + "\",\"" + SCHOOL_COMPLETED_2_FIELD     + "\",\"" + STUDENT_ETHNICITY_FIELD  + "\","
-			+ "            \"" + STUDENT_RACE_FIELD        + "\",\"" + TECH_ACCESS_FIELD            + "\",\"" + QUESTIONS_COMMENTS_FIELD + "\"],"
-
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500";
-
-	private final String getClientDataForSF2student = "},"
-			// Filter on Dependents NULL, visited within the last year OR has future visits
-			+ "\"filter\":[\"and\",[[\"emp\",\"dependent_names\"],"
-			+ "                     [\"ne\",\"first_name\",\"TestChild\"],"
-			+ "                     [\"eq\",\"person_state\",\"active\"],"
-			+ "                     [\"or\",[[\"and\",[[\"emp\",\"days_since_last_visit\"],[\"gt\",\"future_visits\",0]]],"
-			+ "                              [\"and\",[[\"nemp\",\"days_since_last_visit\"],[\"lt\",\"days_since_last_visit\",366]]]]]]]}}}";
-
-	private final String getClientDataForSF2adult = "},"
-			// Filter on Dependents not NULL
-			+ "\"filter\":[\"and\",[[\"nemp\",\"dependent_names\"],"
-			+ "                     [\"eq\",\"person_state\",\"active\"]]]}}}";
-
-	private final String getEnrollmentSalesForce = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"person_id\",\"service_date\",\"service_time\",\"event_name\",\"service_name\","
-			+ "            \"service_category\",\"state\",\"visit_id\",\"event_occurrence_id\","
-			+ "            \"service_location_name\",\"instructor_names\",\"full_name\",\"end_at\",\"duration_in_hours\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500";
-
-	private final String getEnrollmentSalesForce2 = "},"
-			// Filter on between start/end dates OR all future summer slam, workshops and leave
-			+ "\"filter\":[\"and\",[[\"or\",[[\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]],"
-			+ "                              [\"and\",[[\"gt\",\"service_date\",\"2222-22-22\"],"
-			+ "                                        [\"starts\",\"service_category\",\"class jslam\"]]],"
-			+ "                              [\"and\",[[\"gt\",\"service_date\",\"2222-22-22\"],"
-			+ "                                        [\"starts\",\"service_category\",\"works\"]]],"
-			+ "                              [\"and\",[[\"gt\",\"service_date\",\"2222-22-22\"],"
-			+ "                                        [\"eq\",\"service_category\",\"leave\"]]]]],"
-			+ "                     [\"eq\",\"service_state\",\"active\"]]]}}}";
-
-	// Get staff member data
-	private final String getStaffMemberData = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit and filters
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"person_id\",\"first_name\",\"last_name\",\"" + STAFF_SF_CLIENT_ID_FIELD + "\","
-			+ "            \"" + STAFF_CATEGORY_FIELD + "\",\"role\",\"" + STAFF_OCCUPATION_FIELD + "\","
-			+ "            \"" + STAFF_EMPLOYER_FIELD + "\",\"" + STAFF_START_INFO_FIELD + "\","
-			+ "            \"" + STAFF_GENDER_FIELD + "\",\"phone\",\"address\","
-			+ "            \"email\",\"" + STAFF_ALTERNATE_EMAIL_FIELD + "\",\"home_location_name\","
-			+ "            \"" + STAFF_GITHUB_USER_FIELD + "\",\"birthdate\",\"past_events\","
-			+ "            \"future_events\",\"" + STAFF_KEY_HOLDER_FIELD + "\",\"" + STAFF_LIVE_SCAN_DATE_FIELD + "\","
-			+ "            \"" + STAFF_T_SHIRT_FIELD + "\",\"" + STAFF_WHERE_DID_YOU_HEAR_FIELD + "\","
-			+ "            \"" + STAFF_LEAVE_FIELD + "\",\"" + STAFF_EMERG_NAME_FIELD + "\",\"" + STAFF_EMERG_EMAIL_FIELD + "\","
-			+ "            \"" + STAFF_EMERG_PHONE_FIELD + "\",\"" + STAFF_CURR_BOARD_MEMBER_FIELD + "\","
-			+ "            \"" + STAFF_CURR_STAFF_MEMBER_FIELD + "\",\"also_client\",\"" + STAFF_TITLE_FIELD + "\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500},"
-			// Filter on Staff Category and staff member active
-			+ "\"filter\":[\"and\",[[\"eq\",\"person_state\",\"active\"],"
-			+ "                     [\"or\",[[\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Teaching Staff\"],"
-			+ "                              [\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Vol Teacher\"],"
-			+ "                              [\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Volunteer\"],"
-			+ "                              [\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Student TA\"],"
-			+ "                              [\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Admin Staff\"],"
-			+ "                              [\"eq\",\"" + STAFF_CATEGORY_FIELD + "\",\"Board Member\"]]]]]}}}";
-
-	// Get staff hours data
-	private final String getStaffHoursSalesForce = "{\"data\":{\"type\":\"queries\","
-			// Get attributes: fields, page limit
-			+ "\"attributes\":{"
-			// Select fields
-			+ "\"fields\":[\"person_id\",\"service_name\",\"service_date\",\"service_time\",\"duration_in_hours\","
-			+ "            \"service_location_name\",\"completed_enrollment_count\",\"noshowed_enrollment_count\","
-			+ "            \"late_canceled_enrollment_count\",\"event_name\",\"event_occurrence_id\",\"full_name\","
-			+ "            \"service_category\"],"
-			// Page limit max is 500
-			+ "\"page\":{\"limit\":500";
-
-	private final String getStaffHoursSalesForce2 = "},"
-			// Filter on since date
-			+ "\"filter\":[\"and\",[[\"btw\",\"service_date\",[\"0000-00-00\",\"1111-11-11\"]],"
-			+ "                     [\"or\",[[\"eq\",\"attendance_completed\",\"t\"],"
-			+ "                              [\"eq\",\"service_name\",\"Volunteer Time\"]]],"
-			+ "                     [\"wo\",\"home_location_name\",\"Tax ID#\"]]]}}}";
+	// Fields for client data import to SF
+	private final Pike13Fields clientFields = new Pike13Fields("person_id", "email", "phone", "address", "birthdate",
+			"completed_visits", "future_visits", "has_membership", "current_plans",
+			"home_location_name", "first_name", "last_name", SCHOOL_ATTENDING_FIELD, GENDER_FIELD,
+			EMERG_CONTACT_NAME_FIELD, EMERG_CONTACT_PHONE_FIELD, CURRENT_GRADE_FIELD, HEAR_ABOUT_US_FIELD,
+			GRAD_YEAR_FIELD, WHO_TO_THANK_FIELD, EMERG_CONTACT_EMAIL_FIELD, FINANCIAL_AID_FIELD,
+			FINANCIAL_AID_PERCENT_FIELD, GITHUB_FIELD, GRANT_INFO_FIELD, "first_visit_date", "account_manager_names",
+			"account_manager_emails", "account_manager_phones", "dependent_names", CURRENT_LEVEL_FIELD,
+
+			// New fields added 3/2020
+			RELATIONSHIP_FIELD, PREF_CONTACT_METHOD_FIELD, PRIMARY_LANGUAGE_FIELD, EMERG_RELATION_TO_STUD_FIELD,
+			PREF_CLASS_LOC_FIELD, STUD_ADDR_SAME_FIELD, STUD_ADDR_IF_DIFF_FIELD, WORK_WITH_COMPUTER_FIELD,
+			SCHOOL_COMPLETED_1_FIELD, SCHOOL_COMPLETED_2_FIELD, STUDENT_ETHNICITY_FIELD, STUDENT_RACE_FIELD,
+			TECH_ACCESS_FIELD, QUESTIONS_COMMENTS_FIELD);
+
+	// Dependent names are always empty for students; home location and level are not used for adults
+	private final Pike13Fields studentClientFields = clientFields.without("dependent_names");
+	private final Pike13Fields adultClientFields = clientFields.without("home_location_name", CURRENT_LEVEL_FIELD);
+
+	// Fields for SalesForce enrollment data
+	private final Pike13Fields enrollFields = new Pike13Fields("person_id", "service_date", "service_time",
+			"event_name", "service_name", "service_category", "state", "visit_id", "event_occurrence_id",
+			"service_location_name", "instructor_names", "full_name", "end_at", "duration_in_hours");
+
+	// Fields for Staff Member data
+	private final Pike13Fields staffFields = new Pike13Fields("person_id", "first_name", "last_name",
+			STAFF_SF_CLIENT_ID_FIELD, STAFF_CATEGORY_FIELD, "role", STAFF_OCCUPATION_FIELD, STAFF_EMPLOYER_FIELD,
+			STAFF_START_INFO_FIELD, STAFF_GENDER_FIELD, "phone", "address", "email", STAFF_ALTERNATE_EMAIL_FIELD,
+			"home_location_name", STAFF_GITHUB_USER_FIELD, "birthdate", "past_events", "future_events",
+			STAFF_KEY_HOLDER_FIELD, STAFF_LIVE_SCAN_DATE_FIELD, STAFF_T_SHIRT_FIELD, STAFF_WHERE_DID_YOU_HEAR_FIELD,
+			STAFF_LEAVE_FIELD, STAFF_EMERG_NAME_FIELD, STAFF_EMERG_EMAIL_FIELD, STAFF_EMERG_PHONE_FIELD,
+			STAFF_CURR_BOARD_MEMBER_FIELD, STAFF_CURR_STAFF_MEMBER_FIELD, "also_client", STAFF_TITLE_FIELD);
+
+	// Fields for Staff Hours data
+	private final Pike13Fields staffHoursFields = new Pike13Fields("person_id", "service_name", "service_date",
+			"service_time", "duration_in_hours", "service_location_name", "completed_enrollment_count",
+			"noshowed_enrollment_count", "late_canceled_enrollment_count", "event_name", "event_occurrence_id",
+			"full_name", "service_category");
+
+	// Students: Dependents NULL, visited within the last year OR has future visits
+	private final Pike13Query studentClientQuery = new Pike13Query(studentClientFields,
+			Pike13Filter.and(Pike13Filter.emp("dependent_names"),
+					Pike13Filter.ne("first_name", "TestChild"),
+					Pike13Filter.eq("person_state", "active"),
+					Pike13Filter.or(Pike13Filter.and(Pike13Filter.emp("days_since_last_visit"),
+									Pike13Filter.gt("future_visits", 0)),
+							Pike13Filter.and(Pike13Filter.nemp("days_since_last_visit"),
+									Pike13Filter.lt("days_since_last_visit", 366)))));
+
+	// Adults: Dependents not NULL
+	private final Pike13Query adultClientQuery = new Pike13Query(adultClientFields,
+			Pike13Filter.and(Pike13Filter.nemp("dependent_names"), Pike13Filter.eq("person_state", "active")));
+
+	// Staff members: filter on Staff Category and staff member active
+	private final Pike13Query staffMemberQuery = new Pike13Query(staffFields,
+			Pike13Filter.and(Pike13Filter.eq("person_state", "active"),
+					Pike13Filter.or(Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Teaching Staff"),
+							Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Vol Teacher"),
+							Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Volunteer"),
+							Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Student TA"),
+							Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Admin Staff"),
+							Pike13Filter.eq(STAFF_CATEGORY_FIELD, "Board Member"))));
 
 	Pike13Connect pike13Conn;
+	Pike13PageFetcher pageFetcher;
 
 	public Pike13SalesforceImport(Pike13Connect pike13Conn) {
 		this.pike13Conn = pike13Conn;
+		this.pageFetcher = new Pike13PageFetcher(pike13Conn);
 	}
 
 	public ArrayList<StudentImportModel> getClientsForSfImport(boolean isAcctMgr) {
 		ArrayList<StudentImportModel> studentList = new ArrayList<StudentImportModel>();
-		boolean hasMore = false;
-		String lastKey = "";
-
-		do {
-			// URL connection with authorization
-			HttpURLConnection conn;
-
-			// Send the query (set dependents not empty for manager)
-			String cmd2;
-			if (isAcctMgr)
-				cmd2 = getClientDataForSF2adult;
-			else
-				cmd2 = getClientDataForSF2student;
-			if (hasMore)
-				conn = pike13Conn.sendQueryToUrl("clients", getClientDataForSF + ",\"starting_after\":\"" + lastKey + "\"" + cmd2, false);
-			else
-				conn = pike13Conn.sendQueryToUrl("clients", getClientDataForSF + cmd2, false);
-
-			// Check result
-			if (conn == null)
-				return null;
-
-			// Get input stream and read data
-			JsonObject jsonObj = pike13Conn.readInputStream(conn);
-			if (jsonObj == null) {
-				conn.disconnect();
-				return null;
-			}
-			JsonArray jsonArray = jsonObj.getJsonArray("rows");
-
-			for (int i = 0; i < jsonArray.size(); i++) {
-				// Get fields for each person
-				JsonArray personArray = (JsonArray) jsonArray.get(i);
 
-				// Get fields for this Json array entry
-				StudentImportModel model = new StudentImportModel(personArray.getInt(CLIENT_SF_ID_IDX),
-						personArray.getString(CLIENT_FIRST_NAME_IDX),
-						personArray.getString(CLIENT_LAST_NAME_IDX),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_GENDER_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_BIRTHDATE_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_CURR_GRADE_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_GRAD_YEAR_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_FIRST_VISIT_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_HOME_LOC_LONG_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_EMAIL_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_PHONE_1_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_FULL_ADDRESS_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_SCHOOL_NAME_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_GITHUB_IDX).toString()),
-						personArray.getInt(CLIENT_COMPLETED_VISITS_IDX),
-						personArray.getInt(CLIENT_FUTURE_VISITS_IDX),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_HAS_SIGNED_WAIVER_IDX).toString()).equals("t") ? true : false,
-						pike13Conn.stripQuotes(personArray.get(CLIENT_HAS_MEMBERSHIP_IDX).toString()).equals("t") ? "Yes" : "No",
-						pike13Conn.stripQuotes(personArray.get(CLIENT_PASS_ON_FILE_IDX).toString()),
+		// Send the query and read each page of data
+		if (!pageFetcher.fetchPages("clients", isAcctMgr ? adultClientQuery : studentClientQuery,
+				(ArrayList<Pike13Row> rows) -> {
+			for (Pike13Row person : rows) {
+				// Get fields for this row
+				StudentImportModel model = new StudentImportModel(person.getInt("person_id"),
+						person.getString("first_name"),
+						person.getString("last_name"),
+						person.getString(GENDER_FIELD),
+						person.getString("birthdate"),
+						person.getString(CURRENT_GRADE_FIELD),
+						person.getString(GRAD_YEAR_FIELD),
+						person.getString("first_visit_date"),
+						getOptionalString(person, "home_location_name"),
+						person.getString("email"),
+						person.getString("phone"),
+						person.getString("address"),
+						person.getString(SCHOOL_ATTENDING_FIELD),
+						person.getString(GITHUB_FIELD),
+						person.getInt("completed_visits"),
+						person.getInt("future_visits"),
+						false, // Signed waiver not used
+						person.getBoolean("has_membership") ? "Yes" : "No",
+						person.getString("current_plans"),
 						false, // CLIENT_STOP_EMAIL_IDX removed from Pike13
-						pike13Conn.stripQuotes(personArray.get(CLIENT_FINANCIAL_AID_IDX).toString()).equals("t") ? true : false,
-						pike13Conn.stripQuotes(personArray.get(CLIENT_FINANCIAL_AID_PERCENT_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_GRANT_INFO_IDX).toString()),
+						person.getBoolean(FINANCIAL_AID_FIELD),
+						person.getString(FINANCIAL_AID_PERCENT_FIELD),
+						person.getString(GRANT_INFO_FIELD),
 						null, // CLIENT_LEAVE_REASON_IDX removed from Pike13
-						pike13Conn.stripQuotes(personArray.get(CLIENT_HEAR_ABOUT_US_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_WHO_TO_THANK_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_EMERG_CONTACT_NAME_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_EMERG_CONTACT_PHONE_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_EMERG_CONTACT_EMAIL_IDX).toString()),
+						person.getString(HEAR_ABOUT_US_FIELD),
+						person.getString(WHO_TO_THANK_FIELD),
+						person.getString(EMERG_CONTACT_NAME_FIELD),
+						person.getString(EMERG_CONTACT_PHONE_FIELD),
+						person.getString(EMERG_CONTACT_EMAIL_FIELD),
 						"", // CLIENT_EXTRA_PHONE_IDX removed from Pike13
-						pike13Conn.stripQuotes(personArray.get(CLIENT_ACCOUNT_MGR_NAMES_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_ACCOUNT_MGR_PHONES_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_ACCOUNT_MGR_EMAILS_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_DEPENDENT_NAMES_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_CURRENT_LEVEL_IDX).toString()));
+						person.getString("account_manager_names"),
+						person.getString("account_manager_phones"),
+						person.getString("account_manager_emails"),
+						getOptionalString(person, "dependent_names"),
+						getOptionalString(person, CURRENT_LEVEL_FIELD));
 				
-				model.addMoreFields (pike13Conn.stripQuotes(personArray.get(CLIENT_RELATIONSHIP_IDX).toString()),
+				model.addMoreFields (person.getString(RELATIONSHIP_FIELD),
 						"", // CLIENT_PHONE_NUM_TYPE_IDX removed from Pike13
 						"", // CLIENT_EXTRA_PHONE_TYPE_IDX removed from Pike13
-						pike13Conn.stripQuotes(personArray.get(CLIENT_PREF_CONTACT_METHOD_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_PRIMARY_LANGUAGE_IDX).toString()),
+						person.getString(PREF_CONTACT_METHOD_FIELD),
+						person.getString(PRIMARY_LANGUAGE_FIELD),
 						null, // CLIENT_PREF_CONTACT_LANG_IDX removed from Pike13
-						pike13Conn.stripQuotes(personArray.get(CLIENT_EMERG_RELATION_TO_STUD_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_PREF_CLASS_LOC_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_STUD_ADDR_SAME_IDX).toString()).equals("t") ? true : false,
-						pike13Conn.stripQuotes(personArray.get(CLIENT_STUD_ADDR_IF_DIFF_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_WORK_WITH_COMPUTER_IDX).toString()).equals("t") ? true : false,
-						pike13Conn.stripQuotes(personArray.get(CLIENT_SCHOOL_COMPLETED_1_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_SCHOOL_COMPLETED_2_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_STUDENT_ETHNICITY_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_STUDENT_RACE_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_TECH_ACCESS_IDX).toString()),
-						pike13Conn.stripQuotes(personArray.get(CLIENT_QUESTIONS_COMMENTS_IDX).toString()));
+						person.getString(EMERG_RELATION_TO_STUD_FIELD),
+						person.getString(PREF_CLASS_LOC_FIELD),
+						person.getBoolean(STUD_ADDR_SAME_FIELD),
+						person.getString(STUD_ADDR_IF_DIFF_FIELD),
+						person.getBoolean(WORK_WITH_COMPUTER_FIELD),
+						person.getString(SCHOOL_COMPLETED_1_FIELD),
+						person.getString(SCHOOL_COMPLETED_2_FIELD),
+						person.getString(STUDENT_ETHNICITY_FIELD),
+						person.getString(STUDENT_RACE_FIELD),
+						person.getString(TECH_ACCESS_FIELD),
+						person.getString(QUESTIONS_COMMENTS_FIELD));
 
 				studentList.add(model);
 			}
-
-			// Check to see if there are more pages
-			hasMore = jsonObj.getBoolean("has_more");
-			if (hasMore)
-				lastKey = jsonObj.getString("last_key");
-
-			conn.disconnect();
-
-		} while (hasMore);
+		}))
+			return null;
 
 		return studentList;
 	}
@@ -404,62 +211,40 @@ public class Pike13SalesforceImport {
 	public ArrayList<SalesForceAttendanceModel> getSalesForceAttendance(String startDate, String endDate) {
 		// Get attendance for export to SalesForce database
 		ArrayList<SalesForceAttendanceModel> eventList = new ArrayList<SalesForceAttendanceModel>();
-		boolean hasMore = false;
-		String lastKey = "";
-
-		// Insert start date and end date into enrollment command string
-		String enroll2 = getEnrollmentSalesForce2.replaceFirst("0000-00-00", startDate);
-		enroll2 = enroll2.replaceFirst("1111-11-11", endDate);
-		enroll2 = enroll2.replace("2222-22-22", startDate);
-
-		do {
-			// Get URL connection and send the query; add page info if necessary
-			HttpURLConnection conn;
-			if (hasMore)
-				conn = pike13Conn.sendQueryToUrl("enrollments", getEnrollmentSalesForce + ",\"starting_after\":\"" + lastKey + "\"" + enroll2, false);
-			else
-				conn = pike13Conn.sendQueryToUrl("enrollments", getEnrollmentSalesForce + enroll2, false);
-
-			if (conn == null)
-				return null;
-
-			// Get input stream and read data
-			JsonObject jsonObj = pike13Conn.readInputStream(conn);
-			if (jsonObj == null) {
-				conn.disconnect();
-				return null;
-			}
-			JsonArray jsonArray = jsonObj.getJsonArray("rows");
-
-			for (int i = 0; i < jsonArray.size(); i++) {
-				// Get fields for each event
-				JsonArray eventArray = (JsonArray) jsonArray.get(i);
 
+		// Future summer slam, workshops and leave
+		Pike13Filter futureFilter = Pike13Filter.or(
+				Pike13Filter.and(Pike13Filter.gt("service_date", startDate),
+						Pike13Filter.starts("service_category", "class jslam")),
+				Pike13Filter.and(Pike13Filter.gt("service_date", startDate),
+						Pike13Filter.starts("service_category", "works")),
+				Pike13Filter.and(Pike13Filter.gt("service_date", startDate),
+						Pike13Filter.eq("service_category", "leave")));
+
+		// Send the query and read each page of data; date range is split into shards fetched in parallel
+		if (!pageFetcher.fetchPagesByDateRange("enrollments", (String shardStart, String shardEnd) -> new Pike13Query(
+				enrollFields, Pike13Filter.and(Pike13Filter.or(Pike13Filter.btw("service_date", shardStart, shardEnd),
+						futureFilter), Pike13Filter.eq("service_state", "active"))), startDate, endDate,
+				(ArrayList<Pike13Row> rows) -> {
+			for (Pike13Row event : rows) {
 				// Add event to list
-				eventList.add(new SalesForceAttendanceModel(eventArray.get(SF_PERSON_ID_IDX).toString(),
-						pike13Conn.stripQuotes(eventArray.get(SF_FULL_NAME_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_SERVICE_DATE_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_SERVICE_TIME_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_END_AT_IDX).toString()).substring(11, 16),
-						eventArray.getJsonNumber(SF_DURATION_IDX).doubleValue(),
-						pike13Conn.stripQuotes(eventArray.get(SF_EVENT_NAME_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_SERVICE_CATEGORY_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_SERVICE_NAME_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_STATE_IDX).toString()),
-						eventArray.get(SF_VISIT_ID_IDX).toString(),
-						eventArray.get(SF_EVENT_OCCURRENCE_ID_IDX).toString(),
-						pike13Conn.stripQuotes(eventArray.get(SF_LOCATION_NAME_IDX).toString()),
-						pike13Conn.stripQuotes(eventArray.get(SF_INSTRUCTOR_NAMES_IDX).toString())));
+				eventList.add(new SalesForceAttendanceModel(event.getText("person_id"),
+						event.getString("full_name"),
+						event.getString("service_date"),
+						event.getString("service_time"),
+						event.getString("end_at").substring(11, 16),
+						event.getDouble("duration_in_hours"),
+						event.getString("event_name"),
+						event.getString("service_category"),
+						event.getString("service_name"),
+						event.getString("state"),
+						event.getText("visit_id"),
+						event.getText("event_occurrence_id"),
+						event.getString("service_location_name"),
+						event.getString("instructor_names")));
 			}
-
-			// Check to see if there are more pages
-			hasMore = jsonObj.getBoolean("has_more");
-			if (hasMore)
-				lastKey = jsonObj.getString("last_key");
-
-			conn.disconnect();
-
-		} while (hasMore);
+		}))
+			return null;
 
 		return eventList;
 	}
@@ -467,123 +252,85 @@ public class Pike13SalesforceImport {
 	public ArrayList<StaffMemberModel> getSalesForceStaffMembers() {
 		ArrayList<StaffMemberModel> staffList = new ArrayList<StaffMemberModel>();
 
-		// Get URL connection and send the query
-		HttpURLConnection conn = pike13Conn.sendQueryToUrl("staff_members", getStaffMemberData, false);
-		if (conn == null)
-			return null;
-
-		// Get input stream and read data
-		JsonObject jsonObj = pike13Conn.readInputStream(conn);
-		if (jsonObj == null) {
-			conn.disconnect();
+		// Send query and decode rows
+		if (!pageFetcher.fetchPage("staff_members", staffMemberQuery, (ArrayList<Pike13Row> rows) -> {
+			for (Pike13Row staff : rows) {
+				// Get fields for this row
+				staffList.add(new StaffMemberModel(staff.getText("person_id"), staff.getString(STAFF_SF_CLIENT_ID_FIELD),
+						staff.getString("first_name"), staff.getString("last_name"),
+						staff.getString(STAFF_CATEGORY_FIELD),
+						staff.getString("role"),
+						staff.getString(STAFF_OCCUPATION_FIELD),
+						staff.getString(STAFF_EMPLOYER_FIELD),
+						staff.getString(STAFF_START_INFO_FIELD),
+						staff.getString(STAFF_GENDER_FIELD),
+						staff.getString("birthdate"),
+						staff.getString("phone"),
+						"", // Home phone no longer imported
+						staff.getString("address"),
+						staff.getString("email"),
+						staff.getString(STAFF_ALTERNATE_EMAIL_FIELD),
+						staff.getString("home_location_name"),
+						staff.getString(STAFF_GITHUB_USER_FIELD),
+						staff.getInt("past_events"),
+						staff.getInt("future_events"),
+						staff.getBoolean(STAFF_KEY_HOLDER_FIELD),
+						staff.getString(STAFF_LIVE_SCAN_DATE_FIELD),
+						staff.getString(STAFF_T_SHIRT_FIELD),
+						staff.getString(STAFF_WHERE_DID_YOU_HEAR_FIELD),
+						staff.getString(STAFF_LEAVE_FIELD),
+						staff.getString(STAFF_EMERG_NAME_FIELD),
+						staff.getString(STAFF_EMERG_EMAIL_FIELD),
+						staff.getString(STAFF_EMERG_PHONE_FIELD),
+						staff.getBoolean(STAFF_CURR_BOARD_MEMBER_FIELD),
+						staff.getBoolean(STAFF_CURR_STAFF_MEMBER_FIELD),
+						staff.getBoolean("also_client"),
+						staff.getString(STAFF_TITLE_FIELD)));
+			}
+		}))
 			return null;
-		}
-		JsonArray jsonArray = jsonObj.getJsonArray("rows");
-
-		for (int i = 0; i < jsonArray.size(); i++) {
-			// Get fields for each staff member
-			JsonArray staffArray = (JsonArray) jsonArray.get(i);
-
-			// Get fields for this Json array entry
-			String sfClientID = null;
-			if (staffArray.get(TEACHER_SF_CLIENT_ID_IDX) != null)
-				sfClientID = pike13Conn.stripQuotes(staffArray.get(TEACHER_SF_CLIENT_ID_IDX).toString());
 
-			staffList.add(new StaffMemberModel(staffArray.get(TEACHER_CLIENT_ID_IDX).toString(), sfClientID,
-					staffArray.getString(TEACHER_FIRST_NAME_IDX), staffArray.getString(TEACHER_LAST_NAME_IDX),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_CATEGORY_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_ROLE_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_OCCUPATION_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_EMPLOYER_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_START_INFO_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_GENDER_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_BIRTHDATE_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_PHONE_IDX).toString()),
-					"", //pike13Conn.stripQuotes(staffArray.get(TEACHER_HOME_PHONE_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_ADDRESS_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_EMAIL_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_ALTERNATE_EMAIL_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_HOME_LOCATION_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_GITHUB_USER_IDX).toString()),
-					staffArray.getInt(TEACHER_PAST_EVENTS_IDX),
-					staffArray.getInt(TEACHER_FUTURE_EVENTS_IDX),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_KEY_HOLDER_IDX).toString()).equals("t") ? true : false,
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_LIVE_SCAN_DATE_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_T_SHIRT_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_WHERE_DID_YOU_HEAR_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_LEAVE_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_EMERG_NAME_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_EMERG_EMAIL_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_EMERG_PHONE_IDX).toString()),
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_CURR_BOARD_MEMBER_IDX).toString()).equalsIgnoreCase("t") ? true : false,
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_CURR_STAFF_MEMBER_IDX).toString()).equalsIgnoreCase("t") ? true : false,
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_IS_ALSO_CLIENT_IDX).toString()).equalsIgnoreCase("t") ? true : false,
-					pike13Conn.stripQuotes(staffArray.get(TEACHER_TITLE_IDX).toString())));
-		}
-
-		conn.disconnect();
 		return staffList;
 	}
 
 	public ArrayList<SalesForceStaffHoursModel> getSalesForceStaffHours(String startDate, String endDate) {
 		// Get staff hours for export to SalesForce database
 		ArrayList<SalesForceStaffHoursModel> eventList = new ArrayList<SalesForceStaffHoursModel>();
-		boolean hasMore = false;
-		String lastKey = "";
-
-		// Insert start date and end date into staff hours command string
-		String staffHours2 = getStaffHoursSalesForce2.replaceFirst("0000-00-00", startDate);
-		staffHours2 = staffHours2.replaceFirst("1111-11-11", endDate);
-
-		do {
-			// Get URL connection and send the query; add page info if necessary
-			HttpURLConnection conn;
-			if (hasMore)
-				conn = pike13Conn.sendQueryToUrl("event_occurrence_staff_members",
-						getStaffHoursSalesForce + ",\"starting_after\":\"" + lastKey + "\"" + staffHours2, false);
-			else
-				conn = pike13Conn.sendQueryToUrl("event_occurrence_staff_members", getStaffHoursSalesForce + staffHours2, false);
-
-			if (conn == null)
-				return null;
-
-			// Get input stream and read data
-			JsonObject jsonObj = pike13Conn.readInputStream(conn);
-			if (jsonObj == null) {
-				conn.disconnect();
-				return null;
-			}
-			JsonArray jsonArray = jsonObj.getJsonArray("rows");
-
-			for (int i = 0; i < jsonArray.size(); i++) {
-				// Get fields for each event
-				JsonArray eventArray = (JsonArray) jsonArray.get(i);
 
+		// Send the query and read each page of data; date range is split into shards fetched in parallel
+		if (!pageFetcher.fetchPagesByDateRange("event_occurrence_staff_members",
+				(String shardStart, String shardEnd) -> new Pike13Query(staffHoursFields,
+						Pike13Filter.and(Pike13Filter.btw("service_date", shardStart, shardEnd),
+								Pike13Filter.or(Pike13Filter.eq("attendance_completed", "t"),
+										Pike13Filter.eq("service_name", "Volunteer Time")),
+								Pike13Filter.wo("home_location_name", "Tax ID#"))),
+				startDate, endDate, (ArrayList<Pike13Row> rows) -> {
+			for (Pike13Row event : rows) {
 				// Add event to list
-				eventList.add(new SalesForceStaffHoursModel(eventArray.get(STAFF_CLIENT_ID_IDX).toString(),
-						eventArray.getString(STAFF_EVENT_FULL_NAME_IDX),
-						eventArray.getString(STAFF_EVENT_SERVICE_NAME_IDX),
-						eventArray.getString(STAFF_EVENT_SERVICE_DATE_IDX),
-						eventArray.getString(STAFF_EVENT_SERVICE_TIME_IDX),
-						eventArray.getJsonNumber(STAFF_EVENT_DURATION_IDX).doubleValue(),
-						eventArray.getString(STAFF_EVENT_LOCATION_IDX),
-						eventArray.getJsonNumber(STAFF_EVENT_COMPLETED_COUNT_IDX).doubleValue(),
-						eventArray.getJsonNumber(STAFF_EVENT_NO_SHOW_COUNT_IDX).doubleValue(),
-						eventArray.getJsonNumber(STAFF_EVENT_CANCELED_COUNT_IDX).doubleValue(),
-						pike13Conn.stripQuotes(eventArray.get(STAFF_EVENT_NAME_IDX).toString()),
-						eventArray.get(STAFF_EVENT_SCHEDULE_ID_IDX).toString(),
-						pike13Conn.stripQuotes(eventArray.get(STAFF_EVENT_SERVICE_CATEGORY_IDX).toString())));
+				eventList.add(new SalesForceStaffHoursModel(event.getText("person_id"),
+						event.getString("full_name"),
+						event.getString("service_name"),
+						event.getString("service_date"),
+						event.getString("service_time"),
+						event.getDouble("duration_in_hours"),
+						event.getString("service_location_name"),
+						event.getDouble("completed_enrollment_count"),
+						event.getDouble("noshowed_enrollment_count"),
+						event.getDouble("late_canceled_enrollment_count"),
+						event.getString("event_name"),
+						event.getText("event_occurrence_id"),
+						event.getString("service_category")));
 			}
-
-			// Check to see if there are more pages
-			hasMore = jsonObj.getBoolean("has_more");
-			if (hasMore)
-				lastKey = jsonObj.getString("last_key");
-
-			conn.disconnect();
-
-		} while (hasMore);
+		}))
+			return null;
 
 		return eventList;
 	}
+
+	private String getOptionalString(Pike13Row row, String name) {
+		// Empty string for fields not requested by this query
+		if (!row.hasField(name))
+			return "";
+		return row.getString(name);
+	}
 }
@@ -0,0 +1,124 @@
+package controller;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.sforce.soap.enterprise.EnterpriseConnection;
+import com.sforce.soap.enterprise.UpsertResult;
+import com.sforce.soap.enterprise.sobject.SObject;
+import com.sforce.ws.ConnectionException;
+import com.sforce.ws.ConnectorConfig;
+
+/**
+ * Keeps several upsert batches in flight over a bounded pool of SalesForce
+ * connections. Results are handed back on the calling thread, in submit order,
+ * so that error logging and state flags are never touched concurrently.
+ */
+public class SalesForceBatchExecutor {
+	private static final int MAX_CONNECTIONS = 4;
+	private static final int MAX_BATCHES_IN_FLIGHT = 8;
+
+	private ExecutorService executor;
+	private LinkedBlockingQueue<EnterpriseConnection> connectionPool = new LinkedBlockingQueue<EnterpriseConnection>();
+	private LinkedList<PendingBatch> pendingBatches = new LinkedList<PendingBatch>();
+
+	public interface UpsertResultHandler {
+		// Either results or exception will be null
+		public void handleResults(UpsertResult[] upsertResults, ConnectionException e);
+	}
+
+	public SalesForceBatchExecutor(EnterpriseConnection connection) {
+		connectionPool.add(connection);
+
+		// Additional connections share the session of the logged-in connection
+		ConnectorConfig config = connection.getConfig();
+		if (config != null && config.getSessionId() != null) {
+			for (int i = 1; i < MAX_CONNECTIONS; i++) {
+				try {
+					ConnectorConfig newConfig = new ConnectorConfig();
+					newConfig.setSessionId(config.getSessionId());
+					newConfig.setServiceEndpoint(config.getServiceEndpoint());
+					newConfig.setTraceMessage(false);
+					connectionPool.add(new EnterpriseConnection(newConfig));
+
+				} catch (ConnectionException e) {
+					// Continue with the connections created so far
+					System.out.println("SalesForce connection pool: " + e.getMessage());
+					break;
+				}
+			}
+		}
+
+		final int numConnections = connectionPool.size();
+		executor = Executors.newFixedThreadPool(numConnections, (Runnable r) -> {
+			Thread t = new Thread(r, "sf-upsert");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public void upsert(final String externalIdField, final SObject[] records, UpsertResultHandler handler) {
+		// Wait for oldest batch when too many are outstanding
+		while (pendingBatches.size() >= MAX_BATCHES_IN_FLIGHT)
+			completeOldestBatch();
+
+		Future<UpsertResult[]> future = executor.submit(() -> {
+			EnterpriseConnection conn = connectionPool.take();
+			try {
+				return conn.upsert(externalIdField, records);
+
+			} finally {
+				connectionPool.add(conn);
+			}
+		});
+		pendingBatches.add(new PendingBatch(future, handler));
+	}
+
+	public void flush() {
+		// Wait for all outstanding batches and process their results
+		while (pendingBatches.size() > 0)
+			completeOldestBatch();
+	}
+
+	public void shutdown() {
+		flush();
+		executor.shutdown();
+	}
+
+	private void completeOldestBatch() {
+		PendingBatch batch = pendingBatches.removeFirst();
+		UpsertResult[] upsertResults = null;
+		ConnectionException exception = null;
+
+		try {
+			upsertResults = batch.future.get();
+
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ConnectionException)
+				exception = (ConnectionException) e.getCause();
+			else
+				exception = new ConnectionException(e.getCause() == null ? null : e.getCause().toString(),
+						e.getCause());
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exception = new ConnectionException("Upsert interrupted", e);
+		}
+
+		batch.handler.handleResults(upsertResults, exception);
+	}
+
+	private class PendingBatch {
+		Future<UpsertResult[]> future;
+		UpsertResultHandler handler;
+
+		PendingBatch(Future<UpsertResult[]> future, UpsertResultHandler handler) {
+			this.future = future;
+			this.handler = handler;
+		}
+	}
+}
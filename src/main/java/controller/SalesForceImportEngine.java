@@ -1,6 +1,7 @@
 package controller;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import com.sforce.soap.enterprise.EnterpriseConnection;
 import com.sforce.soap.enterprise.sobject.Account;
@@ -9,6 +10,7 @@ import com.sforce.soap.enterprise.sobject.Contact_Diary__c;
 
 import model.AttendanceEventModel;
 import model.GraduationModel;
+import model.MySqlConnectionPool;
 import model.MySqlDatabase;
 import model.MySqlDbImports;
 import model.SalesForceAttendanceModel;
@@ -23,13 +25,13 @@ public class SalesForceImportEngine {
 	private Pike13SalesforceImport pike13Api;
 	private EnterpriseConnection salesForceApi;
 
-	public SalesForceImportEngine(MySqlDatabase sqlDb, Pike13SalesforceImport pike13Api,
-			EnterpriseConnection salesForceApi) {
+	public SalesForceImportEngine(MySqlDatabase sqlDb, MySqlConnectionPool connectionPool,
+			Pike13SalesforceImport pike13Api, EnterpriseConnection salesForceApi) {
 		this.sqlDb = sqlDb;
 		this.pike13Api = pike13Api;
 		this.salesForceApi = salesForceApi;
 
-		dbImports = new MySqlDbImports(sqlDb);
+		dbImports = new MySqlDbImports(sqlDb, connectionPool);
 	}
 
 	public void updateSalesForce(String today, String startDate, String endDate) {
@@ -45,6 +47,8 @@ public class SalesForceImportEngine {
 
 		ArrayList<StudentImportModel> pike13StudentContactList = null;
 		ArrayList<StudentImportModel> pike13AdultContactList = null;
+		HashMap<String, Contact> sfContactMap = null;
+		HashMap<String, Contact> sfAllContactMap = null;
 
 		// === UPDATE CLIENTS: Students & Parents ===
 		if (sfAllContactList != null && sfAccountList != null) {
@@ -55,8 +59,9 @@ public class SalesForceImportEngine {
 			// Make sure Pike13 didn't have error getting data
 			if (pike13StudentContactList != null && pike13AdultContactList != null) {
 				// Insert account ID for all students & adults
-				ListUtilities.fillInAccountID(pike13StudentContactList, sfAllContactList);
-				ListUtilities.fillInAccountID(pike13AdultContactList, sfAllContactList);
+				sfAllContactMap = ListUtilities.createContactMap(sfAllContactList);
+				ListUtilities.fillInAccountID(pike13StudentContactList, sfAllContactMap);
+				ListUtilities.fillInAccountID(pike13AdultContactList, sfAllContactMap);
 
 				// Update student & adult contact records
 				updateRecords.updateStudents(pike13StudentContactList, pike13AdultContactList, sfAccountList);
@@ -78,11 +83,18 @@ public class SalesForceImportEngine {
 			sfAllContactList = getRecords.getAllSalesForceContacts(); // + all adults
 		}
 
+		// Index contacts by client ID for the remainder of the update
+		if (sfContactList != null)
+			sfContactMap = ListUtilities.createContactMap(sfContactList);
+		if (sfAllContactList != null)
+			sfAllContactMap = ListUtilities.createContactMap(sfAllContactList);
+
 		if (pike13Attendance != null && dbAttendanceList != null && sfContactList != null && sfAllContactList != null
 				&& pike13StudentContactList != null && pike13StaffMembers != null) {
 			// (3) Update attendance records
-			updateRecords.updateAttendance(pike13Attendance, dbAttendanceList, sfContactList, sfAllContactList,
-					pike13StudentContactList, pike13StaffMembers);
+			updateRecords.updateAttendance(pike13Attendance, ListUtilities.createAttendanceEventMap(dbAttendanceList),
+					sfContactMap, sfAllContactMap, ListUtilities.createPike13ClientMap(pike13StudentContactList),
+					pike13StaffMembers);
 
 			// (4) Delete canceled attendance records
 			updateRecords.removeExtraAttendanceRecords(pike13Attendance, startDate, endDate, pike13StudentContactList);
@@ -94,7 +106,7 @@ public class SalesForceImportEngine {
 
 		if (gradList != null && gradList.size() > 0) {
 			// Update records, then remove any processed records
-			updateRecords.updateGraduates(gradList, sfContactList, sfDiaryList);
+			updateRecords.updateGraduates(gradList, sfContactMap, sfDiaryList);
 			dbImports.removeProcessedGraduations();
 		}
 
@@ -104,11 +116,15 @@ public class SalesForceImportEngine {
 		if (pike13StaffMembers != null && pike13StaffHours != null && sfAllContactList != null && sfAccountList != null
 				&& sfContactList != null) {
 			// Insert account ID into staff records
-			ListUtilities.fillInAccountIDForStaff(pike13StaffMembers, sfAllContactList);
+			ListUtilities.fillInAccountIDForStaff(pike13StaffMembers, sfAllContactMap);
 
 			// Update staff member data and hours
-			updateRecords.updateStaffMembers(pike13StaffMembers, sfAllContactList, sfAccountList);
-			updateRecords.updateStaffHours(pike13StaffMembers, pike13StaffHours, sfContactList);
+			updateRecords.updateStaffMembers(pike13StaffMembers, sfAllContactMap, sfAccountList);
+			updateRecords.updateStaffHours(ListUtilities.createStaffIDMap(pike13StaffMembers), pike13StaffHours,
+					sfContactMap);
 		}
+
+		// Complete outstanding upserts and close extra SalesForce connections
+		updateRecords.shutdown();
 	}
 }
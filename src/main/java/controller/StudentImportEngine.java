@@ -2,6 +2,8 @@ package controller;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -13,7 +15,9 @@ import model.MySqlDbLogging;
 import model.PendingGithubModel;
 import model.ScheduleModel;
 import model.StudentImportModel;
+import model.StudentIndex;
 import model.StudentModel;
+import model.SyncWatermarkModel;
 
 public class StudentImportEngine {
 	static final int SCHEDULE_DAYS_IN_PAST = 14;
@@ -22,40 +26,95 @@ public class StudentImportEngine {
 	
 	private static final int MAX_CLASS_LEVEL = 8;  // Max level to process (Java classes go from 0-8, L9 is "electives")
 
+	// Clients changed since the last sync are imported each run, with a full reconciliation every few days
+	private static final String CLIENT_SYNC_DATASET = "clients";
+	private static final int CLIENT_FULL_SYNC_INTERVAL_DAYS = 7;
+
 	MySqlDbImports sqlImportDb;
+	private boolean rebuildSortedAttendance = false;
 
 	public StudentImportEngine(MySqlDbImports sqlImportDb) {
 		this.sqlImportDb = sqlImportDb;
 	}
 
+	public void setRebuildSortedAttendance(boolean rebuildSortedAttendance) {
+		// Fallback: re-create the whole sorted attendance table instead of applying changes
+		this.rebuildSortedAttendance = rebuildSortedAttendance;
+	}
+
 	public void removeOldLogData(int numDays) {
 		MySqlDbLogging.removeOldLogData(numDays);
 	}
 
 	public void importStudentsFromPike13(Pike13DbImport pike13Api) {
-		// Get data from Pike13, then update student TA data from Staff DB
-		ArrayList<StudentImportModel> studentList = pike13Api.getClients();
+		// Watermark is the time this sync started, so changes made during the sync are fetched again next time
+		String syncTime = new DateTime(DateTimeZone.UTC).toString("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		SyncWatermarkModel watermark = sqlImportDb.getSyncWatermark(CLIENT_SYNC_DATASET);
+
+		// Full reconciliation when there is no watermark or the last full sync is too old
+		boolean fullSync = watermark == null || watermark.getLastSync() == null || watermark.getLastFullSync() == null
+				|| new DateTime(watermark.getLastFullSync()).plusDays(CLIENT_FULL_SYNC_INTERVAL_DAYS).isBeforeNow();
+
+		// Get data from Pike13: all clients, or only those changed since the watermark
+		ArrayList<StudentImportModel> studentList = null;
+		ArrayList<Integer> removedClients = new ArrayList<Integer>();
+		if (!fullSync) {
+			ArrayList<Integer> changedClients = pike13Api.getClientsUpdatedSince(watermark.getLastSync());
+			ArrayList<Integer> visitClients = pike13Api.getClientsWithVisitChanges(removedClients);
+			if (changedClients != null && visitClients != null) {
+				// New enrollments and first visits are found through the client report, not the person record
+				LinkedHashSet<Integer> clientIDs = new LinkedHashSet<Integer>(changedClients);
+				clientIDs.addAll(visitClients);
+				studentList = pike13Api.getClients(new ArrayList<Integer>(clientIDs));
+			}
+		}
+		if (studentList == null) {
+			fullSync = true;
+			studentList = pike13Api.getClients();
+		}
+		if (studentList == null)
+			return;
+
+		// Update student TA data from Staff DB
 		pike13Api.updateStudentTAData(studentList);
-		sqlImportDb.updateMissingCurrentClass();
-		sqlImportDb.updateRegisteredClass();
+		int numCurrent = sqlImportDb.updateMissingCurrentClass();
+		int numRegistered = sqlImportDb.updateRegisteredClass();
+		System.out.println(numCurrent + " missing current classes filled in, " + numRegistered
+				+ " registered classes updated");
 		Collections.sort(studentList);
 
+		// A full sync finds removed students itself; a partial sync clears those that left the client filter
+		boolean success = true;
+		if (!fullSync && removedClients.size() > 0) {
+			success = sqlImportDb.clearIsInMasterDb(removedClients);
+			System.out.println(removedClients.size() + " students no longer in Pike13 client list");
+		}
+
 		// Update changes in database
 		if (studentList.size() > 0) {
-			sqlImportDb.importStudents(studentList);
-			System.out.println(studentList.size() + " students imported from Pike13");
-		}
+			if (!sqlImportDb.importStudents(studentList, fullSync))
+				success = false;
+			System.out.println(studentList.size() + " students imported from Pike13"
+					+ (fullSync ? "" : " (changed since " + watermark.getLastSync() + ")"));
+
+		} else if (fullSync)
+			return;
+
+		// Watermark only moves forward once every change was written, so failed clients are fetched again
+		if (success)
+			sqlImportDb.updateSyncWatermark(CLIENT_SYNC_DATASET, syncTime, fullSync);
+		else
+			System.out.println("Student import incomplete, sync watermark not updated");
 	}
 
-	public void importAttendanceFromPike13(String startDate, Pike13DbImport pike13Api, ArrayList<StudentModel> studentList) {
+	public void importAttendanceFromPike13(String startDate, Pike13DbImport pike13Api, StudentIndex students) {
 		// Get attendance data from Pike13 for all students
 		ArrayList<AttendanceEventModel> eventList = pike13Api.getAttendance(startDate);
 
 		// Update changes in database
 		if (eventList.size() > 0) {
-			// Import attendance and then re-sort attendance list
-			sqlImportDb.importAttendance(startDate, eventList, studentList, true);
-			sqlImportDb.createSortedAttendanceList();
+			// Import attendance; sorted attendance list is updated at end of import
+			sqlImportDb.importAttendance(startDate, eventList, students, true);
 			System.out.println(eventList.size() + " attendance records imported from Pike13");
 		}
 
@@ -64,32 +123,30 @@ public class StudentImportEngine {
 		if (newStudents.size() > 0) {
 			eventList = pike13Api.getMissingAttendance(startDate, newStudents);
 			if (eventList.size() > 0) {
-				sqlImportDb.importAttendance(startDate, eventList, studentList, false);
+				sqlImportDb.importAttendance(startDate, eventList, students, false);
 				System.out.println(eventList.size() + " new student attendance records imported from Pike13");
 			}
 		}
 
 		// Delete 'registered' attendance that has expired
-		eventList = sqlImportDb.getExpiredEvents(startDate);
-		if (eventList.size() > 0) {
-			sqlImportDb.deleteExpiredAttendance(eventList);
-			System.out.println(eventList.size() + " expired attendance records removed");
-		}
+		int numExpired = sqlImportDb.deleteExpiredAttendance(startDate);
+		if (numExpired > 0)
+			System.out.println(numExpired + " expired attendance records removed");
 	}
 
-	public void importCourseAttendanceFromPike13(String startDate, String endDate, Pike13DbImport pike13Api, ArrayList<StudentModel> studentList) {
+	public void importCourseAttendanceFromPike13(String startDate, String endDate, Pike13DbImport pike13Api, StudentIndex students) {
 		// Get course attendance data from Pike13 for all students
 		ArrayList<AttendanceEventModel> eventList = pike13Api.getCourseAttendance(startDate, endDate);
 
 		// Update changes in database
 		if (eventList.size() > 0) {
-			sqlImportDb.importAttendance(startDate, eventList, studentList, false);
+			sqlImportDb.importAttendance(startDate, eventList, students, false);
 			System.out.println(eventList.size() + " course attendance records imported from Pike13, " + startDate
 					+ " to " + endDate);
 		}
 	}
 
-	public void importScheduleFromPike13(Pike13DbImport pike13Api, ArrayList<StudentModel> studentList) {
+	public void importScheduleFromPike13(Pike13DbImport pike13Api, StudentIndex students) {
 		String startDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"))
 				.minusDays(SCHEDULE_DAYS_IN_PAST).toString("yyyy-MM-dd");
 
@@ -110,7 +167,7 @@ public class StudentImportEngine {
 		}
 
 		// Update student age fields and count
-		updateScheduleData(filteredList, pike13Api, studentList);
+		updateScheduleData(filteredList, pike13Api, students.getStudentList());
 
 		// Update changes in database
 		if (filteredList.size() > 0) {
@@ -120,81 +177,67 @@ public class StudentImportEngine {
 	}
 
 	private void updateScheduleData(ArrayList<ScheduleModel> schedule, Pike13DbImport pike13Api, ArrayList<StudentModel> students) {
+		// Tally students by class name in a single pass; a student is counted in
+		// both current and registered class when they differ.
+		HashMap<String, ClassStats> classStatsMap = new HashMap<String, ClassStats>();
+		for (StudentModel stud : students) {
+			// Only process students who are in levels 0 through 8
+			if (!stud.getCurrentLevel().equals("") && stud.getCurrentLevel().charAt(0) > '8')
+				continue;
+
+			String currClass = stud.getCurrentClass().trim();
+			String regClass = stud.getRegisterClass().trim();
+			addStudentToClassStats(classStatsMap, currClass, stud);
+			if (!regClass.equals(currClass))
+				addStudentToClassStats(classStatsMap, regClass, stud);
+		}
+
+		// Get rooms for all scheduled classes with students using as few requests as possible
+		ArrayList<Integer> scheduleIds = new ArrayList<Integer>();
+		for (ScheduleModel sched : schedule) {
+			if (classStatsMap.containsKey(sched.getClassName().trim()))
+				scheduleIds.add(sched.getScheduleID());
+		}
+		pike13Api.loadRoomFields(scheduleIds);
+
 		// Update the age fields and the attendance count for each class in schedule
 		for (ScheduleModel sched : schedule) {
 			String className = sched.getClassName().trim();
-			int attCount = 0, ageCount = 0;
-			Double ageMin = 0.0, ageMax = 0.0, ageAvg = 0.0, ageTot = 0.0;
-			int[][] moduleCnt = new int[MAX_CLASS_LEVEL + 1][10]; // Curr count by levels 0-8, for modules 0-9
-			int[] levelCnt = new int[MAX_CLASS_LEVEL + 1];        // Student count by level for this class
-
-			for (StudentModel stud : students) {
-				// Only process students who are in levels 0 through 8
-				if (!stud.getCurrentLevel().equals("") && stud.getCurrentLevel().charAt(0) > '8')
-					continue;
-
-				// Update for each student in this class
-				if (className.equals(stud.getCurrentClass().trim()) || className.equals(stud.getRegisterClass().trim())) {
-					attCount++; // Update attendance for this class
-
-					// Increment count for current level
-					int level = 0;
-					if (!stud.getCurrentLevel().equals(""))
-						level = Integer.parseInt(stud.getCurrentLevel());
-					levelCnt[level]++;
-
-					// Update min, max age
-					if (stud.getAge() > 0) {
-						ageCount++;
-						ageTot += stud.getAge();
-						if (ageMin == 0 || stud.getAge() < ageMin)
-							ageMin = stud.getAge();
-						if (stud.getAge() > ageMax)
-							ageMax = stud.getAge();
-					}
-
-					// Update count per level & module
-					if (stud.getCurrentModule() != null && !stud.getCurrentModule().equals("")
-							&& stud.getCurrentModule().charAt(0) >= '0' && stud.getCurrentModule().charAt(0) <= '9')
-						moduleCnt[level][stud.getCurrentModule().charAt(0) - '0']++;
-				}
-			}
+			ClassStats stats = classStatsMap.get(className);
 
 			// If any students in this scheduled class, update the class level field
-			if (attCount > 0) {
-				String levelString = "";
-				for (int i = 0; i < levelCnt.length; i++) { // Loop thru each level
-					if (levelCnt[i] > 0) {
-						String moduleString = "";
+			if (stats != null) {
+				StringBuilder levelString = new StringBuilder();
+				for (int i = 0; i < stats.levelCnt.length; i++) { // Loop thru each level
+					if (stats.levelCnt[i] > 0) {
+						if (levelString.length() > 0)
+							levelString.append(", ");
+						levelString.append(stats.levelCnt[i]).append("@L").append(i);
+
+						boolean firstModule = true;
 						for (int j = 0; j < 10; j++) { // Loop thru each model for this level
-							if (moduleCnt[i][j] > 0) {
-								if (moduleString.equals(""))
-									moduleString = " (Mod ";
-								else
-									moduleString += ", ";
-								moduleString += j;
+							if (stats.moduleCnt[i][j] > 0) {
+								levelString.append(firstModule ? " (Mod " : ", ").append(j);
+								firstModule = false;
 							}
 						}
-						if (!moduleString.equals(""))
-							moduleString += ")";
-						if (!levelString.equals(""))
-							levelString += ", ";
-						levelString += levelCnt[i] + "@L" + i + moduleString;
+						if (!firstModule)
+							levelString.append(")");
 					}
 				}
 				
 				// Update room field
 				String room = getRoomFromScheduleID(sched.getScheduleID(), pike13Api);
-				boolean roomMismatch = checkRoomMismatch(className, room, levelString);
+				boolean roomMismatch = checkRoomMismatch(className, room, levelString.toString());
 
 				// Update schedule with attendance and level info
-				if (ageCount > 0) {
-					ageAvg = ageTot / ageCount;
-					sched.setMiscSchedFields(attCount, ageMin.toString().substring(0, 4),
-							ageMax.toString().substring(0, 4), ageAvg.toString().substring(0, 4), levelString, 
+				if (stats.ageCount > 0) {
+					Double ageMin = stats.ageMin, ageMax = stats.ageMax, ageAvg = stats.ageTot / stats.ageCount;
+					sched.setMiscSchedFields(stats.attCount, ageMin.toString().substring(0, 4),
+							ageMax.toString().substring(0, 4), ageAvg.toString().substring(0, 4), levelString.toString(), 
 							room, roomMismatch);
 				} else
-					sched.setMiscSchedFields(attCount, "", "", "", levelString, room, roomMismatch);
+					sched.setMiscSchedFields(stats.attCount, "", "", "", levelString.toString(), room, roomMismatch);
 				
 			} else {
 				sched.setMiscSchedFields(0, "", "", "", "", "", false);
@@ -202,6 +245,37 @@ public class StudentImportEngine {
 		}
 	}
 
+	private void addStudentToClassStats(HashMap<String, ClassStats> classStatsMap, String className, StudentModel stud) {
+		ClassStats stats = classStatsMap.get(className);
+		if (stats == null) {
+			stats = new ClassStats();
+			classStatsMap.put(className, stats);
+		}
+		stats.attCount++; // Update attendance for this class
+
+		// Increment count for current level
+		int level = 0;
+		if (!stud.getCurrentLevel().equals(""))
+			level = Integer.parseInt(stud.getCurrentLevel());
+		stats.levelCnt[level]++;
+
+		// Update min, max age
+		double age = stud.getAge();
+		if (age > 0) {
+			stats.ageCount++;
+			stats.ageTot += age;
+			if (stats.ageMin == 0 || age < stats.ageMin)
+				stats.ageMin = age;
+			if (age > stats.ageMax)
+				stats.ageMax = age;
+		}
+
+		// Update count per level & module
+		if (stud.getCurrentModule() != null && !stud.getCurrentModule().equals("")
+				&& stud.getCurrentModule().charAt(0) >= '0' && stud.getCurrentModule().charAt(0) <= '9')
+			stats.moduleCnt[level][stud.getCurrentModule().charAt(0) - '0']++;
+	}
+
 	private String getRoomFromScheduleID (int scheduleID, Pike13DbImport pike13Api) {
 		String roomName = pike13Api.getRoomField(scheduleID);
 		
@@ -243,7 +317,7 @@ public class StudentImportEngine {
 		}
 	}
 
-	public void importGithubComments(String startDate, Pike13DbImport pike13Api, GithubApi githubApi, ArrayList<StudentModel> studentList) {
+	public void importGithubComments(String startDate, Pike13DbImport pike13Api, GithubApi githubApi, StudentIndex students) {
 		// Update github comments from "pending github" table.
 		// This table is populated each time a student commits to a league github classroom.
 		ArrayList<PendingGithubModel> githubList = sqlImportDb.getPendingGithubEvents();
@@ -253,7 +327,7 @@ public class StudentImportEngine {
 
 		int origGithubListSize = githubList.size();
 		if (attendList.size() > 0)
-			sqlImportDb.updatePendingGithubComments(githubList, startDate, attendList, incompAttendList, studentList);
+			sqlImportDb.updatePendingGithubComments(githubList, startDate, attendList, incompAttendList, students);
 
 		// Get list of events with missing comments
 		attendList = sqlImportDb.getEventsWithNoComments(startDate, 0, false);
@@ -268,4 +342,19 @@ public class StudentImportEngine {
 			System.out.println((attendList.size() + (origGithubListSize - githubList.size())) + " github records processed");
 		}
 	}
+
+	public void updateSortedAttendance() {
+		// Apply this run's attendance changes to the sorted attendance list
+		if (rebuildSortedAttendance)
+			sqlImportDb.createSortedAttendanceList();
+		else
+			sqlImportDb.updateSortedAttendanceList();
+	}
+
+	private static class ClassStats {
+		int attCount = 0, ageCount = 0;
+		double ageMin = 0.0, ageMax = 0.0, ageTot = 0.0;
+		int[][] moduleCnt = new int[MAX_CLASS_LEVEL + 1][10]; // Curr count by levels 0-8, for modules 0-9
+		int[] levelCnt = new int[MAX_CLASS_LEVEL + 1];        // Student count by level for this class
+	}
 }
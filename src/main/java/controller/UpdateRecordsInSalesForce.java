@@ -2,6 +2,8 @@ package controller;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -25,10 +27,10 @@ import com.sforce.ws.ConnectionException;
 import model.AttendanceEventModel;
 import model.GraduationModel;
 import model.LocationLookup;
+import model.LogBatchWriter;
 import model.LogDataModel;
 import model.MySqlDatabase;
 import model.MySqlDbImports;
-import model.MySqlDbLogging;
 import model.SalesForceAttendanceModel;
 import model.SalesForceStaffHoursModel;
 import model.StaffMemberModel;
@@ -51,6 +53,7 @@ public class UpdateRecordsInSalesForce {
 	private MySqlDbImports dbImports;
 	private EnterpriseConnection connection;
 	private GetRecordsFromSalesForce getRecords;
+	private SalesForceBatchExecutor upsertExecutor;
 
 	private boolean attendanceUpsertError = false;
 	
@@ -62,6 +65,13 @@ public class UpdateRecordsInSalesForce {
 		this.dbImports = dbImports;
 		this.connection = connection;
 		this.getRecords = getRecords;
+
+		upsertExecutor = new SalesForceBatchExecutor(connection);
+	}
+
+	public void shutdown() {
+		// Complete any outstanding upserts and release connection pool
+		upsertExecutor.shutdown();
 	}
 
 	public void updateStudents(ArrayList<StudentImportModel> pike13Students,
@@ -91,7 +101,7 @@ public class UpdateRecordsInSalesForce {
 				// Check for account manager names
 				if (student.getAccountMgrNames() == null || student.getAccountMgrNames().equals("")) {
 					// Student has no Pike13 account manager, so error
-					MySqlDbLogging.insertLogData(LogDataModel.MISSING_PIKE13_ACCT_MGR_FOR_CLIENT,
+					LogBatchWriter.insertLogData(LogDataModel.MISSING_PIKE13_ACCT_MGR_FOR_CLIENT,
 							new StudentNameModel(student.getFirstName(), student.getLastName(), true),
 							student.getClientID(), " " + student.getFullName());
 					continue;
@@ -103,7 +113,7 @@ public class UpdateRecordsInSalesForce {
 						pike13Managers);
 				if (acctMgrModel == null) {
 					// Pike13 account manager not found? This should not happen!
-					MySqlDbLogging.insertLogData(LogDataModel.MISSING_PIKE13_ACCT_MGR_FOR_CLIENT,
+					LogBatchWriter.insertLogData(LogDataModel.MISSING_PIKE13_ACCT_MGR_FOR_CLIENT,
 							new StudentNameModel(student.getFirstName(), student.getLastName(), true),
 							student.getClientID(), " " + student.getFullName() + ", manager " + accountMgrName);
 					continue;
@@ -139,11 +149,11 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (Exception e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, ": " + e.getMessage());
 		}
 	}
@@ -189,20 +199,22 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (Exception e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, ": " + e.getMessage());
 		}
 	}
 
 	public void updateAttendance(ArrayList<SalesForceAttendanceModel> pike13Attendance,
-			ArrayList<AttendanceEventModel> dbAttendance, ArrayList<Contact> contacts, ArrayList<Contact> allContacts,
-			ArrayList<StudentImportModel> pike13Students, ArrayList<StaffMemberModel> staffMembers) {
+			HashMap<String, AttendanceEventModel> dbAttendance, HashMap<String, Contact> contacts,
+			HashMap<String, Contact> allContacts, HashMap<Integer, StudentImportModel> pike13Students,
+			ArrayList<StaffMemberModel> staffMembers) {
 		ArrayList<Student_Attendance__c> recordList = new ArrayList<Student_Attendance__c>();
 		ArrayList<Contact> workShopGrads = new ArrayList<Contact>();
+		HashMap<String, Contact> workShopGradMap = new HashMap<String, Contact>();
 		ArrayList<Workshop_by_Teacher__c> wshopByTeacherList = new ArrayList<Workshop_by_Teacher__c>();
 		ArrayList<AttendanceEventModel> attendLevelChanges = new ArrayList<AttendanceEventModel>();
 		String startBillingDate = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).minusDays(7)
@@ -233,7 +245,7 @@ public class UpdateRecordsInSalesForce {
 				if (inputModel.getEventName() == null || inputModel.getEventName().equals("")) {
 					if (contactWithData.getContact_Type__c() != null
 							&& contactWithData.getContact_Type__c().equals("Student")) {
-						MySqlDbLogging.insertLogData(LogDataModel.BLANK_EVENT_NAME_FOR_ATTENDANCE,
+						LogBatchWriter.insertLogData(LogDataModel.BLANK_EVENT_NAME_FOR_ATTENDANCE,
 								new StudentNameModel(inputModel.getFullName(), "", false),
 								Integer.parseInt(inputModel.getClientID()),
 								" on " + inputModel.getServiceDate() + ", " + inputModel.getServiceName());
@@ -246,14 +258,14 @@ public class UpdateRecordsInSalesForce {
 				if (locCode == null) {
 					// Location code not valid, report error if '@' in event name
 					if (inputModel.getEventName() != null && inputModel.getEventName().contains("@"))
-						MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_LOC_CODE_INVALID,
+						LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_LOC_CODE_INVALID,
 								new StudentNameModel(inputModel.getFullName(), "", false),
 								Integer.parseInt(inputModel.getClientID()),
 								" for event " + inputModel.getEventName() + " (" + inputModel.getServiceDate() + ")");
 
 				} else if (!LocationLookup.findLocationCodeMatch(locCode, inputModel.getLocation())) {
 					// Location code is valid, but does not match event location
-					MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_LOC_CODE_MISMATCH,
+					LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_LOC_CODE_MISMATCH,
 							new StudentNameModel("", "", false), 0,
 							" for event " + inputModel.getEventName() + ", " + inputModel.getLocation());
 				}
@@ -327,7 +339,7 @@ public class UpdateRecordsInSalesForce {
 				a.setHours__c(inputModel.getDuration());
 
 				// Update contact's Intro to Java workshop grad dates
-				updateWorkshopGrad(workShopGrads, inputModel);
+				updateWorkshopGrad(workShopGrads, workShopGradMap, inputModel);
 
 				recordList.add(a);
 				
@@ -370,14 +382,17 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (Exception e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_ATTENDANCE_IMPORT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SF_ATTENDANCE_IMPORT_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_ATTENDANCE_IMPORT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SF_ATTENDANCE_IMPORT_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 		}
 
+		// Wait for all attendance batches so that any upsert error is flagged
+		upsertExecutor.flush();
+
 		// Update modified clients to SalesForce
 		if (workShopGrads.size() > 0) {
 			upsertContactRecordList(workShopGrads, "WorkS grad");
@@ -491,7 +506,7 @@ public class UpdateRecordsInSalesForce {
 		if (dbAttend == null) {
 			// Only report error if this was not because of a missing event name
 			if (inputModel.getEventName() != null && !inputModel.getEventName().equals("")) {
-				MySqlDbLogging.insertLogData(LogDataModel.MISSING_VISIT_ID_FOR_SF_IMPORT,
+				LogBatchWriter.insertLogData(LogDataModel.MISSING_VISIT_ID_FOR_SF_IMPORT,
 						new StudentNameModel(contactWithData.getFirstName(), contactWithData.getLastName(), false),
 						Integer.parseInt(inputModel.getClientID()), ": Visit ID " + inputModel.getVisitID() + " for "
 								+ inputModel.getEventName() + " on " + inputModel.getServiceDate());
@@ -511,7 +526,7 @@ public class UpdateRecordsInSalesForce {
 
 					// Check if DB attendance is also 0
 					if (!dbAttend.getClassLevel().equals("0"))
-						MySqlDbLogging.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH,
+						LogBatchWriter.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH,
 								new StudentNameModel(contactWithData.getFirstName(), contactWithData.getLastName(),
 										false),
 								Integer.parseInt(inputModel.getClientID()),
@@ -538,7 +553,7 @@ public class UpdateRecordsInSalesForce {
 					if (!newAttendRecord.getInternal_level__c().equals("") 
 							&& !newAttendRecord.getInternal_level__c().equals(dbAttend.getClassLevel()))
 						// Mismatched levels
-						MySqlDbLogging.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH,
+						LogBatchWriter.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH,
 								new StudentNameModel(
 										contactWithData.getFirstName(), contactWithData.getLastName(), false),
 								Integer.parseInt(inputModel.getClientID()),
@@ -553,7 +568,7 @@ public class UpdateRecordsInSalesForce {
 				if (repoLevel != null && !repoLevel.equals(newAttendRecord.getInternal_level__c())
 						 && !dbAttend.getEventName().startsWith("EL")) {
 					// Github repo level does not match internal level
-					MySqlDbLogging.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH,
+					LogBatchWriter.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH,
 							new StudentNameModel(contactWithData.getFirstName(), contactWithData.getLastName(), false),
 							dbAttend.getClientID(),
 							" (SF) for repo '" + newAttendRecord.getRepo_Name__c() + "' on "
@@ -624,15 +639,17 @@ public class UpdateRecordsInSalesForce {
 		boolean done = false;
 		QueryResult queryResult;
 		ArrayList<String> deleteList = new ArrayList<String>();
+		HashSet<String> pike13VisitIDs;
 
 		if (attendanceUpsertError) {
-			MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_CANCELED_ATTEND_CLEANUP,
+			LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_CANCELED_ATTEND_CLEANUP,
 					new StudentNameModel("", "", false), 0,
 					", 0 records deleted: aborted due to attendance upsert error(s)");
 			return;
 		}
 
 		try {
+			pike13VisitIDs = ListUtilities.createVisitIdSet(pike13Attendance);
 			queryResult = connection
 					.query("SELECT Id, Visit_Id__c, Service_Date__c, Front_Desk_ID__c, Event_Name__c, CreatedBy.Name, Status__c "
 							+ "FROM Student_Attendance__c WHERE CreatedBy.Name = 'League Bot' AND Visit_Id__c != NULL "
@@ -646,7 +663,7 @@ public class UpdateRecordsInSalesForce {
 					for (int i = 0; i < records.length; i++) {
 						// Check whether attendance record exists in Pike13
 						Student_Attendance__c a = (Student_Attendance__c) records[i];
-						if (!ListUtilities.findVisitIdInList(a.getVisit_Id__c(), pike13Attendance)) {
+						if (!ListUtilities.findVisitIdInList(a.getVisit_Id__c(), pike13VisitIDs)) {
 							// Record not found, so add to deletion list
 							deleteList.add(a.getId());
 						}
@@ -668,7 +685,7 @@ public class UpdateRecordsInSalesForce {
 		}
 	}
 
-	public void updateGraduates(ArrayList<GraduationModel> gradStudents, ArrayList<Contact> sfContacts,
+	public void updateGraduates(ArrayList<GraduationModel> gradStudents, HashMap<String, Contact> sfContacts,
 			ArrayList<Contact_Diary__c> sfDiary) {
 		ArrayList<Contact_Diary__c> recordList = new ArrayList<Contact_Diary__c>();
 		ArrayList<Contact> contactList = new ArrayList<Contact>();
@@ -773,7 +790,7 @@ public class UpdateRecordsInSalesForce {
 				}
 
 				recordList.add(diaryEntry);
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_GRADUATION,
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_GRADUATION,
 						new StudentNameModel(student.getStudentName(), "", false), student.getClientID(), " "
 								+ diaryEntry.getDescription__c() + " on " + student.getEndDate() + ", # Classes " + numClasses);
 			}
@@ -784,11 +801,11 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (Exception e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
 						"");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e.getMessage());
 		}
 	}
@@ -806,7 +823,7 @@ public class UpdateRecordsInSalesForce {
 		return false;
 	}
 
-	public void updateStaffMembers(ArrayList<StaffMemberModel> pike13StaffMembers, ArrayList<Contact> sfContacts,
+	public void updateStaffMembers(ArrayList<StaffMemberModel> pike13StaffMembers, HashMap<String, Contact> sfContacts,
 			ArrayList<Account> sfAccounts) {
 		ArrayList<Contact> recordList = new ArrayList<Contact>();
 
@@ -825,7 +842,7 @@ public class UpdateRecordsInSalesForce {
 
 					// TA's must have valid SFClientID that is different from ClientID
 					if (clientID.equals(staff.getSfClientID())) {
-						MySqlDbLogging.insertLogData(LogDataModel.MISSING_SF_CLIENT_ID_FOR_TA,
+						LogBatchWriter.insertLogData(LogDataModel.MISSING_SF_CLIENT_ID_FOR_TA,
 								new StudentNameModel(firstName, staff.getLastName(), false), Integer.parseInt(clientID),
 								" for " + staff.getFullName());
 						continue;
@@ -855,17 +872,17 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (Exception e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_CLIENT_IMPORT_ERROR, new StudentNameModel("", "", false),
 						0, ": " + e.getMessage());
 		}
 	}
 
-	public void updateStaffHours(ArrayList<StaffMemberModel> pike13StaffMembers,
-			ArrayList<SalesForceStaffHoursModel> pike13StaffHours, ArrayList<Contact> contacts) {
+	public void updateStaffHours(HashMap<String, StaffMemberModel> pike13StaffMembers,
+			ArrayList<SalesForceStaffHoursModel> pike13StaffHours, HashMap<String, Contact> contacts) {
 		ArrayList<Staff_Hours__c> recordList = new ArrayList<Staff_Hours__c>();
 		ArrayList<Staff_Hours__c> adminHoursList = new ArrayList<Staff_Hours__c>();
 
@@ -944,6 +961,7 @@ public class UpdateRecordsInSalesForce {
 			// Update remaining records in Salesforce.com
 			if (arrayIdx > 0)
 				upsertStaffHoursRecords(recordArray);
+			upsertExecutor.flush();
 
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -1031,19 +1049,19 @@ public class UpdateRecordsInSalesForce {
 	}
 
 	private void upsertClientRecords(Contact[] records) {
-		UpsertResult[] upsertResults = null;
-
-		try {
-			// Update the records in Salesforce.com
-			upsertResults = connection.upsert("Front_Desk_ID__c", records);
+		// Update the records in Salesforce.com; results are checked as each batch completes
+		upsertExecutor.upsert("Front_Desk_ID__c", records,
+				(upsertResults, e) -> checkClientResults(records, upsertResults, e));
+	}
 
-		} catch (ConnectionException e) {
+	private void checkClientResults(Contact[] records, UpsertResult[] upsertResults, ConnectionException e) {
+		if (e != null) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_CLIENTS_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_CLIENTS_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_CLIENTS_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_CLIENTS_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1058,7 +1076,7 @@ public class UpdateRecordsInSalesForce {
 
 				Error[] errors = upsertResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_CLIENTS_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_CLIENTS_ERROR,
 							new StudentNameModel(records[i].getFirstName(), records[i].getLastName(), false), clientID,
 							": " + errors[j].getMessage());
 				}
@@ -1067,19 +1085,19 @@ public class UpdateRecordsInSalesForce {
 	}
 
 	private void upsertAccountRecords(Account[] records) {
-		UpsertResult[] upsertResults = null;
-
-		try {
-			// Update the Account records in Salesforce.com
-			upsertResults = connection.upsert("Id", records);
+		// Update the Account records in Salesforce.com; results are checked as each batch completes
+		upsertExecutor.upsert("Id", records,
+				(upsertResults, e) -> checkAccountResults(records, upsertResults, e));
+	}
 
-		} catch (ConnectionException e) {
+	private void checkAccountResults(Account[] records, UpsertResult[] upsertResults, ConnectionException e) {
+		if (e != null) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1089,7 +1107,7 @@ public class UpdateRecordsInSalesForce {
 			if (!upsertResults[i].isSuccess()) {
 				Error[] errors = upsertResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
 							new StudentNameModel(records[i].getName(), "", false), 0,
 							": " + errors[j].getMessage());
 				}
@@ -1098,20 +1116,20 @@ public class UpdateRecordsInSalesForce {
 	}
 
 	private void upsertAttendanceRecords(Student_Attendance__c[] records) {
-		UpsertResult[] upsertResults = null;
-
-		try {
-			// Update the records in Salesforce.com
-			upsertResults = connection.upsert("Visit_Id__c", records);
+		// Update the records in Salesforce.com; results are checked as each batch completes
+		upsertExecutor.upsert("Visit_Id__c", records,
+				(upsertResults, e) -> checkAttendanceResults(records, upsertResults, e));
+	}
 
-		} catch (ConnectionException e) {
+	private void checkAttendanceResults(Student_Attendance__c[] records, UpsertResult[] upsertResults, ConnectionException e) {
+		if (e != null) {
 			attendanceUpsertError = true;
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ATTENDANCE_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ATTENDANCE_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ATTENDANCE_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ATTENDANCE_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1128,7 +1146,7 @@ public class UpdateRecordsInSalesForce {
 				attendanceUpsertError = true;
 				Error[] errors = upsertResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ATTENDANCE_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ATTENDANCE_ERROR,
 							new StudentNameModel("", "", false), clientID, ": " + errors[j].getMessage());
 				}
 			}
@@ -1144,11 +1162,11 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (ConnectionException e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_DELETE_ATTENDANCE_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_DELETE_ATTENDANCE_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_DELETE_ATTENDANCE_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_DELETE_ATTENDANCE_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1158,7 +1176,7 @@ public class UpdateRecordsInSalesForce {
 			if (!deleteResults[i].isSuccess()) {
 				Error[] errors = deleteResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_DELETE_ATTENDANCE_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_DELETE_ATTENDANCE_ERROR,
 							new StudentNameModel("", "", false), 0, ": " + errors[j].getMessage());
 				}
 			}
@@ -1166,19 +1184,19 @@ public class UpdateRecordsInSalesForce {
 	}
 
 	private void upsertStaffHoursRecords(Staff_Hours__c[] records) {
-		UpsertResult[] upsertResults = null;
-
-		try {
-			// Update the records in Salesforce.com
-			upsertResults = connection.upsert("schedule_client_ID__c", records);
+		// Update the records in Salesforce.com; results are checked as each batch completes
+		upsertExecutor.upsert("schedule_client_ID__c", records,
+				(upsertResults, e) -> checkStaffHoursResults(records, upsertResults, e));
+	}
 
-		} catch (ConnectionException e) {
+	private void checkStaffHoursResults(Staff_Hours__c[] records, UpsertResult[] upsertResults, ConnectionException e) {
+		if (e != null) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_STAFF_HOURS_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_STAFF_HOURS_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_STAFF_HOURS_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_STAFF_HOURS_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1188,7 +1206,7 @@ public class UpdateRecordsInSalesForce {
 			if (!upsertResults[i].isSuccess()) {
 				Error[] errors = upsertResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_STAFF_HOURS_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_STAFF_HOURS_ERROR,
 							new StudentNameModel("", "", false),
 							Integer.parseInt(records[i].getStaff_Name__r().getFront_Desk_Id__c()),
 							" (" + records[i].getSchedule_client_ID__c() + "): " + errors[j].getMessage());
@@ -1229,6 +1247,7 @@ public class UpdateRecordsInSalesForce {
 		// Update remaining records in Salesforce.com
 		if (arrayIdx > 0)
 			upsertClientRecords(recordArray);
+		upsertExecutor.flush();
 	}
 
 	private void upsertAccountRecordList(ArrayList<Account> recordList, String recordType) {
@@ -1263,6 +1282,7 @@ public class UpdateRecordsInSalesForce {
 		// Update remaining records in Salesforce.com
 		if (arrayIdx > 0)
 			upsertAccountRecords(recordArray);
+		upsertExecutor.flush();
 	}
 
 	private void upsertDiaryRecordList(ArrayList<Contact_Diary__c> recordList) {
@@ -1281,12 +1301,12 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (ConnectionException e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_DIARY_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_DIARY_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_DIARY_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_DIARY_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1310,14 +1330,15 @@ public class UpdateRecordsInSalesForce {
 			} else {
 				Error[] errors = upsertResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_DIARY_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_DIARY_ERROR,
 							new StudentNameModel("", "", false), clientID, ": " + errors[j].getMessage());
 				}
 			}
 		}
 	}
 
-	private void updateWorkshopGrad(ArrayList<Contact> workShopGrads, SalesForceAttendanceModel inputModel) {
+	private void updateWorkshopGrad(ArrayList<Contact> workShopGrads, HashMap<String, Contact> workShopGradMap,
+			SalesForceAttendanceModel inputModel) {
 		// Check for null lists
 		if (inputModel.getEventName() == null || inputModel.getStatus() == null || inputModel.getServiceDate() == null)
 			return;
@@ -1333,11 +1354,12 @@ public class UpdateRecordsInSalesForce {
 
 			// Add record; if already in grad list, remove and replace with later grad date
 			Contact dupContact = ListUtilities.findClientIDInList(-1, inputModel.getClientID(),
-					inputModel.getFullName(), "", workShopGrads);
+					inputModel.getFullName(), "", workShopGradMap);
 
 			if (dupContact == null) {
 				// Not already in list, so add
 				workShopGrads.add(gradContact);
+				workShopGradMap.put(inputModel.getClientID(), gradContact);
 
 			} else if (dupContact.getWorkshop_Grad_Date__c().compareTo(newGradCal) < 0) {
 				// This client is already in list and older date, so update wshop grad date
@@ -1378,22 +1400,23 @@ public class UpdateRecordsInSalesForce {
 		// Update remaining records in Salesforce.com
 		if (arrayIdx > 0)
 			upsertWorkshopByTeacherRecords(recordArray);
+		upsertExecutor.flush();
 	}
 	
 	private void upsertWorkshopByTeacherRecords(Workshop_by_Teacher__c[] records) {
-		UpsertResult[] upsertResults = null;
-
-		try {
-			// Update the records in Salesforce.com
-			upsertResults = connection.upsert("Unique_Id__c", records);
+		// Update the records in Salesforce.com; results are checked as each batch completes
+		upsertExecutor.upsert("Unique_Id__c", records,
+				(upsertResults, e) -> checkWorkshopByTeacherResults(records, upsertResults, e));
+	}
 
-		} catch (ConnectionException e) {
+	private void checkWorkshopByTeacherResults(Workshop_by_Teacher__c[] records, UpsertResult[] upsertResults, ConnectionException e) {
+		if (e != null) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SF_UPSERT_WSHOP_BY_TEACHER_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SF_UPSERT_WSHOP_BY_TEACHER_ERROR,
 						new StudentNameModel("", "", false), 0, "");
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_UPSERT_WSHOP_BY_TEACHER_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SF_UPSERT_WSHOP_BY_TEACHER_ERROR,
 						new StudentNameModel("", "", false), 0, ": " + e.getMessage());
 			return;
 		}
@@ -1408,7 +1431,7 @@ public class UpdateRecordsInSalesForce {
 
 				Error[] errors = upsertResults[i].getErrors();
 				for (int j = 0; j < errors.length; j++) {
-					MySqlDbLogging.insertLogData(LogDataModel.SF_UPSERT_WSHOP_BY_TEACHER_ERROR,
+					LogBatchWriter.insertLogData(LogDataModel.SF_UPSERT_WSHOP_BY_TEACHER_ERROR,
 							new StudentNameModel("", "", false), clientID,
 							": " + errors[j].getMessage());
 				}
@@ -1653,11 +1676,11 @@ public class UpdateRecordsInSalesForce {
 
 		} catch (ConnectionException e) {
 			if (e.getMessage() == null || e.getMessage().equals("null")) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
 						new StudentNameModel(firstName, lastName, false), clientID, " for " + account.getName());
 				e.printStackTrace();
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
 						new StudentNameModel(firstName, lastName, false), clientID,
 						" for " + account.getName() + ": " + e.getMessage());
 			return false;
@@ -1666,7 +1689,7 @@ public class UpdateRecordsInSalesForce {
 		// check the returned results for any errors
 		if (saveResults[0].isSuccess()) {
 			System.out.println("Created SalesForce account for " + firstName + " " + lastName + ": " + account.getName());
-//			MySqlDbLogging.insertLogData(LogDataModel.CREATE_SALES_FORCE_ACCOUNT,
+//			LogBatchWriter.insertLogData(LogDataModel.CREATE_SALES_FORCE_ACCOUNT,
 //					new StudentNameModel(firstName, lastName, false), clientID,
 //					" for " + firstName + " " + lastName + ": " + account.getName());
 			return true;
@@ -1674,7 +1697,7 @@ public class UpdateRecordsInSalesForce {
 		} else {
 			Error[] errors = saveResults[0].getErrors();
 			for (int j = 0; j < errors.length; j++) {
-				MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_UPSERT_ACCOUNT_ERROR,
 						new StudentNameModel(firstName, lastName, false), clientID,
 						" for " + account.getName() + ": " + errors[j].getMessage());
 			}
@@ -1727,7 +1750,7 @@ public class UpdateRecordsInSalesForce {
 		if (staff.getFirstName().startsWith("TA-") || staff.getFirstName().toLowerCase().startsWith("trainee-") 
 				|| staff.isAlsoClient()) {
 			// All TA's and existing clients must already have an account
-			MySqlDbLogging.insertLogData(LogDataModel.MISSING_ACCOUNT_FOR_TA_OR_PARENT,
+			LogBatchWriter.insertLogData(LogDataModel.MISSING_ACCOUNT_FOR_TA_OR_PARENT,
 					new StudentNameModel(staff.getFullName(), "", false), 0, " " + staff.getFullName());
 			return null;
 		}
@@ -1751,7 +1774,7 @@ public class UpdateRecordsInSalesForce {
 		// Now that account has been created, need to get account from SF again
 		account = getRecords.getSalesForceAccountByName(acctFamilyName);
 		if (account == null || account.getName().equals("")) {
-			MySqlDbLogging.insertLogData(LogDataModel.UPSERTED_ACCOUNT_RETRIEVAL_ERROR,
+			LogBatchWriter.insertLogData(LogDataModel.UPSERTED_ACCOUNT_RETRIEVAL_ERROR,
 					new StudentNameModel(staff.getFullName(), "", false), 0, " for " + acctFamilyName);
 			return null;
 		}
@@ -1955,11 +1978,11 @@ public class UpdateRecordsInSalesForce {
 		} catch (Exception e) {
 			if (e.getMessage() == null) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR, new StudentNameModel("", "", false),
 						clientID, " for Level " + level);
 
 			} else
-				MySqlDbLogging.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.SF_DIARY_IMPORT_ERROR,
 						new StudentNameModel("", "", false), clientID, " for Level " + level + ": " + e.getMessage());
 		}
 		return 0;
@@ -11,10 +11,13 @@ import com.sforce.ws.ConnectionException;
 import com.sforce.ws.ConnectorConfig;
 
 import controller.Pike13Connect;
+import controller.Pike13ResponseCache;
 import controller.Pike13SalesforceImport;
 import controller.SalesForceImportEngine;
 import model.LocationLookup;
+import model.LogBatchWriter;
 import model.LogDataModel;
+import model.MySqlConnectionPool;
 import model.MySqlDatabase;
 import model.MySqlDbLogging;
 import model.StudentNameModel;
@@ -24,7 +27,10 @@ public class SalesForceImport {
 	private static final int DATE_RANGE_PAST_IN_DAYS = 21;
 	private static final int DATE_RANGE_FUTURE_IN_DAYS = 45;
 
+	private static final int DEFAULT_DB_POOL_SIZE = 4;
+
 	MySqlDatabase sqlDb;
+	MySqlConnectionPool connectionPool;
 	String startDate, endDate;
 
 	public String myHandler(Object input, Context context) {
@@ -47,11 +53,19 @@ public class SalesForceImport {
 		}
 
 		new MySqlDbLogging(sqlDb);
-		//MySqlDbLogging.insertLogData(LogDataModel.STARTING_SALES_FORCE_IMPORT, new StudentNameModel("", "", false), 0,
+		connectionPool = new MySqlConnectionPool(System.getenv("PASSWORD"), MySqlDatabase.STUDENT_IMPORT_NO_SSH,
+				System.getenv("DB_POOL_SIZE") == null ? DEFAULT_DB_POOL_SIZE
+						: Integer.parseInt(System.getenv("DB_POOL_SIZE")));
+		LogBatchWriter.start(System.getenv("PASSWORD"), MySqlDatabase.STUDENT_IMPORT_NO_SSH);
+		//LogBatchWriter.insertLogData(LogDataModel.STARTING_SALES_FORCE_IMPORT, new StudentNameModel("", "", false), 0,
 		//		" from " + startDate + " to " + endDate + " ***");
 
-		// Connect to Pike13
+		// Connect to Pike13. PIKE13_CACHE_DIR keeps responses on disk so that repeated runs reuse them
+		// until they expire; PIKE13_CACHE_OFFLINE replays only cached responses.
 		Pike13Connect pike13Conn = new Pike13Connect(System.getenv("PIKE13_KEY"));
+		if (System.getenv("PIKE13_CACHE_DIR") != null)
+			pike13Conn.setResponseCache(new Pike13ResponseCache(System.getenv("PIKE13_CACHE_DIR"),
+					Boolean.parseBoolean(System.getenv("PIKE13_CACHE_OFFLINE"))));
 		Pike13SalesforceImport pike13Api = new Pike13SalesforceImport(pike13Conn);
 
 		// Connect to SalesForce
@@ -77,11 +91,13 @@ public class SalesForceImport {
 		}
 
 		// Perform the update to SalesForce
-		SalesForceImportEngine importer = new SalesForceImportEngine(sqlDb, pike13Api, salesForceApi);
+		SalesForceImportEngine importer = new SalesForceImportEngine(sqlDb, connectionPool, pike13Api,
+				salesForceApi);
 		LocationLookup.setLocationData(sqlDb.getLocationList());
 		importer.updateSalesForce(today.substring(0, 10), startDate, endDate);
 
 		// Clean up and exit
+		logger.log(pike13Conn.getRequestStats() + "\n");
 		lambdaFunctionEnd(-1, null); // -1 indicates no error
 		return ("Start: " + today + ", End: "
 				+ (new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).toString("yyyy-MM-dd HH:mm:ss")));
@@ -90,14 +106,16 @@ public class SalesForceImport {
 	private void lambdaFunctionEnd(int errorCode, String errorMessage) {
 		if (errorCode == -1) {
 			// Success
-			MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_IMPORT_COMPLETE, new StudentNameModel("", "", false),
+			LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_IMPORT_COMPLETE, new StudentNameModel("", "", false),
 					0, " from " + startDate + " to " + endDate + " ***");
 		} else {
 			// Failure
-			MySqlDbLogging.insertLogData(errorCode, new StudentNameModel("", "", false), 0, ": " + errorMessage);
-			MySqlDbLogging.insertLogData(LogDataModel.SALES_FORCE_IMPORT_ABORTED, new StudentNameModel("", "", false),
+			LogBatchWriter.insertLogData(errorCode, new StudentNameModel("", "", false), 0, ": " + errorMessage);
+			LogBatchWriter.insertLogData(LogDataModel.SALES_FORCE_IMPORT_ABORTED, new StudentNameModel("", "", false),
 					0, " from " + startDate + " to " + endDate + " ***");
 		}
+		LogBatchWriter.stop();
+		connectionPool.close();
 		sqlDb.disconnectDatabase();
 	}
 }
@@ -1,7 +1,5 @@
 package lambda;
 
-import java.util.ArrayList;
-
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
@@ -11,13 +9,16 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import controller.GithubApi;
 import controller.Pike13Connect;
 import controller.Pike13DbImport;
+import controller.Pike13ResponseCache;
 import controller.StudentImportEngine;
 import model.LocationLookup;
+import model.LogBatchWriter;
 import model.LogDataModel;
+import model.MySqlConnectionPool;
 import model.MySqlDatabase;
 import model.MySqlDbImports;
 import model.MySqlDbLogging;
-import model.StudentModel;
+import model.StudentIndex;
 import model.StudentNameModel;
 
 /**
@@ -33,6 +34,7 @@ public class StudentImport {
 
 	private static final int ATTEND_NUM_DAYS_IN_PAST = 21;
 	private static final int ATTEND_NUM_DAYS_IN_FUTURE = 120;
+	private static final int DEFAULT_DB_POOL_SIZE = 4;
 	private MySqlDatabase sqlDb;
 
 	public String myHandler(Object input, Context context) {
@@ -48,11 +50,19 @@ public class StudentImport {
 		sqlDb = new MySqlDatabase(System.getenv("PASSWORD"), MySqlDatabase.STUDENT_IMPORT_NO_SSH);
 		if (sqlDb.connectDatabase()) {
 			new MySqlDbLogging(sqlDb);
-			//MySqlDbLogging.insertLogData(LogDataModel.STARTING_TRACKER_IMPORT, new StudentNameModel("", "", false), 0,
+			//LogBatchWriter.insertLogData(LogDataModel.STARTING_TRACKER_IMPORT, new StudentNameModel("", "", false), 0,
 			//		" for " + today.toString("yyyy-MM-dd") + " ***");
 
-			MySqlDbImports sqlImportDb = new MySqlDbImports(sqlDb);
+			MySqlConnectionPool connectionPool = new MySqlConnectionPool(System.getenv("PASSWORD"),
+					MySqlDatabase.STUDENT_IMPORT_NO_SSH, System.getenv("DB_POOL_SIZE") == null ? DEFAULT_DB_POOL_SIZE
+							: Integer.parseInt(System.getenv("DB_POOL_SIZE")));
+			LogBatchWriter.start(System.getenv("PASSWORD"), MySqlDatabase.STUDENT_IMPORT_NO_SSH);
+			MySqlDbImports sqlImportDb = new MySqlDbImports(sqlDb, connectionPool);
+			if (System.getenv("TEACHER_GITHUB_USERS") != null)
+				sqlImportDb.setTeacherGithubUsers(System.getenv("TEACHER_GITHUB_USERS"));
+			sqlImportDb.setAttendanceStagingMerge(Boolean.parseBoolean(System.getenv("ATTENDANCE_STAGING_MERGE")));
 			StudentImportEngine importer = new StudentImportEngine(sqlImportDb);
+			importer.setRebuildSortedAttendance(Boolean.parseBoolean(System.getenv("REBUILD_SORTED_ATTENDANCE")));
 			LocationLookup.setLocationData(sqlDb.getLocationList());
 
 			// Remove log data older than 7 days
@@ -60,22 +70,29 @@ public class StudentImport {
 
 			// Connect to Pike13 and import data
 			Pike13Connect pike13Conn = new Pike13Connect(System.getenv("PIKE13_KEY"));
+			if (System.getenv("PIKE13_CACHE_DIR") != null)
+				pike13Conn.setResponseCache(new Pike13ResponseCache(System.getenv("PIKE13_CACHE_DIR"),
+						Boolean.parseBoolean(System.getenv("PIKE13_CACHE_OFFLINE"))));
 			Pike13DbImport pike13Api = new Pike13DbImport(sqlImportDb, pike13Conn);
 			importer.importStudentsFromPike13(pike13Api);
 			
 			// Now update active student list and continue imports
-			ArrayList<StudentModel> studentList = sqlImportDb.getActiveStudents();
-			importer.importAttendanceFromPike13(startDateString, pike13Api, studentList);
-			importer.importScheduleFromPike13(pike13Api, studentList);
+			StudentIndex students = new StudentIndex(sqlImportDb.getActiveStudents());
+			importer.importAttendanceFromPike13(startDateString, pike13Api, students);
+			importer.importScheduleFromPike13(pike13Api, students);
 			importer.importCoursesFromPike13(pike13Api);
-			importer.importCourseAttendanceFromPike13(startDateString, courseEndDate, pike13Api, studentList);
+			importer.importCourseAttendanceFromPike13(startDateString, courseEndDate, pike13Api, students);
 
 			// Connect to Github and import data
 			GithubApi githubApi = new GithubApi(sqlImportDb, System.getenv("GITHUB_KEY"));
-			importer.importGithubComments(startDateString, pike13Api, githubApi, studentList);
+			importer.importGithubComments(startDateString, pike13Api, githubApi, students);
+			importer.updateSortedAttendance();
 
-			MySqlDbLogging.insertLogData(LogDataModel.TRACKER_IMPORT_COMPLETE, new StudentNameModel("", "", false), 0,
+			logger.log(pike13Conn.getRequestStats() + "\n");
+			LogBatchWriter.insertLogData(LogDataModel.TRACKER_IMPORT_COMPLETE, new StudentNameModel("", "", false), 0,
 					" for " + today.toString("yyyy-MM-dd") + " ***");
+			LogBatchWriter.stop();
+			connectionPool.close();
 			sqlDb.disconnectDatabase();
 		}
 
@@ -0,0 +1,207 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+
+import com.mysql.jdbc.exceptions.jdbc4.CommunicationsException;
+import com.mysql.jdbc.exceptions.jdbc4.MySQLNonTransientConnectionException;
+
+/**
+ * Queues Attendance table writes and sends them to the database in batches.
+ * Consecutive rows using the same statement form a chunk, so that writes are
+ * sent in the order queued. Each chunk is prepared once and committed as a
+ * single transaction. If a chunk fails, its rows are re-sent one at a time so
+ * that only the failing rows are reported. Rows may be added from any thread;
+ * each chunk is sent on the connection of the thread that flushes it.
+ * Follow-up student updates run after all chunks are sent, in the order they
+ * were queued, so that they are applied in import order.
+ */
+class AttendanceBatchWriter {
+	private static final int MAX_BATCH_SIZE = 200;
+
+	private MySqlDbImports dbImports;
+	private ArrayList<PendingBatch> pendingBatches = new ArrayList<PendingBatch>();
+	private ArrayList<PendingCallback> pendingCallbacks = new ArrayList<PendingCallback>();
+	private int numPendingRows = 0;
+
+	AttendanceBatchWriter(MySqlDbImports dbImports) {
+		this.dbImports = dbImports;
+	}
+
+	synchronized void addRow(String sql, boolean ignoreDuplicates, String errorText, StudentNameModel nameModel, int clientID,
+			Runnable onSuccess, Object... params) {
+		// Rows are batched together while the statement stays the same
+		PendingBatch batch = pendingBatches.isEmpty() ? null : pendingBatches.get(pendingBatches.size() - 1);
+		if (batch == null || !batch.sql.equals(sql)) {
+			batch = new PendingBatch(sql, ignoreDuplicates, errorText);
+			pendingBatches.add(batch);
+		}
+		BatchRow row = new BatchRow(nameModel, clientID, params);
+		batch.rows.add(row);
+		if (onSuccess != null)
+			pendingCallbacks.add(new PendingCallback(onSuccess, row));
+
+		numPendingRows++;
+		if (numPendingRows >= MAX_BATCH_SIZE)
+			flush();
+	}
+
+	synchronized void addCallback(Runnable callback) {
+		// Runs at the next flush whether or not the rows around it are written
+		pendingCallbacks.add(new PendingCallback(callback, null));
+	}
+
+	synchronized void flush() {
+		if (numPendingRows == 0 && pendingCallbacks.size() == 0)
+			return;
+
+		for (PendingBatch batch : pendingBatches)
+			executeBatch(batch);
+
+		// Take the callbacks first, since they may queue more rows
+		ArrayList<PendingCallback> callbacks = pendingCallbacks;
+		pendingCallbacks = new ArrayList<PendingCallback>();
+		pendingBatches.clear();
+		numPendingRows = 0;
+
+		for (PendingCallback callback : callbacks) {
+			if (callback.row == null || callback.row.written)
+				callback.callback.run();
+		}
+	}
+
+	private void executeBatch(PendingBatch batch) {
+		for (int i = 0; i < 2; i++) {
+			try {
+				// Let the driver rewrite the batch into multi-row statements
+				dbImports.getConnection().unwrap(com.mysql.jdbc.Connection.class).setRewriteBatchedStatements(true);
+				dbImports.getConnection().setAutoCommit(false);
+
+				PreparedStatement batchStmt = dbImports.getConnection().prepareStatement(batch.sql);
+				for (BatchRow row : batch.rows) {
+					setParams(batchStmt, row.params);
+					batchStmt.addBatch();
+				}
+
+				batchStmt.executeBatch();
+				dbImports.getConnection().commit();
+				batchStmt.close();
+				dbImports.getConnection().setAutoCommit(true);
+
+				for (BatchRow row : batch.rows)
+					row.written = true;
+				return;
+
+			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+				if (i == 0) {
+					// First attempt to re-connect, then re-send the whole batch
+					System.out.println("executeBatch: " + e1.getMessage() + ", " + e1);
+					dbImports.reconnect();
+				} else
+					LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false),
+							0, batch.errorText + batch.rows.size() + " rows not written: " + e1.getMessage());
+
+			} catch (SQLException | NullPointerException e2) {
+				// Undo this batch and send rows individually to isolate the error
+				LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
+						batch.errorText + "batch failed, rows re-sent singly: " + e2.getMessage());
+				rollback();
+				executeRows(batch);
+				return;
+			}
+		}
+	}
+
+	private void executeRows(PendingBatch batch) {
+		for (BatchRow row : batch.rows) {
+			for (int i = 0; i < 2; i++) {
+				try {
+					// If Database no longer connected, the exception code will re-connect
+					PreparedStatement rowStmt = dbImports.getConnection().prepareStatement(batch.sql);
+					setParams(rowStmt, row.params);
+
+					rowStmt.executeUpdate();
+					rowStmt.close();
+
+					row.written = true;
+					break;
+
+				} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+					if (i == 0) {
+						// First attempt to re-connect
+						System.out.println("executeRows: " + e1.getMessage() + ", " + e1);
+						dbImports.reconnect();
+					} else
+						LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, row.nameModel, row.clientID,
+								batch.errorText + e1.getMessage());
+
+				} catch (SQLIntegrityConstraintViolationException e2) {
+					if (!batch.ignoreDuplicates) {
+						LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, row.nameModel, row.clientID,
+								batch.errorText + e2.getMessage());
+					}
+					break;
+
+				} catch (SQLException | NullPointerException e3) {
+					e3.printStackTrace();
+					LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, row.nameModel, row.clientID,
+							batch.errorText + e3.getMessage());
+					break;
+				}
+			}
+		}
+	}
+
+	private void setParams(PreparedStatement stmt, Object[] params) throws SQLException {
+		for (int col = 0; col < params.length; col++)
+			stmt.setObject(col + 1, params[col]);
+	}
+
+	private void rollback() {
+		try {
+			dbImports.getConnection().rollback();
+			dbImports.getConnection().setAutoCommit(true);
+
+		} catch (SQLException | NullPointerException e) {
+			System.out.println("rollback: " + e.getMessage());
+		}
+	}
+
+	private class PendingBatch {
+		String sql;
+		boolean ignoreDuplicates;
+		String errorText;
+		ArrayList<BatchRow> rows = new ArrayList<BatchRow>();
+
+		PendingBatch(String sql, boolean ignoreDuplicates, String errorText) {
+			this.sql = sql;
+			this.ignoreDuplicates = ignoreDuplicates;
+			this.errorText = errorText;
+		}
+	}
+
+	private class BatchRow {
+		StudentNameModel nameModel;
+		int clientID;
+		Object[] params;
+		boolean written = false;
+
+		BatchRow(StudentNameModel nameModel, int clientID, Object[] params) {
+			this.nameModel = nameModel;
+			this.clientID = clientID;
+			this.params = params;
+		}
+	}
+
+	private class PendingCallback {
+		Runnable callback;
+		BatchRow row;   // Only run once this row is written; null to always run
+
+		PendingCallback(Runnable callback, BatchRow row) {
+			this.callback = callback;
+			this.row = row;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Forward-only reader over a query result. Rows are fetched from a server-side
+ * cursor a block at a time and converted one row at a time, so that a large
+ * table is never copied into memory. Other statements can run on the same
+ * connection while the reader is open. A read error is logged and ends the
+ * rows; callers check hasError() before acting on what is missing.
+ */
+class DbRowReader<T> implements Iterator<T>, AutoCloseable {
+	static final int FETCH_SIZE = 500;
+
+	interface RowMapper<T> {
+		T map(ResultSet result) throws SQLException;
+	}
+
+	private PreparedStatement stmt;
+	private ResultSet result;
+	private RowMapper<T> mapper;
+	private int errorLogType;
+	private T nextRow = null;
+	private boolean error = false;
+
+	DbRowReader(PreparedStatement stmt, ResultSet result, RowMapper<T> mapper, int errorLogType) {
+		this.stmt = stmt;
+		this.result = result;
+		this.mapper = mapper;
+		this.errorLogType = errorLogType;
+	}
+
+	static <T> DbRowReader<T> failed() {
+		// Reader for a query that could not be run
+		DbRowReader<T> reader = new DbRowReader<T>(null, null, null, 0);
+		reader.error = true;
+		return reader;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextRow == null && result != null) {
+			try {
+				if (result.next())
+					nextRow = mapper.map(result);
+				else
+					close();
+
+			} catch (SQLException | NullPointerException e) {
+				e.printStackTrace();
+				LogBatchWriter.insertLogData(errorLogType, new StudentNameModel("", "", false), 0,
+						": " + e.getMessage());
+				error = true;
+				close();
+			}
+		}
+		return nextRow != null;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		T row = nextRow;
+		nextRow = null;
+		return row;
+	}
+
+	public T peek() {
+		// Next row without moving past it
+		if (!hasNext())
+			throw new NoSuchElementException();
+		return nextRow;
+	}
+
+	public boolean hasError() {
+		return error;
+	}
+
+	@Override
+	public void close() {
+		if (result == null)
+			return;
+
+		try {
+			result.close();
+			stmt.close();
+
+		} catch (SQLException e) {
+			System.out.println("DbRowReader close: " + e.getMessage());
+		}
+		result = null;
+		stmt = null;
+	}
+}
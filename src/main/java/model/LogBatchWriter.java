@@ -0,0 +1,231 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.mysql.jdbc.exceptions.jdbc4.CommunicationsException;
+import com.mysql.jdbc.exceptions.jdbc4.MySQLNonTransientConnectionException;
+
+/**
+ * Queues LogData rows and writes them from a background thread, so that
+ * logging never waits on the database. Repeats of a queued message are
+ * written once. The queue is bounded; once full, new messages are dropped and
+ * counted. Rows are written on a connection of the writer's own, so the
+ * writer never shares a connection with the import. Until start() is called,
+ * and after stop(), messages are written directly by MySqlDbLogging.
+ */
+public class LogBatchWriter {
+	private static final int MAX_QUEUED_ROWS = 5000;
+	private static final int MAX_BATCH_SIZE = 200;
+	private static final long FLUSH_INTERVAL_MILLIS = 2000;
+	private static final int LOG_APPEND_WIDTH = 120;
+
+	private static LogBatchWriter writer = null;
+
+	private String password;
+	private int sshPort;
+	private MySqlConnection mySqlConn = null;
+	private Connection dbConnection = null;
+	private Thread flushThread;
+	private boolean running = true;
+
+	// Queued rows by message, in the order first logged
+	private LinkedHashMap<String, LogRow> queuedRows = new LinkedHashMap<String, LogRow>();
+	private int numCollapsed = 0;
+	private int numDropped = 0;
+
+	private LogBatchWriter(String password, int sshPort) {
+		this.password = password;
+		this.sshPort = sshPort;
+
+		flushThread = new Thread(() -> runFlushThread(), "LogBatchWriter");
+		flushThread.setDaemon(true);
+		flushThread.start();
+	}
+
+	public static synchronized void start(String password, int sshPort) {
+		// Writer connects on first flush, using the same credentials as the import
+		if (writer == null)
+			writer = new LogBatchWriter(password, sshPort);
+	}
+
+	public static synchronized void stop() {
+		// Write all queued rows, then go back to direct logging
+		if (writer == null)
+			return;
+
+		writer.shutdown();
+		writer = null;
+	}
+
+	public static void insertLogData(int logType, StudentNameModel nameModel, int clientID, String appendedString) {
+		LogBatchWriter currWriter = writer;
+		if (currWriter == null)
+			MySqlDbLogging.insertLogData(logType, nameModel, clientID, appendedString);
+		else
+			currWriter.addRow(logType, nameModel == null ? null : nameModel.toString(), clientID, appendedString);
+	}
+
+	private synchronized void addRow(int logType, String studentName, int clientID, String appendedString) {
+		if (appendedString != null && appendedString.length() >= LOG_APPEND_WIDTH)
+			appendedString = appendedString.substring(0, LOG_APPEND_WIDTH);
+
+		// Repeated messages are only queued once; the text is unchanged so that
+		// LogData's unique key still suppresses messages already logged
+		String key = logType + "," + clientID + "," + studentName + "," + appendedString;
+		if (queuedRows.containsKey(key)) {
+			numCollapsed++;
+			return;
+		}
+
+		if (queuedRows.size() >= MAX_QUEUED_ROWS) {
+			numDropped++;
+			return;
+		}
+
+		queuedRows.put(key, new LogRow(logType, studentName, clientID, appendedString,
+				new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).toString("yyyy-MM-dd HH:mm:ss")));
+		if (queuedRows.size() >= MAX_BATCH_SIZE)
+			notifyAll();
+	}
+
+	private void shutdown() {
+		synchronized (this) {
+			running = false;
+			notifyAll();
+		}
+
+		try {
+			flushThread.join();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (numCollapsed > 0 || numDropped > 0)
+			System.out.println("Log writer: " + numCollapsed + " repeated messages skipped, " + numDropped
+					+ " messages dropped");
+	}
+
+	private void runFlushThread() {
+		while (true) {
+			ArrayList<LogRow> rows;
+			boolean done;
+			synchronized (this) {
+				// Wait for a full batch, the flush interval, or shutdown
+				if (running && queuedRows.size() < MAX_BATCH_SIZE) {
+					try {
+						wait(FLUSH_INTERVAL_MILLIS);
+
+					} catch (InterruptedException e) {
+						running = false;
+					}
+				}
+
+				rows = new ArrayList<LogRow>(queuedRows.values());
+				queuedRows.clear();
+				done = !running;
+			}
+
+			for (int i = 0; i < rows.size(); i += MAX_BATCH_SIZE)
+				writeRows(rows.subList(i, Math.min(i + MAX_BATCH_SIZE, rows.size())));
+
+			if (done)
+				break;
+		}
+		closeConnection();
+	}
+
+	private void writeRows(List<LogRow> rows) {
+		StringBuilder values = new StringBuilder();
+		for (int j = 0; j < rows.size(); j++)
+			values.append(j == 0 ? "(?, ?, ?, ?, ?)" : ",(?, ?, ?, ?, ?)");
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				// Rows already in the log are ignored, as for a single insert
+				PreparedStatement insertStmt = getConnection().prepareStatement("INSERT IGNORE INTO LogData "
+						+ "(ClientID, LogType, StudentName, AppendedString, LogDate) VALUES " + values + ";");
+
+				int col = 1;
+				for (LogRow row : rows) {
+					insertStmt.setInt(col++, row.clientID);
+					insertStmt.setInt(col++, row.logType);
+					insertStmt.setString(col++, row.studentName);
+					insertStmt.setString(col++, row.appendedString);
+					insertStmt.setString(col++, row.logDate);
+				}
+
+				insertStmt.executeUpdate();
+				insertStmt.close();
+				break;
+
+			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+				if (i == 0) {
+					// First attempt to re-connect
+					System.out.println("LogBatchWriter: " + e1.getMessage() + ", " + e1);
+					closeConnection();
+				} else
+					System.out.println("LogBatchWriter: " + rows.size() + " log rows not written: " + e1.getMessage());
+
+			} catch (SQLException | NullPointerException e2) {
+				// Errors can't be sent to the log itself
+				e2.printStackTrace();
+				System.out.println("LogBatchWriter: " + rows.size() + " log rows not written: " + e2.getMessage());
+				break;
+			}
+		}
+	}
+
+	private Connection getConnection() throws SQLException {
+		// Connection is opened by the flush thread and used by nothing else
+		if (dbConnection == null) {
+			mySqlConn = new MySqlConnection(sshPort);
+			dbConnection = mySqlConn.connectToServer(null, password);
+			if (dbConnection == null) {
+				closeConnection();
+				throw new SQLException("Failure connecting to mySql database");
+			}
+		}
+		return dbConnection;
+	}
+
+	private void closeConnection() {
+		if (dbConnection != null) {
+			try {
+				dbConnection.close();
+
+			} catch (SQLException e) {
+				System.out.println("LogBatchWriter close: " + e.getMessage());
+			}
+			dbConnection = null;
+		}
+		if (mySqlConn != null) {
+			mySqlConn.closeConnections();
+			mySqlConn = null;
+		}
+	}
+
+	private class LogRow {
+		int logType;
+		String studentName;
+		int clientID;
+		String appendedString;
+		String logDate;
+
+		LogRow(int logType, String studentName, int clientID, String appendedString, String logDate) {
+			this.logType = logType;
+			this.studentName = studentName;
+			this.clientID = clientID;
+			this.appendedString = appendedString;
+			this.logDate = logDate;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounded pool of database connections. Each thread is given its own
+ * connection, which it keeps until it calls releaseConnection(). Idle
+ * connections are validated before they are handed out again, and a thread
+ * asking for a connection waits while the pool is at its maximum size.
+ */
+public class MySqlConnectionPool {
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private String password;
+	private int sshPort;
+	private Semaphore permits;
+	private ArrayDeque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+	private ThreadLocal<PooledConnection> threadConnection = new ThreadLocal<PooledConnection>();
+
+	public MySqlConnectionPool(String password, int sshPort, int maxConnections) {
+		this.password = password;
+		this.sshPort = sshPort;
+		this.permits = new Semaphore(Math.max(1, maxConnections), true);
+	}
+
+	public Connection getConnection() throws SQLException {
+		PooledConnection pooledConn = threadConnection.get();
+		if (pooledConn != null)
+			return pooledConn.conn;
+
+		// Wait for a free slot, then re-use an idle connection or open a new one
+		try {
+			permits.acquire();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted waiting for database connection");
+		}
+
+		try {
+			pooledConn = getIdleConnection();
+			if (pooledConn == null)
+				pooledConn = openConnection();
+
+		} catch (SQLException e) {
+			permits.release();
+			throw e;
+		}
+
+		threadConnection.set(pooledConn);
+		return pooledConn.conn;
+	}
+
+	public Connection reconnect() throws SQLException {
+		// Replace this thread's connection after a communications failure
+		PooledConnection pooledConn = threadConnection.get();
+		if (pooledConn == null)
+			return getConnection();
+
+		pooledConn.close();
+		try {
+			pooledConn = openConnection();
+
+		} catch (SQLException e) {
+			threadConnection.remove();
+			permits.release();
+			throw e;
+		}
+
+		threadConnection.set(pooledConn);
+		return pooledConn.conn;
+	}
+
+	public void releaseConnection() {
+		// Return this thread's connection to the pool
+		PooledConnection pooledConn = threadConnection.get();
+		if (pooledConn == null)
+			return;
+
+		threadConnection.remove();
+		synchronized (idleConnections) {
+			idleConnections.push(pooledConn);
+		}
+		permits.release();
+	}
+
+	public void close() {
+		// Close idle connections; connections still held by threads are closed on release
+		releaseConnection();
+		synchronized (idleConnections) {
+			for (PooledConnection pooledConn : idleConnections)
+				pooledConn.close();
+			idleConnections.clear();
+		}
+	}
+
+	private PooledConnection getIdleConnection() {
+		while (true) {
+			PooledConnection pooledConn;
+			synchronized (idleConnections) {
+				pooledConn = idleConnections.poll();
+			}
+			if (pooledConn == null)
+				return null;
+
+			// Drop connections closed by the server while idle
+			try {
+				if (pooledConn.conn.isValid(VALIDATION_TIMEOUT_SECONDS))
+					return pooledConn;
+
+			} catch (SQLException e) {
+				System.out.println("Pool connection validation failed: " + e.getMessage());
+			}
+			pooledConn.close();
+		}
+	}
+
+	private PooledConnection openConnection() throws SQLException {
+		MySqlConnection mySqlConn = new MySqlConnection(sshPort);
+		Connection conn = mySqlConn.connectToServer(null, password);
+		if (conn == null) {
+			mySqlConn.closeConnections();
+			throw new SQLException("Failure connecting to mySql database");
+		}
+		return new PooledConnection(mySqlConn, conn);
+	}
+
+	private class PooledConnection {
+		MySqlConnection mySqlConn;
+		Connection conn;
+
+		PooledConnection(MySqlConnection mySqlConn, Connection conn) {
+			this.mySqlConn = mySqlConn;
+			this.conn = conn;
+		}
+
+		void close() {
+			try {
+				conn.close();
+
+			} catch (SQLException e) {
+				System.out.println("Pool connection close failed: " + e.getMessage());
+			}
+			mySqlConn.closeConnections();
+		}
+	}
+}
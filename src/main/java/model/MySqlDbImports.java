@@ -1,12 +1,23 @@
 package model;
 
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -29,11 +40,115 @@ public class MySqlDbImports {
 	private static final int CLASS_NAME_WIDTH = 40;
 	private static final int COMMENT_WIDTH = 150;
 	private static final int REPO_NAME_WIDTH = 50;
+	private static final int MAX_STUDENT_UPSERT_ROWS = 500;
+	private static final int MAX_STAGING_INSERT_ROWS = 500;
+
+	// Students columns of the StudentImportModel changed-field mask, in bit order
+	private static final String[] STUDENT_FIELD_COLUMNS = { "LastName", "FirstName", "GithubName", "StartDate",
+			"Location", "Gender", "GradYear", "isInMasterDb", "Email", "EmergencyEmail", "AcctMgrEmail", "Phone",
+			"AcctMgrPhone", "HomePhone", "EmergencyPhone", "Birthdate", "TASinceDate", "TAPastEvents", "CurrentLevel",
+			"LastScore" };
+
+	// Columns read by the bulk readers; the rest of each row is never fetched
+	private static final String STUDENT_MODEL_COLUMNS = "ClientID, FirstName, LastName, isInMasterDb, Birthdate, "
+			+ "GithubName, Gender, StartDate, Location, GradYear, CurrentClass, Email, AcctMgrEmail, EmergencyEmail, "
+			+ "Phone, AcctMgrPhone, HomePhone, EmergencyPhone, CurrentModule, CurrentLevel, RegisterClass, "
+			+ "LastVisitDate";
+	private static final String STUDENT_IMPORT_COLUMNS = "ClientID, LastName, FirstName, GithubName, Gender, "
+			+ "StartDate, Location, GradYear, isInMasterDb, Email, AcctMgrEmail, EmergencyEmail, Phone, AcctMgrPhone, "
+			+ "HomePhone, EmergencyPhone, Birthdate, TASinceDate, TAPastEvents, CurrentLevel, CurrentClass, "
+			+ "LastScore, RegisterClass";
+	private static final String ATTENDANCE_EVENT_COLUMNS = "Attendance.ClientID, VisitID, ServiceDate, ServiceTime, "
+			+ "EventName, GithubName, RepoName, Comments, GitDescription, FirstName, LastName, ServiceCategory, "
+			+ "State, LastSFState, TeacherNames, ClassLevel";
+
+	// Per-connection staging table for the set-based attendance merge
+	private static final String ATTENDANCE_STAGING_CREATE = "CREATE TEMPORARY TABLE IF NOT EXISTS AttendanceStaging "
+			+ "(ImportIdx INT NOT NULL PRIMARY KEY, ClientID INT NOT NULL, VisitID INT NOT NULL, "
+			+ "ServiceDate DATE NOT NULL, ServiceTime VARCHAR(20), EventName VARCHAR(255), TeacherNames VARCHAR(255), "
+			+ "ServiceCategory VARCHAR(100), State VARCHAR(20), INDEX (ClientID, ServiceDate, VisitID));";
+
+	// Multi-row student upsert: insert new students, update all fields of existing ones
+	private static final String STUDENT_UPSERT_INSERT = "INSERT INTO Students (ClientID, LastName, FirstName, "
+			+ "GithubName, NewGithub, NewStudent, Gender, StartDate, Location, GradYear, isInMasterDb, Email, "
+			+ "EmergencyEmail, AcctMgrEmail, Phone, AcctMgrPhone, HomePhone, EmergencyPhone, Birthdate, "
+			+ "TASinceDate, TAPastEvents, CurrentLevel, LastScore";
+	private static final String STUDENT_UPSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ";
+	private static final String STUDENT_UPSERT_UPDATE = " ON DUPLICATE KEY UPDATE LastName=VALUES(LastName), "
+			+ "FirstName=VALUES(FirstName), GithubName=VALUES(GithubName), NewGithub=VALUES(NewGithub), "
+			+ "NewStudent=VALUES(NewStudent), Gender=VALUES(Gender), StartDate=VALUES(StartDate), "
+			+ "Location=VALUES(Location), GradYear=VALUES(GradYear), isInMasterDb=VALUES(isInMasterDb), "
+			+ "Email=VALUES(Email), EmergencyEmail=VALUES(EmergencyEmail), AcctMgrEmail=VALUES(AcctMgrEmail), "
+			+ "Phone=VALUES(Phone), AcctMgrPhone=VALUES(AcctMgrPhone), HomePhone=VALUES(HomePhone), "
+			+ "EmergencyPhone=VALUES(EmergencyPhone), Birthdate=VALUES(Birthdate), TASinceDate=VALUES(TASinceDate), "
+			+ "TAPastEvents=VALUES(TAPastEvents), CurrentLevel=VALUES(CurrentLevel)";
+
+	// Github accounts of teachers & volunteers; their commits are not student work
+	private static final String[] DEFAULT_TEACHER_GITHUB_USERS = { "wavis421", "keithagroves", "davedleague",
+			"sebastiantroncoso93", "codybsauer", "shacheeparikh", "tylercwiltz", "colbyschexnayder",
+			"mwoguri",             // Michiyo
+			"jaleague",            // Jackie
+			"zaelix",              // Mike
+			"dencee",              // Daniel
+			"mjfre",               // Matt
+			"awasicek",            // Andrew
+			"dkunkler",            // David Kunkler, volunteer (parent of 3 students)
+			"bschurter",           // Bruce Schurter, limited staff member
+			"tsneuhaus",           // Tammy Neuhaus, limited staff member
+			"rey-rey" };           // Rey Fidel, volunteer teacher
 
 	private MySqlDatabase sqlDb;
+	private MySqlConnectionPool connectionPool;
+	private AttendanceBatchWriter attendanceWriter;
+	private boolean attendanceStagingMerge = false;
+	private boolean contentHashChecked = false;
+	private boolean contentHashEnabled = false;
+
+	// Attendance rows changed during this run, to be applied to SortedAttendance
+	private Set<String> changedVisitKeys = Collections.synchronizedSet(new LinkedHashSet<String>());
+	private Set<String> changedServiceDateKeys = Collections.synchronizedSet(new LinkedHashSet<String>());
+
+	private HashSet<String> teacherGithubUsers = new HashSet<String>(Arrays.asList(DEFAULT_TEACHER_GITHUB_USERS));
 
 	public MySqlDbImports(MySqlDatabase sqlDb) {
+		this(sqlDb, null);
+	}
+
+	public MySqlDbImports(MySqlDatabase sqlDb, MySqlConnectionPool connectionPool) {
+		// Without a pool, all threads share the single database connection
 		this.sqlDb = sqlDb;
+		this.connectionPool = connectionPool;
+		this.attendanceWriter = new AttendanceBatchWriter(this);
+	}
+
+	/*
+	 * ------- Database Connections -------
+	 */
+	Connection getConnection() throws SQLException {
+		if (connectionPool == null)
+			return sqlDb.dbConnection;
+		return connectionPool.getConnection();
+	}
+
+	void reconnect() {
+		if (connectionPool == null) {
+			sqlDb.connectDatabase();
+			return;
+		}
+
+		try {
+			connectionPool.reconnect();
+
+		} catch (SQLException e) {
+			// Next attempt will fail and report the error
+			System.out.println("reconnect: " + e.getMessage());
+		}
+	}
+
+	public void releaseConnection() {
+		// Worker threads return their pooled connection when done with database work
+		if (connectionPool != null)
+			connectionPool.releaseConnection();
 	}
 
 	/*
@@ -43,52 +158,62 @@ public class MySqlDbImports {
 		ArrayList<StudentModel> nameList = new ArrayList<StudentModel>();
 		DateTime today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"));
 
-		for (int i = 0; i < 2; i++) {
-			try {
-				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement selectStmt = sqlDb.dbConnection
-						.prepareStatement("SELECT * FROM Students WHERE isInMasterDb ORDER BY FirstName, LastName;");
-				ResultSet result = selectStmt.executeQuery();
-
-				while (result.next()) {
-					nameList.add(new StudentModel(result.getInt("ClientID"),
-							new StudentNameModel(result.getString("FirstName"), result.getString("LastName"),
-									result.getBoolean("isInMasterDb")),
-							sqlDb.getAge(today, result.getString("Birthdate")), result.getString("GithubName"),
-							result.getInt("Gender"), result.getDate("StartDate"), result.getInt("Location"),
-							result.getInt("GradYear"), result.getString("CurrentClass"), result.getString("Email"),
-							result.getString("AcctMgrEmail"), result.getString("EmergencyEmail"),
-							result.getString("Phone"), result.getString("AcctMgrPhone"), result.getString("HomePhone"),
-							result.getString("EmergencyPhone"), result.getString("CurrentModule"),
-							result.getString("CurrentLevel"), result.getString("RegisterClass"),
-							result.getDate("LastVisitDate")));
-				}
+		DbRowReader<StudentModel> reader = openReader("getActiveStudents",
+				"SELECT " + STUDENT_MODEL_COLUMNS + " FROM Students WHERE isInMasterDb ORDER BY FirstName, LastName;",
+				LogDataModel.STUDENT_DB_ERROR,
+				(ResultSet result) -> new StudentModel(result.getInt("ClientID"),
+						new StudentNameModel(result.getString("FirstName"), result.getString("LastName"),
+								result.getBoolean("isInMasterDb")),
+						sqlDb.getAge(today, result.getString("Birthdate")), result.getString("GithubName"),
+						result.getInt("Gender"), result.getDate("StartDate"), result.getInt("Location"),
+						result.getInt("GradYear"), result.getString("CurrentClass"), result.getString("Email"),
+						result.getString("AcctMgrEmail"), result.getString("EmergencyEmail"),
+						result.getString("Phone"), result.getString("AcctMgrPhone"), result.getString("HomePhone"),
+						result.getString("EmergencyPhone"), result.getString("CurrentModule"),
+						result.getString("CurrentLevel"), result.getString("RegisterClass"),
+						result.getDate("LastVisitDate")));
+
+		while (reader.hasNext())
+			nameList.add(reader.next());
+		return nameList;
+	}
 
-				result.close();
-				selectStmt.close();
-				break;
+	public HashMap<Integer, String> getActiveStudentStartDates() {
+		// Start date by ClientID for students in the master DB; returns null on error
+		HashMap<Integer, String> startDates = new HashMap<Integer, String>();
 
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("getActiveStudents: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
+		DbRowReader<Map.Entry<Integer, String>> reader = openReader("getActiveStudentStartDates",
+				"SELECT ClientID, StartDate FROM Students WHERE isInMasterDb;", LogDataModel.STUDENT_DB_ERROR,
+				(ResultSet result) -> new AbstractMap.SimpleEntry<Integer, String>(result.getInt("ClientID"),
+						result.getDate("StartDate") == null ? "" : result.getDate("StartDate").toString()));
 
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
-						": " + e2.getMessage());
-				break;
-			}
+		while (reader.hasNext()) {
+			Map.Entry<Integer, String> student = reader.next();
+			startDates.put(student.getKey(), student.getValue());
 		}
-		return nameList;
+		if (reader.hasError())
+			return null;
+		return startDates;
 	}
 
-	public void importStudents(ArrayList<StudentImportModel> importList) {
-		ArrayList<StudentImportModel> dbList = getAllStudentsAsImportData();
-		int dbListIdx = 0;
-		int dbListSize = dbList.size();
+	public boolean importStudents(ArrayList<StudentImportModel> importList, boolean fullSync) {
+		// Returns false if any change could not be written
+		checkContentHashColumn();
+
+		// For a partial sync, only the imported students are compared
+		DbRowReader<StudentImportModel> dbReader;
+		if (fullSync)
+			dbReader = readStudentsAsImportData(null);
+		else {
+			ArrayList<Integer> clientIDs = new ArrayList<Integer>();
+			for (StudentImportModel student : importList)
+				clientIDs.add(student.getClientID());
+			dbReader = readStudentsAsImportData(clientIDs);
+		}
+
+		// Changes are collected and then written in bulk
+		ArrayList<StudentUpsertRow> upsertList = new ArrayList<StudentUpsertRow>();
+		ArrayList<Integer> removedList = new ArrayList<Integer>();
 
 		StudentImportModel dbStudent;
 		for (int i = 0; i < importList.size(); i++) {
@@ -99,53 +224,128 @@ public class MySqlDbImports {
 
 			// If at end of DB list, then default operation is insert (1)
 			int compare = 1;
-			if (dbListIdx < dbListSize) {
-				dbStudent = dbList.get(dbListIdx);
-				compare = dbStudent.compareTo(importStudent);
+			if (dbReader.hasNext()) {
+				dbStudent = dbReader.peek();
+				compare = compareStudent(dbStudent, importStudent);
 			}
 
 			if (compare == 0) {
 				// ClientID and all data matches
-				checkMissingLevel(dbList.get(dbListIdx), importStudent);
-				dbListIdx++;
+				checkMissingLevel(dbReader.next(), importStudent);
 				continue;
 
 			} else if (compare == -1) {
 				// Extra clientID in database
-				while (dbListIdx < dbListSize && dbList.get(dbListIdx).getClientID() < importStudent.getClientID()) {
+				while (dbReader.hasNext() && dbReader.peek().getClientID() < importStudent.getClientID()) {
 					// Mark student as not in master DB
-					if (dbList.get(dbListIdx).getIsInMasterDb() == 1)
-						updateIsInMasterDb(dbList.get(dbListIdx), 0);
-					dbListIdx++;
+					dbStudent = dbReader.next();
+					if (dbStudent.getIsInMasterDb() == 1)
+						removedList.add(dbStudent.getClientID());
 				}
-				if (dbListIdx < dbListSize) {
-					if (dbList.get(dbListIdx).getClientID() == importStudent.getClientID()) {
+				if (dbReader.hasNext()) {
+					if (dbReader.peek().getClientID() == importStudent.getClientID()) {
 						// Now that clientID's match, compare and update again
-						checkMissingLevel(dbList.get(dbListIdx), importStudent);
-						if (dbList.get(dbListIdx).compareTo(importStudent) != 0) {
-							updateStudent(importStudent, dbList.get(dbListIdx));
+						dbStudent = dbReader.next();
+						checkMissingLevel(dbStudent, importStudent);
+						if (compareStudent(dbStudent, importStudent) != 0) {
+							upsertList.add(prepareStudentUpdate(importStudent, dbStudent));
 						}
-						dbListIdx++;
 					} else {
 						// Import student is new, insert into DB
-						insertStudent(importStudent);
+						upsertList.add(new StudentUpsertRow(importStudent, true, true, "", 0));
 					}
 				} else {
 					// Import student is new, insert into DB
-					insertStudent(importStudent);
+					upsertList.add(new StudentUpsertRow(importStudent, true, true, "", 0));
 				}
 
 			} else if (compare == 1) {
 				// Insert new student into DB
-				insertStudent(importStudent);
+				upsertList.add(new StudentUpsertRow(importStudent, true, true, "", 0));
 
 			} else {
 				// ClientID matches but data has changed
-				checkMissingLevel(dbList.get(dbListIdx), importStudent);
-				updateStudent(importStudent, dbList.get(dbListIdx));
-				dbListIdx++;
+				dbStudent = dbReader.next();
+				checkMissingLevel(dbStudent, importStudent);
+				upsertList.add(prepareStudentUpdate(importStudent, dbStudent));
 			}
 		}
+		dbReader.close();
+
+		// Without the complete DB list, inserts and removals can't be trusted
+		if (dbReader.hasError()) {
+			System.out.println("importStudents: database read failed, " + upsertList.size() + " changes not written");
+			return false;
+		}
+
+		// Extra DB students are cleared together, new students inserted in chunks,
+		// and changed students get only their changed columns updated
+		boolean success = clearIsInMasterDb(removedList);
+		ArrayList<StudentUpsertRow> insertList = new ArrayList<StudentUpsertRow>();
+		ArrayList<StudentUpsertRow> updateList = new ArrayList<StudentUpsertRow>();
+		for (StudentUpsertRow row : upsertList) {
+			if (row.isInsert)
+				insertList.add(row);
+			else
+				updateList.add(row);
+		}
+
+		for (int i = 0; i < insertList.size(); i += MAX_STUDENT_UPSERT_ROWS) {
+			if (!upsertStudents(insertList.subList(i, Math.min(i + MAX_STUDENT_UPSERT_ROWS, insertList.size()))))
+				success = false;
+		}
+		if (!updateStudents(updateList))
+			success = false;
+		return success;
+	}
+
+	private int compareStudent(StudentImportModel dbStudent, StudentImportModel importStudent) {
+		if (dbStudent.getClientID() != importStudent.getClientID())
+			return dbStudent.compareTo(importStudent);
+
+		// Unchanged students are found by content hash, without comparing fields
+		long importHash = importStudent.getContentHash();
+		if (dbStudent.getStoredHash() != null && dbStudent.getStoredHash() == importHash)
+			return 0;
+
+		// Also update a student whose data matches but whose hash is missing or out of date
+		if (importStudent.getChangedFields(dbStudent) != 0 || contentHashEnabled)
+			return 2;
+		return 0;
+	}
+
+	private void checkContentHashColumn() {
+		// Content hash is only used once db/students_content_hash.sql has added the column;
+		// otherwise students are compared field by field
+		if (contentHashChecked)
+			return;
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				// If Database no longer connected, the exception code will re-connect
+				PreparedStatement selectStmt = getConnection()
+						.prepareStatement("SHOW COLUMNS FROM Students LIKE 'ContentHash';");
+				ResultSet result = selectStmt.executeQuery();
+				contentHashEnabled = result.next();
+				result.close();
+				selectStmt.close();
+				break;
+
+			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+				if (i == 0) {
+					// First attempt to re-connect
+					System.out.println("checkContentHashColumn: " + e1.getMessage() + ", " + e1);
+					reconnect();
+				}
+
+			} catch (SQLException | NullPointerException e2) {
+				e2.printStackTrace();
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
+						": " + e2.getMessage());
+				break;
+			}
+		}
+		contentHashChecked = true;
 	}
 
 	private void checkMissingLevel(StudentImportModel dbStudent, StudentImportModel importStudent) {
@@ -154,7 +354,7 @@ public class MySqlDbImports {
 			String currLevel = "";
 			if (!dbStudent.getCurrLevel().equals(""))
 				currLevel = " (student level " + dbStudent.getCurrLevel() + ")";
-			MySqlDbLogging.insertLogData(LogDataModel.MISSING_CURRENT_LEVEL,
+			LogBatchWriter.insertLogData(LogDataModel.MISSING_CURRENT_LEVEL,
 					new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
 					importStudent.getClientID(), currLevel);
 		}
@@ -170,51 +370,57 @@ public class MySqlDbImports {
 
 	private void logMissingStudentData(StudentImportModel importStudent) {
 		if (importStudent.getIsInMasterDb() == 1 && importStudent.getBirthDate().equals(""))
-			MySqlDbLogging.insertLogData(LogDataModel.MISSING_BIRTHDATE,
+			LogBatchWriter.insertLogData(LogDataModel.MISSING_BIRTHDATE,
 					new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
 					importStudent.getClientID(), "");
 
 		if (importStudent.getGradYear() == 0)
-			MySqlDbLogging.insertLogData(LogDataModel.MISSING_GRAD_YEAR,
+			LogBatchWriter.insertLogData(LogDataModel.MISSING_GRAD_YEAR,
 					new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
 					importStudent.getClientID(), "");
 
 		if (importStudent.getHomeLocation() == 0) {
 			if (importStudent.getHomeLocAsString().equals(""))
-				MySqlDbLogging.insertLogData(LogDataModel.MISSING_HOME_LOCATION,
+				LogBatchWriter.insertLogData(LogDataModel.MISSING_HOME_LOCATION,
 						new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
 						importStudent.getClientID(), "");
 			else
-				MySqlDbLogging.insertLogData(LogDataModel.UNKNOWN_HOME_LOCATION,
+				LogBatchWriter.insertLogData(LogDataModel.UNKNOWN_HOME_LOCATION,
 						new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
 						importStudent.getClientID(), " (" + importStudent.getHomeLocAsString() + ")");
 		}
 
 		if (importStudent.getGender() == GenderModel.getGenderUnknown())
-			MySqlDbLogging.insertLogData(LogDataModel.MISSING_GENDER,
+			LogBatchWriter.insertLogData(LogDataModel.MISSING_GENDER,
 					new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
 					importStudent.getClientID(), "");
 	}
 
-	private ArrayList<StudentImportModel> getAllStudentsAsImportData() {
-		ArrayList<StudentImportModel> nameList = new ArrayList<StudentImportModel>();
+	private DbRowReader<StudentImportModel> readStudentsAsImportData(ArrayList<Integer> clientIDs) {
+		if (clientIDs != null && clientIDs.size() == 0)
+			return new DbRowReader<StudentImportModel>(null, null, null, LogDataModel.STUDENT_DB_ERROR);
 
-		// Convert student data to import data format
-		for (int i = 0; i < 2; i++) {
-			try {
-				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement selectStmt = sqlDb.dbConnection
-						.prepareStatement("SELECT * FROM Students ORDER BY ClientID;");
-				ResultSet result = selectStmt.executeQuery();
+		// Get all students, or only those in client ID list
+		String whereClause = "";
+		if (clientIDs != null) {
+			StringBuilder params = new StringBuilder();
+			for (int j = 0; j < clientIDs.size(); j++)
+				params.append(j == 0 ? "?" : ",?");
+			whereClause = "WHERE ClientID IN (" + params + ") ";
+		}
 
-				while (result.next()) {
+		// Convert student data to import data format
+		return openReader("readStudentsAsImportData",
+				"SELECT " + STUDENT_IMPORT_COLUMNS + (contentHashEnabled ? ", ContentHash" : "") + " FROM Students "
+						+ whereClause + "ORDER BY ClientID;",
+				LogDataModel.STUDENT_DB_ERROR, (ResultSet result) -> {
 					String startDateString;
 					if (result.getDate("StartDate") == null)
 						startDateString = "";
 					else
 						startDateString = result.getDate("StartDate").toString();
 
-					nameList.add(new StudentImportModel(result.getInt("ClientID"), result.getString("LastName"),
+					StudentImportModel student = new StudentImportModel(result.getInt("ClientID"), result.getString("LastName"),
 							result.getString("FirstName"), result.getString("GithubName"), result.getInt("Gender"),
 							startDateString, result.getInt("Location"), result.getInt("GradYear"),
 							result.getInt("isInMasterDb"), result.getString("Email"), result.getString("AcctMgrEmail"),
@@ -223,8 +429,31 @@ public class MySqlDbImports {
 							result.getString("EmergencyPhone"), result.getString("Birthdate"),
 							result.getString("TASinceDate"), result.getInt("TAPastEvents"),
 							result.getString("CurrentLevel"), result.getString("CurrentClass"),
-							result.getString("LastScore"), result.getString("RegisterClass")));
-				}
+							result.getString("LastScore"), result.getString("RegisterClass"));
+
+					if (contentHashEnabled) {
+						long storedHash = result.getLong("ContentHash");
+						if (!result.wasNull())
+							student.setStoredHash(storedHash);
+					}
+					return student;
+				}, clientIDs == null ? new Object[0] : clientIDs.toArray());
+	}
+
+	public SyncWatermarkModel getSyncWatermark(String dataset) {
+		SyncWatermarkModel watermark = null;
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				// If Database no longer connected, the exception code will re-connect
+				PreparedStatement selectStmt = getConnection()
+						.prepareStatement("SELECT * FROM SyncWatermarks WHERE Dataset=?;");
+				selectStmt.setString(1, dataset);
+				ResultSet result = selectStmt.executeQuery();
+
+				if (result.next())
+					watermark = new SyncWatermarkModel(dataset, result.getString("LastSync"),
+							result.getString("LastFullSync"));
 
 				result.close();
 				selectStmt.close();
@@ -233,299 +462,389 @@ public class MySqlDbImports {
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
-					System.out.println("getAllStudentsAsImportData: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					System.out.println("getSyncWatermark: " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e2.getMessage());
 				break;
 			}
 		}
-		return nameList;
+		return watermark;
 	}
 
-	private void insertStudent(StudentImportModel student) {
+	public void updateSyncWatermark(String dataset, String syncTime, boolean fullSync) {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement addStudentStmt = sqlDb.dbConnection.prepareStatement(
-						"INSERT INTO Students (ClientID, LastName, FirstName, GithubName, NewGithub, NewStudent, "
-								+ "Gender, StartDate, Location, GradYear, isInMasterDb, Email, EmergencyEmail, "
-								+ "AcctMgrEmail, Phone, AcctMgrPhone, HomePhone, EmergencyPhone, Birthdate, "
-								+ "TASinceDate, TAPastEvents, CurrentLevel) "
-								+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
+				PreparedStatement updateStmt;
+				if (fullSync) {
+					updateStmt = getConnection().prepareStatement("INSERT INTO SyncWatermarks "
+							+ "(Dataset, LastSync, LastFullSync) VALUES (?, ?, ?) "
+							+ "ON DUPLICATE KEY UPDATE LastSync=VALUES(LastSync), LastFullSync=VALUES(LastFullSync);");
+					updateStmt.setString(3, syncTime);
+				} else {
+					updateStmt = getConnection().prepareStatement("INSERT INTO SyncWatermarks "
+							+ "(Dataset, LastSync) VALUES (?, ?) ON DUPLICATE KEY UPDATE LastSync=VALUES(LastSync);");
+				}
+				updateStmt.setString(1, dataset);
+				updateStmt.setString(2, syncTime);
 
-				int col = 1;
-				addStudentStmt.setInt(col++, student.getClientID());
-				addStudentStmt.setString(col++, student.getLastName());
-				addStudentStmt.setString(col++, student.getFirstName());
-				if (student.getGithubName().equals(""))
-					addStudentStmt.setString(col++, null);
-				else
-					addStudentStmt.setString(col++, student.getGithubName());
-				addStudentStmt.setInt(col++, 0);
-				addStudentStmt.setInt(col++, 1);
-				addStudentStmt.setInt(col++, student.getGender());
-				if (!student.getStartDate().equals(""))
-					addStudentStmt.setDate(col++, java.sql.Date.valueOf(student.getStartDate()));
-				else
-					addStudentStmt.setDate(col++, null);
-				addStudentStmt.setInt(col++, student.getHomeLocation());
-				addStudentStmt.setInt(col++, student.getGradYear());
-				addStudentStmt.setString(col++, student.getEmail());
-				addStudentStmt.setString(col++, student.getEmergContactEmail());
-				addStudentStmt.setString(col++, student.getAccountMgrEmails());
-				addStudentStmt.setString(col++, student.getPhone1());
-				addStudentStmt.setString(col++, student.getAccountMgrPhones());
-				addStudentStmt.setString(col++, student.getPhone2());
-				addStudentStmt.setString(col++, student.getEmergContactPhone());
-				addStudentStmt.setString(col++, student.getBirthDate());
-				addStudentStmt.setString(col++, student.getStaffSinceDate());
-				addStudentStmt.setInt(col++, student.getStaffPastEvents());
-				addStudentStmt.setString(col++, student.getCurrLevel());
-
-				addStudentStmt.executeUpdate();
-				addStudentStmt.close();
-
-				if (student.getGithubName() == null)
-					System.out.println("Added new student: " + student.getFirstName() + " " + student.getLastName());
-//					MySqlDbLogging.insertLogData(LogDataModel.ADD_NEW_STUDENT_NO_GITHUB,
-//							new StudentNameModel(student.getFirstName(), student.getLastName(), true),
-//							student.getClientID(), "");
-				else
-					System.out.println("Added new student (no Github): " + student.getFirstName() + " " + student.getLastName());
-//					MySqlDbLogging.insertLogData(LogDataModel.ADD_NEW_STUDENT,
-//							new StudentNameModel(student.getFirstName(), student.getLastName(), true),
-//							student.getClientID(), "");
+				updateStmt.executeUpdate();
+				updateStmt.close();
 				break;
 
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
-					System.out.println("insertStudent: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					System.out.println("updateSyncWatermark: " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				StudentNameModel studentModel = new StudentNameModel(student.getFirstName(), student.getLastName(),
-						student.getIsInMasterDb() == 1 ? true : false);
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, studentModel, 0, ": " + e2.getMessage());
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
+						": " + e2.getMessage());
 				break;
 			}
 		}
 	}
 
-	private void updateStudent(StudentImportModel importStudent, StudentImportModel dbStudent) {
-		for (int i = 0; i < 2; i++) {
-			// Before updating database, determine what fields have changed
-			String changedFields = getStudentChangedFields(importStudent, dbStudent);
-			boolean newStudent = false;
-
-			// If student added back to DB, mark as new
-			if (changedFields.contains("Added back"))
-				newStudent = true;
-
-			// If student level just changed, clear module field and graduate student
-			if (changedFields.contains("Current Level") || changedFields.contains("Exam Score")) {
-				updateLastEventInfoByStudent(dbStudent.getClientID(), null, null, "NULL");
-				graduateStudent(importStudent, dbStudent);
-			}
+	private StudentUpsertRow prepareStudentUpdate(StudentImportModel importStudent, StudentImportModel dbStudent) {
+		// Before updating database, determine what fields have changed
+		String changedFields = getStudentChangedFields(importStudent.getChangedFields(dbStudent), importStudent);
 
+		// If student level just changed, clear module field and graduate student
+		if (changedFields.contains("Current Level") || changedFields.contains("Exam Score")) {
+			updateLastEventInfoByStudent(dbStudent.getClientID(), null, null, "NULL");
+			graduateStudent(importStudent, dbStudent);
+		}
+
+		// If student added back to DB, mark as new. Graduation may reset the level, so compare again.
+		return new StudentUpsertRow(importStudent, false, changedFields.contains("Added back"), changedFields,
+				importStudent.getChangedFields(dbStudent));
+	}
+
+	private boolean upsertStudents(List<StudentUpsertRow> upsertList) {
+		if (upsertList.size() == 0)
+			return true;
+
+		// One multi-row statement inserts new students and updates changed ones.
+		// Exam score is only saved once a student is in the database.
+		StringBuilder values = new StringBuilder();
+		for (int j = 0; j < upsertList.size(); j++) {
+			values.append(j == 0 ? STUDENT_UPSERT_VALUES : "," + STUDENT_UPSERT_VALUES);
+			values.append(upsertList.get(j).isInsert ? "DEFAULT" : "?");
+			values.append(contentHashEnabled ? ", ?)" : ")");
+		}
+
+		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateStudentStmt = sqlDb.dbConnection.prepareStatement(
-						"UPDATE Students SET LastName=?, FirstName=?, GithubName=?, NewGithub=?, NewStudent=?,"
-								+ "Gender=?, StartDate=?, Location=?, GradYear=?, isInMasterDb=?, Email=?,"
-								+ "EmergencyEmail=?, AcctMgrEmail=?, Phone=?, AcctMgrPhone=?, HomePhone=?, "
-								+ "EmergencyPhone=?, Birthdate=?, TASinceDate=?, TAPastEvents=?, CurrentLevel=?, "
-								+ "LastScore=? WHERE ClientID=?;");
+				PreparedStatement upsertStmt = getConnection()
+						.prepareStatement(STUDENT_UPSERT_INSERT + (contentHashEnabled ? ", ContentHash" : "") + ") VALUES "
+								+ values + STUDENT_UPSERT_UPDATE
+								+ (contentHashEnabled ? ", ContentHash=VALUES(ContentHash);" : ";"));
 
 				int col = 1;
-				updateStudentStmt.setString(col++, importStudent.getLastName());
-				updateStudentStmt.setString(col++, importStudent.getFirstName());
-				if (importStudent.getGithubName().equals(""))
-					updateStudentStmt.setString(col++, null);
-				else
-					updateStudentStmt.setString(col++, importStudent.getGithubName());
-				updateStudentStmt.setInt(col++, 0);
-				updateStudentStmt.setInt(col++, newStudent ? 1 : 0);
-				updateStudentStmt.setInt(col++, importStudent.getGender());
-				if (importStudent.getStartDate() != null && !importStudent.getStartDate().equals(""))
-					updateStudentStmt.setDate(col++, java.sql.Date.valueOf(importStudent.getStartDate()));
-				else {
-					updateStudentStmt.setDate(col++, null);
-				}
-				updateStudentStmt.setInt(col++, importStudent.getHomeLocation());
-				updateStudentStmt.setInt(col++, importStudent.getGradYear());
-				updateStudentStmt.setInt(col++, 1); // is in master DB
-				updateStudentStmt.setString(col++, importStudent.getEmail());
-				updateStudentStmt.setString(col++, importStudent.getEmergContactEmail());
-				updateStudentStmt.setString(col++, importStudent.getAccountMgrEmails());
-				updateStudentStmt.setString(col++, importStudent.getPhone1());
-				updateStudentStmt.setString(col++, importStudent.getAccountMgrPhones());
-				updateStudentStmt.setString(col++, importStudent.getPhone2());
-				updateStudentStmt.setString(col++, importStudent.getEmergContactPhone());
-				updateStudentStmt.setString(col++, importStudent.getBirthDate());
-				updateStudentStmt.setString(col++, importStudent.getStaffSinceDate());
-				updateStudentStmt.setInt(col++, importStudent.getStaffPastEvents());
-				updateStudentStmt.setString(col++, importStudent.getCurrLevel());
-				updateStudentStmt.setString(col++, importStudent.getLastExamScore());
-				updateStudentStmt.setInt(col, importStudent.getClientID());
+				for (StudentUpsertRow row : upsertList)
+					col = setStudentUpsertParams(upsertStmt, col, row);
 
-				updateStudentStmt.executeUpdate();
-				updateStudentStmt.close();
+				upsertStmt.executeUpdate();
+				upsertStmt.close();
 
-				if (!changedFields.equals(""))
-					System.out.println("Updated " + importStudent.getFirstName() + " " + importStudent.getLastName() 
-							+ " " + changedFields);
-//					MySqlDbLogging.insertLogData(LogDataModel.UPDATE_STUDENT_INFO,
-//							new StudentNameModel(importStudent.getFirstName(), importStudent.getLastName(), true),
-//							importStudent.getClientID(), changedFields);
-				break;
+				for (StudentUpsertRow row : upsertList)
+					printStudentUpsert(row);
+				return true;
 
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
-					System.out.println("updateStudent: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					System.out.println("upsertStudents: " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
+				// Send rows individually to isolate the error
+				if (upsertList.size() > 1) {
+					boolean success = true;
+					for (StudentUpsertRow row : upsertList) {
+						if (!upsertStudents(Collections.singletonList(row)))
+							success = false;
+					}
+					return success;
+				}
+
 				e2.printStackTrace();
-				StudentNameModel studentModel = new StudentNameModel(importStudent.getFirstName(),
-						importStudent.getLastName(), true);
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, studentModel, 0, ": " + e2.getMessage());
+				StudentImportModel student = upsertList.get(0).student;
+				StudentNameModel studentModel = new StudentNameModel(student.getFirstName(), student.getLastName(),
+						true);
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, studentModel, 0, ": " + e2.getMessage());
 				break;
 			}
 		}
+		return false;
 	}
 
-	private String getStudentChangedFields(StudentImportModel importStudent, StudentImportModel dbStudent) {
-		String changes = "";
+	private int setStudentUpsertParams(PreparedStatement upsertStmt, int col, StudentUpsertRow row)
+			throws SQLException {
+		StudentImportModel student = row.student;
 
-		if (!importStudent.getFirstName().equals(dbStudent.getFirstName())) {
-			if (changes.equals(""))
-				changes += " (first name";
-			else
-				changes += ", first name";
-		}
-		if (!importStudent.getLastName().equals(dbStudent.getLastName())) {
-			if (changes.equals(""))
-				changes += " (last name";
-			else
-				changes += ", last name";
-		}
-		if (importStudent.getGender() != dbStudent.getGender()) {
-			if (changes.equals(""))
-				changes += " (gender";
-			else
-				changes += ", gender";
-		}
-		if (!importStudent.getGithubName().equals(dbStudent.getGithubName())) {
-			if (changes.equals(""))
-				changes += " (Github user";
-			else
-				changes += ", Github user";
-		}
-		if (importStudent.getGradYear() != dbStudent.getGradYear()) {
-			if (changes.equals(""))
-				changes += " (Grad year";
-			else
-				changes += ", Grad year";
-		}
-		if (importStudent.getHomeLocation() != dbStudent.getHomeLocation()) {
-			if (changes.equals(""))
-				changes += " (Home Location";
-			else
-				changes += ", Home Location";
-		}
-		if (!importStudent.getStartDate().equals(dbStudent.getStartDate())) {
-			if (changes.equals(""))
-				changes += " (Start Date";
-			else
-				changes += ", Start Date";
-		}
-		if (!importStudent.getPhone1().equals(dbStudent.getPhone1())) {
-			if (changes.equals(""))
-				changes += " (Mobile phone";
-			else
-				changes += ", Mobile phone";
-		}
-		if (!importStudent.getAccountMgrPhones().equals(dbStudent.getAccountMgrPhones())) {
-			if (changes.equals(""))
-				changes += " (Acct mgr phone";
-			else
-				changes += ", Acct mgr phone";
-		}
-		if (!importStudent.getPhone2().equals(dbStudent.getPhone2())) {
-			if (changes.equals(""))
-				changes += " (Home phone";
-			else
-				changes += ", Home phone";
-		}
-		if (!importStudent.getEmergContactPhone().equals(dbStudent.getEmergContactPhone())) {
-			if (changes.equals(""))
-				changes += " (Emerg phone";
-			else
-				changes += ", Emerg phone";
-		}
-		if (!importStudent.getEmail().equals(dbStudent.getEmail())) {
-			if (changes.equals(""))
-				changes += " (Student email";
-			else
-				changes += ", Student email";
-		}
-		if (!importStudent.getAccountMgrEmails().equals(dbStudent.getAccountMgrEmails())) {
-			if (changes.equals(""))
-				changes += " (Acct Mgr email";
-			else
-				changes += ", Acct Mgr email";
-		}
-		if (!importStudent.getEmergContactEmail().equals(dbStudent.getEmergContactEmail())) {
-			if (changes.equals(""))
-				changes += " (Emerg email";
+		upsertStmt.setInt(col++, student.getClientID());
+		upsertStmt.setString(col++, student.getLastName());
+		upsertStmt.setString(col++, student.getFirstName());
+		if (student.getGithubName().equals(""))
+			upsertStmt.setString(col++, null);
+		else
+			upsertStmt.setString(col++, student.getGithubName());
+		upsertStmt.setInt(col++, 0);
+		upsertStmt.setInt(col++, row.newStudent ? 1 : 0);
+		upsertStmt.setInt(col++, student.getGender());
+		if (student.getStartDate() != null && !student.getStartDate().equals(""))
+			upsertStmt.setDate(col++, java.sql.Date.valueOf(student.getStartDate()));
+		else
+			upsertStmt.setDate(col++, null);
+		upsertStmt.setInt(col++, student.getHomeLocation());
+		upsertStmt.setInt(col++, student.getGradYear());
+		upsertStmt.setInt(col++, 1); // is in master DB
+		upsertStmt.setString(col++, student.getEmail());
+		upsertStmt.setString(col++, student.getEmergContactEmail());
+		upsertStmt.setString(col++, student.getAccountMgrEmails());
+		upsertStmt.setString(col++, student.getPhone1());
+		upsertStmt.setString(col++, student.getAccountMgrPhones());
+		upsertStmt.setString(col++, student.getPhone2());
+		upsertStmt.setString(col++, student.getEmergContactPhone());
+		upsertStmt.setString(col++, student.getBirthDate());
+		upsertStmt.setString(col++, student.getStaffSinceDate());
+		upsertStmt.setInt(col++, student.getStaffPastEvents());
+		upsertStmt.setString(col++, student.getCurrLevel());
+		if (!row.isInsert)
+			upsertStmt.setString(col++, student.getLastExamScore());
+		if (contentHashEnabled) {
+			// A new student's exam score is saved on the next run, so the hash waits for it
+			if (row.isInsert && student.getLastExamScore() != null && !student.getLastExamScore().equals(""))
+				upsertStmt.setNull(col++, java.sql.Types.BIGINT);
 			else
-				changes += ", Emerg email";
+				upsertStmt.setLong(col++, student.getContentHash());
 		}
-		if (importStudent.getIsInMasterDb() != dbStudent.getIsInMasterDb()) {
-			if (changes.equals(""))
-				changes += " (Added back to Master DB";
+		return col;
+	}
+
+	private void printStudentUpsert(StudentUpsertRow row) {
+		StudentImportModel student = row.student;
+
+		if (row.isInsert) {
+			if (student.getGithubName() == null)
+				System.out.println("Added new student: " + student.getFirstName() + " " + student.getLastName());
 			else
-				changes += ", Added back to Master DB";
+				System.out.println("Added new student (no Github): " + student.getFirstName() + " "
+						+ student.getLastName());
+
+		} else if (!row.changedFields.equals(""))
+			System.out.println("Updated " + student.getFirstName() + " " + student.getLastName() + " "
+					+ row.changedFields);
+	}
+
+	private boolean updateStudents(ArrayList<StudentUpsertRow> updateList) {
+		// Students with the same changed columns share an update statement
+		LinkedHashMap<String, ArrayList<StudentUpsertRow>> updateGroups = new LinkedHashMap<String, ArrayList<StudentUpsertRow>>();
+		for (StudentUpsertRow row : updateList) {
+			String sql = getStudentUpdateSql(row.changedMask);
+			ArrayList<StudentUpsertRow> group = updateGroups.get(sql);
+			if (group == null) {
+				group = new ArrayList<StudentUpsertRow>();
+				updateGroups.put(sql, group);
+			}
+			group.add(row);
 		}
-		if (!importStudent.getBirthDate().equals(dbStudent.getBirthDate())) {
-			if (changes.equals(""))
-				changes += " (Birthdate";
-			else
-				changes += ", Birthdate";
+
+		boolean success = true;
+		for (Map.Entry<String, ArrayList<StudentUpsertRow>> group : updateGroups.entrySet()) {
+			ArrayList<StudentUpsertRow> rows = group.getValue();
+			for (int i = 0; i < rows.size(); i += MAX_STUDENT_UPSERT_ROWS) {
+				if (!updateStudentBatch(group.getKey(), rows.subList(i, Math.min(i + MAX_STUDENT_UPSERT_ROWS, rows.size()))))
+					success = false;
+			}
 		}
-		if (!importStudent.getStaffSinceDate().equals(dbStudent.getStaffSinceDate())) {
-			if (changes.equals(""))
-				changes += " (TA since date";
-			else
-				changes += ", TA since date";
+		return success;
+	}
+
+	private String getStudentUpdateSql(int changedMask) {
+		// Only a missing or stale content hash to be written
+		if (changedMask == 0)
+			return "UPDATE Students SET ContentHash=? WHERE ClientID=?;";
+
+		StringBuilder sql = new StringBuilder("UPDATE Students SET NewGithub=0, NewStudent=?");
+		for (int bit = 0; bit < STUDENT_FIELD_COLUMNS.length; bit++) {
+			if ((changedMask & (1 << bit)) != 0)
+				sql.append(", ").append(STUDENT_FIELD_COLUMNS[bit]).append("=?");
 		}
-		if (!importStudent.getCurrLevel().equals(dbStudent.getCurrLevel())) {
-			if (changes.equals(""))
-				changes += " (Current Level " + importStudent.getCurrLevel();
-			else
-				changes += ", Current Level " + importStudent.getCurrLevel();
+		if (contentHashEnabled)
+			sql.append(", ContentHash=?");
+		return sql.append(" WHERE ClientID=?;").toString();
+	}
+
+	private boolean updateStudentBatch(String sql, List<StudentUpsertRow> rows) {
+		for (int i = 0; i < 2; i++) {
+			try {
+				// If Database no longer connected, the exception code will re-connect
+				getConnection().unwrap(com.mysql.jdbc.Connection.class).setRewriteBatchedStatements(true);
+				PreparedStatement updateStudentStmt = getConnection().prepareStatement(sql);
+				for (StudentUpsertRow row : rows) {
+					setStudentUpdateParams(updateStudentStmt, row);
+					updateStudentStmt.addBatch();
+				}
+
+				updateStudentStmt.executeBatch();
+				updateStudentStmt.close();
+
+				for (StudentUpsertRow row : rows)
+					printStudentUpsert(row);
+				return true;
+
+			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+				if (i == 0) {
+					// First attempt to re-connect
+					System.out.println("updateStudentBatch: " + e1.getMessage() + ", " + e1);
+					reconnect();
+				}
+
+			} catch (SQLException | NullPointerException e2) {
+				// Send rows individually to isolate the error
+				if (rows.size() > 1) {
+					boolean success = true;
+					for (StudentUpsertRow row : rows) {
+						if (!updateStudentBatch(sql, Collections.singletonList(row)))
+							success = false;
+					}
+					return success;
+				}
+
+				e2.printStackTrace();
+				StudentImportModel student = rows.get(0).student;
+				StudentNameModel studentModel = new StudentNameModel(student.getFirstName(), student.getLastName(),
+						true);
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, studentModel, 0, ": " + e2.getMessage());
+				break;
+			}
 		}
-		if (!importStudent.getLastExamScore().equals(dbStudent.getLastExamScore())) {
-			if (changes.equals(""))
-				changes += " (Last Exam Score " + importStudent.getLastExamScore();
-			else
-				changes += ", Last Exam Score " + importStudent.getLastExamScore();
+		return false;
+	}
+
+	private void setStudentUpdateParams(PreparedStatement updateStudentStmt, StudentUpsertRow row)
+			throws SQLException {
+		StudentImportModel student = row.student;
+		int col = 1;
+
+		if (row.changedMask != 0) {
+			updateStudentStmt.setInt(col++, row.newStudent ? 1 : 0);
+			for (int bit = 0; bit < STUDENT_FIELD_COLUMNS.length; bit++) {
+				if ((row.changedMask & (1 << bit)) != 0)
+					updateStudentStmt.setObject(col++, getStudentFieldValue(student, 1 << bit));
+			}
 		}
+		if (contentHashEnabled)
+			updateStudentStmt.setLong(col++, student.getContentHash());
+		updateStudentStmt.setInt(col, student.getClientID());
+	}
 
-		if (!changes.equals(""))
-			changes += ")";
+	private Object getStudentFieldValue(StudentImportModel student, int field) {
+		// Database value of one changed-field mask bit
+		switch (field) {
+		case StudentImportModel.LAST_NAME_FIELD:
+			return student.getLastName();
+		case StudentImportModel.FIRST_NAME_FIELD:
+			return student.getFirstName();
+		case StudentImportModel.GITHUB_NAME_FIELD:
+			return student.getGithubName().equals("") ? null : student.getGithubName();
+		case StudentImportModel.START_DATE_FIELD:
+			if (student.getStartDate() == null || student.getStartDate().equals(""))
+				return null;
+			return java.sql.Date.valueOf(student.getStartDate());
+		case StudentImportModel.HOME_LOCATION_FIELD:
+			return student.getHomeLocation();
+		case StudentImportModel.GENDER_FIELD:
+			return student.getGender();
+		case StudentImportModel.GRAD_YEAR_FIELD:
+			return student.getGradYear();
+		case StudentImportModel.IN_MASTER_DB_FIELD:
+			return 1;
+		case StudentImportModel.EMAIL_FIELD:
+			return student.getEmail();
+		case StudentImportModel.EMERG_EMAIL_FIELD:
+			return student.getEmergContactEmail();
+		case StudentImportModel.ACCT_MGR_EMAIL_FIELD:
+			return student.getAccountMgrEmails();
+		case StudentImportModel.PHONE1_FIELD:
+			return student.getPhone1();
+		case StudentImportModel.ACCT_MGR_PHONE_FIELD:
+			return student.getAccountMgrPhones();
+		case StudentImportModel.PHONE2_FIELD:
+			return student.getPhone2();
+		case StudentImportModel.EMERG_PHONE_FIELD:
+			return student.getEmergContactPhone();
+		case StudentImportModel.BIRTH_DATE_FIELD:
+			return student.getBirthDate();
+		case StudentImportModel.STAFF_SINCE_FIELD:
+			return student.getStaffSinceDate();
+		case StudentImportModel.STAFF_PAST_EVENTS_FIELD:
+			return student.getStaffPastEvents();
+		case StudentImportModel.CURR_LEVEL_FIELD:
+			return student.getCurrLevel();
+		default:
+			return student.getLastExamScore();
+		}
+	}
 
-		return changes;
+	private String getStudentChangedFields(int changedMask, StudentImportModel importStudent) {
+		// Describe the changed fields, in the order shown in the import output
+		ArrayList<String> changes = new ArrayList<String>();
+
+		if ((changedMask & StudentImportModel.FIRST_NAME_FIELD) != 0)
+			changes.add("first name");
+		if ((changedMask & StudentImportModel.LAST_NAME_FIELD) != 0)
+			changes.add("last name");
+		if ((changedMask & StudentImportModel.GENDER_FIELD) != 0)
+			changes.add("gender");
+		if ((changedMask & StudentImportModel.GITHUB_NAME_FIELD) != 0)
+			changes.add("Github user");
+		if ((changedMask & StudentImportModel.GRAD_YEAR_FIELD) != 0)
+			changes.add("Grad year");
+		if ((changedMask & StudentImportModel.HOME_LOCATION_FIELD) != 0)
+			changes.add("Home Location");
+		if ((changedMask & StudentImportModel.START_DATE_FIELD) != 0)
+			changes.add("Start Date");
+		if ((changedMask & StudentImportModel.PHONE1_FIELD) != 0)
+			changes.add("Mobile phone");
+		if ((changedMask & StudentImportModel.ACCT_MGR_PHONE_FIELD) != 0)
+			changes.add("Acct mgr phone");
+		if ((changedMask & StudentImportModel.PHONE2_FIELD) != 0)
+			changes.add("Home phone");
+		if ((changedMask & StudentImportModel.EMERG_PHONE_FIELD) != 0)
+			changes.add("Emerg phone");
+		if ((changedMask & StudentImportModel.EMAIL_FIELD) != 0)
+			changes.add("Student email");
+		if ((changedMask & StudentImportModel.ACCT_MGR_EMAIL_FIELD) != 0)
+			changes.add("Acct Mgr email");
+		if ((changedMask & StudentImportModel.EMERG_EMAIL_FIELD) != 0)
+			changes.add("Emerg email");
+		if ((changedMask & StudentImportModel.IN_MASTER_DB_FIELD) != 0)
+			changes.add("Added back to Master DB");
+		if ((changedMask & StudentImportModel.BIRTH_DATE_FIELD) != 0)
+			changes.add("Birthdate");
+		if ((changedMask & StudentImportModel.STAFF_SINCE_FIELD) != 0)
+			changes.add("TA since date");
+		if ((changedMask & StudentImportModel.CURR_LEVEL_FIELD) != 0)
+			changes.add("Current Level " + importStudent.getCurrLevel());
+		if ((changedMask & StudentImportModel.LAST_EXAM_SCORE_FIELD) != 0)
+			changes.add("Last Exam Score " + importStudent.getLastExamScore());
+
+		if (changes.size() == 0)
+			return "";
+		return " (" + String.join(", ", changes) + ")";
 	}
 
 	public ArrayList<StudentModel> getStudentsUsingFlag(String flagName) {
@@ -535,7 +854,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement selectStmt = sqlDb.dbConnection
+				PreparedStatement selectStmt = getConnection()
 						.prepareStatement("SELECT * FROM Students WHERE " + flagName + " = 1;");
 
 				ResultSet result = selectStmt.executeQuery();
@@ -561,12 +880,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("getStudentsUsingFlag: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e2.getMessage());
 				break;
 			}
@@ -578,7 +897,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateStudentStmt = sqlDb.dbConnection
+				PreparedStatement updateStudentStmt = getConnection()
 						.prepareStatement("UPDATE Students SET " + flagName + "=? WHERE ClientID=?;");
 
 				updateStudentStmt.setInt(1, newFlagState);
@@ -592,27 +911,36 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateStudentFlags: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, student.getNameModel(),
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, student.getNameModel(),
 						student.getClientID(), ": " + e2.getMessage());
 				break;
 			}
 		}
 	}
 
-	private void updateIsInMasterDb(StudentImportModel student, int isInMasterDb) {
+	public void updateStudentFlags(ArrayList<StudentModel> students, String flagName, int newFlagState) {
+		if (students.size() == 0)
+			return;
+
+		// Update flag for all students in a single statement
+		StringBuilder params = new StringBuilder();
+		for (int j = 0; j < students.size(); j++)
+			params.append(j == 0 ? "?" : ",?");
+
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateStudentStmt = sqlDb.dbConnection
-						.prepareStatement("UPDATE Students SET isInMasterDb=? WHERE ClientID=?;");
+				PreparedStatement updateStudentStmt = getConnection().prepareStatement(
+						"UPDATE Students SET " + flagName + "=? WHERE ClientID IN (" + params + ");");
 
-				updateStudentStmt.setInt(1, isInMasterDb);
-				updateStudentStmt.setInt(2, student.getClientID());
+				updateStudentStmt.setInt(1, newFlagState);
+				for (int j = 0; j < students.size(); j++)
+					updateStudentStmt.setInt(j + 2, students.get(j).getClientID());
 
 				updateStudentStmt.executeUpdate();
 				updateStudentStmt.close();
@@ -621,19 +949,57 @@ public class MySqlDbImports {
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
-					System.out.println("updateIsInMasterDb: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					System.out.println("updateStudentFlags: " + e1.getMessage() + ", " + e1);
+					reconnect();
+				}
+
+			} catch (SQLException | NullPointerException e2) {
+				e2.printStackTrace();
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
+						": " + e2.getMessage() + " (" + students.size() + " students)");
+				break;
+			}
+		}
+	}
+
+	public boolean clearIsInMasterDb(List<Integer> removedList) {
+		// Mark students as no longer in the master DB; returns false on error
+		if (removedList.size() == 0)
+			return true;
+
+		StringBuilder params = new StringBuilder();
+		for (int j = 0; j < removedList.size(); j++)
+			params.append(j == 0 ? "?" : ",?");
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				// If Database no longer connected, the exception code will re-connect
+				PreparedStatement updateStudentStmt = getConnection()
+						.prepareStatement("UPDATE Students SET isInMasterDb=0" + (contentHashEnabled ? ", ContentHash=NULL" : "")
+								+ " WHERE ClientID IN (" + params + ");");
+
+				for (int j = 0; j < removedList.size(); j++)
+					updateStudentStmt.setInt(j + 1, removedList.get(j));
+
+				updateStudentStmt.executeUpdate();
+				updateStudentStmt.close();
+				return true;
+
+			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+				if (i == 0) {
+					// First attempt to re-connect
+					System.out.println("clearIsInMasterDb: " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				StudentNameModel model = new StudentNameModel(student.getFirstName(), student.getLastName(),
-						(isInMasterDb == 1) ? true : false);
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, model, student.getClientID(),
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e2.getMessage());
 				break;
 			}
 		}
+		return false;
 	}
 
 	private void updateStudentLastVisit(StudentModel student, AttendanceEventModel importEvent) {
@@ -643,7 +1009,7 @@ public class MySqlDbImports {
 
 			// Report error if no current level (assume level 0)
 			if (student.getCurrentLevel().equals("")) {
-				MySqlDbLogging.insertLogData(LogDataModel.MISSING_CURRENT_LEVEL, student.getNameModel(),
+				LogBatchWriter.insertLogData(LogDataModel.MISSING_CURRENT_LEVEL, student.getNameModel(),
 						student.getClientID(), ", Assuming Level 0");
 			} else
 				levelChar = student.getCurrentLevel().charAt(0);
@@ -658,7 +1024,7 @@ public class MySqlDbImports {
 			// Check if attendance event matches student's current level
 			if (eventName.startsWith("Java") && (levelChar < '0' || levelChar > '8')) {
 				// Class mismatch
-				MySqlDbLogging.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH, student.getNameModel(),
+				LogBatchWriter.insertLogData(LogDataModel.CLASS_LEVEL_MISMATCH, student.getNameModel(),
 						importEvent.getClientID(), " for " + eventName + " on " + importEvent.getServiceDateString()
 								+ ", Pike13 Level = " + student.getCurrentLevel());
 			}
@@ -678,7 +1044,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement selectStmt = sqlDb.dbConnection
+				PreparedStatement selectStmt = getConnection()
 						.prepareStatement("SELECT CurrentLevel, CurrentModule FROM Students WHERE ClientID=?;");
 				selectStmt.setInt(1, clientID);
 				ResultSet result = selectStmt.executeQuery();
@@ -696,12 +1062,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("getStudentCurrentLevel: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e2.getMessage());
 				break;
 			}
@@ -793,7 +1159,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateStudentStmt = sqlDb.dbConnection
+				PreparedStatement updateStudentStmt = getConnection()
 						.prepareStatement("UPDATE Students SET " + updateFields + "WHERE ClientID=?;");
 
 				int col = 1;
@@ -813,12 +1179,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateLastEventInfoByStudent: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
 						clientID, ": " + e2.getMessage());
 				break;
 			}
@@ -831,106 +1197,32 @@ public class MySqlDbImports {
 	public ArrayList<AttendanceEventModel> getAllEvents(String startDate) {
 		ArrayList<AttendanceEventModel> eventList = new ArrayList<AttendanceEventModel>();
 
-		for (int i = 0; i < 2; i++) {
-			try {
-				// Get attendance data from the DB for all students
-				PreparedStatement selectStmt = sqlDb.dbConnection.prepareStatement(
-						"SELECT * FROM Attendance, Students WHERE Attendance.ClientID = Students.ClientID "
-								+ "AND (State = 'completed' OR State = 'registered') AND ServiceDate >= ? "
-								+ "ORDER BY Attendance.ClientID ASC, ServiceDate DESC, VisitID ASC;");
-				selectStmt.setString(1, startDate);
-				ResultSet result = selectStmt.executeQuery();
-
-				while (result.next()) {
-					eventList
-							.add(new AttendanceEventModel(result.getInt("ClientID"), result.getInt("VisitID"),
-									result.getDate("ServiceDate"), result.getString("ServiceTime"),
-									result.getString("EventName"), result.getString("GithubName"),
-									result.getString("RepoName"), result.getString("Comments"), result.getString("GitDescription"),
-									new StudentNameModel(result.getString("FirstName"), result.getString("LastName"),
-											true),
-									result.getString("ServiceCategory"), result.getString("State"),
-									result.getString("LastSFState"), result.getString("TeacherNames"),
-									result.getString("ClassLevel")));
-				}
-
-				result.close();
-				selectStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("getAllEvents: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
-						": " + e2.getMessage());
-				break;
-			}
-		}
+		DbRowReader<AttendanceEventModel> reader = readAllEvents(startDate);
+		while (reader.hasNext())
+			eventList.add(reader.next());
 		return eventList;
 	}
 
-	public ArrayList<AttendanceEventModel> getExpiredEvents(String sinceDate) {
-		ArrayList<AttendanceEventModel> eventList = new ArrayList<AttendanceEventModel>();
-
-		for (int i = 0; i < 2; i++) {
-			try {
-				// Get expired (not completed) attendance data
-				PreparedStatement selectStmt = sqlDb.dbConnection.prepareStatement(
-						"SELECT * FROM Attendance, Students WHERE Attendance.ClientID = Students.ClientID "
-								+ "AND State = 'registered' AND ServiceDate < ?;");
-				selectStmt.setString(1, sinceDate);
-				ResultSet result = selectStmt.executeQuery();
-
-				while (result.next()) {
-					System.out.println("Removing: " + result.getInt("ClientID") + ", " + result.getDate("ServiceDate")
-							 + ", " + result.getString("EventName") + ", " + result.getString("State"));
-
-					eventList.add(new AttendanceEventModel(result.getInt("ClientID"), 
-							result.getInt("VisitID"), result.getDate("ServiceDate"), 
-							result.getString("ServiceTime"), result.getString("EventName"), 
-							result.getString("GithubName"), result.getString("RepoName"), 
-							result.getString("Comments"), result.getString("GitDescription"), 
-							new StudentNameModel(result.getString("FirstName"), result.getString("LastName"), true),
-							result.getString("ServiceCategory"), result.getString("State"),
-							result.getString("LastSFState"), result.getString("TeacherNames"),
-							result.getString("ClassLevel")));
-				}
-
-				result.close();
-				selectStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("getExpiredEvents: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
-						": " + e2.getMessage());
-				break;
-			}
-		}
-		return eventList;
+	private DbRowReader<AttendanceEventModel> readAllEvents(String startDate) {
+		// Get attendance data from the DB for all students, in AttendanceEventModel sort order
+		return openReader("readAllEvents",
+				"SELECT " + ATTENDANCE_EVENT_COLUMNS + " FROM Attendance, Students "
+						+ "WHERE Attendance.ClientID = Students.ClientID "
+						+ "AND (State = 'completed' OR State = 'registered') AND ServiceDate >= ? "
+						+ "ORDER BY Attendance.ClientID ASC, ServiceDate DESC, VisitID ASC, BINARY ServiceTime ASC;",
+				LogDataModel.ATTENDANCE_DB_ERROR, this::readAttendanceEvent, startDate);
 	}
 
 	public void importAttendance(String startDate, ArrayList<AttendanceEventModel> importList, 
-			                     ArrayList<StudentModel> studentList, boolean fullList) {
+			                     StudentIndex students, boolean fullList) {
+		// Staging merge falls back to the in-memory merge if the change set can't be computed
+		if (attendanceStagingMerge && importAttendanceStaged(startDate, importList, students, fullList))
+			return;
+
 		// Import attendance from Pike13 to the Tracker database
-		ArrayList<AttendanceEventModel> dbList = getAllEvents(startDate);
-		int dbListIdx = 0;
-		int dbListSize = dbList.size();
+		DbRowReader<AttendanceEventModel> dbReader = readAllEvents(startDate);
+		ArrayList<AttendanceEventModel> canceledList = new ArrayList<AttendanceEventModel>();
 		Collections.sort(importList);
-		Collections.sort(dbList);
 
 		AttendanceEventModel dbAttendance;
 		for (int i = 0; i < importList.size(); i++) {
@@ -939,8 +1231,8 @@ public class MySqlDbImports {
 
 			// If at end of DB list, then default operation is insert (1)
 			int compare = 1;
-			if (dbListIdx < dbListSize) {
-				dbAttendance = dbList.get(dbListIdx);
+			if (dbReader.hasNext()) {
+				dbAttendance = dbReader.peek();
 
 				// Compare attendance; if matched, also check state & teachers
 				compare = dbAttendance.compareTo(importEvent);
@@ -961,24 +1253,23 @@ public class MySqlDbImports {
 
 			if (compare == 0) {
 				// All data matches, so continue through list
-				dbListIdx++;
+				dbReader.next();
 				continue;
 
 			} else if (compare == -1) {
 				// Extra events in DB; toss data until caught up with import list
-				while (dbListIdx < dbListSize && dbList.get(dbListIdx).compareTo(importEvent) < 0) {
+				while (dbReader.hasNext() && dbReader.peek().compareTo(importEvent) < 0) {
 					// Delete registered events that were canceled
-					if (fullList && dbList.get(dbListIdx).getState().equals("registered")
-							&& dbList.get(dbListIdx).getServiceCategory().startsWith("class"))
-						dbList.get(dbListIdx).setMarkForDeletion(true);
-
-					dbListIdx++;
+					AttendanceEventModel extraEvent = dbReader.next();
+					if (fullList && extraEvent.getState().equals("registered")
+							&& extraEvent.getServiceCategory().startsWith("class"))
+						canceledList.add(extraEvent);
 				}
 
 				// Caught up, now compare again and process
 				compare = 1;
-				if (dbListIdx < dbListSize) {
-					dbAttendance = dbList.get(dbListIdx);
+				if (dbReader.hasNext()) {
+					dbAttendance = dbReader.peek();
 
 					// Compare attendance; if matched, also check state & teachers
 					compare = dbAttendance.compareTo(importEvent);
@@ -998,18 +1289,18 @@ public class MySqlDbImports {
 					dbAttendance = null;
 
 				if (compare == 0) {
-					dbListIdx++;
+					dbReader.next();
 
 				} else {
-					int idx = getClientIdxInStudentList(studentList, importEvent.getClientID());
-					if (idx >= 0) {
+					StudentModel student = students.findByClientID(importEvent.getClientID());
+					if (student != null) {
 						if (compare == 1)
-							addAttendance(importEvent, teachers, studentList.get(idx));
+							addAttendance(importEvent, teachers, student);
 						else // state field has changed, so update
-							updateAttendanceState(importEvent, dbAttendance, teachers, studentList.get(idx));
+							updateAttendanceState(importEvent, dbAttendance, teachers, student);
 
 					} else
-						MySqlDbLogging.insertLogData(LogDataModel.STUDENT_NOT_FOUND,
+						LogBatchWriter.insertLogData(LogDataModel.STUDENT_NOT_FOUND,
 								new StudentNameModel(importEvent.getStudentNameModel().getFirstName(), "", false),
 								importEvent.getClientID(),
 								": " + importEvent.getEventName().trim() + " on " + importEvent.getServiceDateString());
@@ -1017,18 +1308,18 @@ public class MySqlDbImports {
 
 			} else {
 				// Data does not match existing student
-				int idx = getClientIdxInStudentList(studentList, importEvent.getClientID());
+				StudentModel student = students.findByClientID(importEvent.getClientID());
 
-				if (idx >= 0) {
+				if (student != null) {
 					// Student exists in DB, so add attendance data for this student
 					if (compare == 1)
-						addAttendance(importEvent, teachers, studentList.get(idx));
+						addAttendance(importEvent, teachers, student);
 					else // state field has changed, so update
-						updateAttendanceState(importEvent, dbAttendance, teachers, studentList.get(idx));
+						updateAttendanceState(importEvent, dbAttendance, teachers, student);
 
 				} else {
 					// Student not found
-					MySqlDbLogging.insertLogData(LogDataModel.STUDENT_NOT_FOUND,
+					LogBatchWriter.insertLogData(LogDataModel.STUDENT_NOT_FOUND,
 							new StudentNameModel(importEvent.getStudentNameModel().getFirstName(), "", false),
 							importEvent.getClientID(),
 							": " + importEvent.getEventName().trim() + " on " + importEvent.getServiceDateString());
@@ -1036,102 +1327,325 @@ public class MySqlDbImports {
 			}
 		}
 
-		if (fullList) {
+		dbReader.close();
+
+		if (fullList && !dbReader.hasError()) {
 			// Delete registered classes that were canceled
 			String today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).toString("yyyy-MM-dd");
-			for (AttendanceEventModel m : dbList) {
-				if (m.isMarkForDeletion() && m.getServiceDateString().compareTo(today) >= 0) {
+			for (AttendanceEventModel m : canceledList) {
+				if (m.getServiceDateString().compareTo(today) >= 0) {
 					deleteFromAttendance(m.getClientID(), m.getVisitID(), m.getStudentNameModel());
 				}
 			}
 		}
+		attendanceWriter.flush();
 	}
 
-	public void updateAttendance(int clientID, StudentNameModel nameModel, String serviceDate, String eventName,
-			String repoName, String comments, String gitDescription) {
-		PreparedStatement updateAttendanceStmt;
+	public void setAttendanceStagingMerge(boolean attendanceStagingMerge) {
+		this.attendanceStagingMerge = attendanceStagingMerge;
+	}
+
+	private boolean importAttendanceStaged(String startDate, ArrayList<AttendanceEventModel> importList,
+			StudentIndex students, boolean fullList) {
+		// Load import list into the staging table and let the database find the changes
+		Collections.sort(importList);
+		ArrayList<String> teacherList = new ArrayList<String>();
+		for (AttendanceEventModel importEvent : importList)
+			teacherList.add(parseTeacherNames(importEvent.getTeacherNames()));
+
+		AttendanceChangeSet changes = getAttendanceChanges(startDate, importList, teacherList, fullList);
+		if (changes == null)
+			return false;
+
+		// Apply new and changed attendance in import order, with the per-student side effects
+		for (Map.Entry<Integer, AttendanceEventModel> change : changes.changedEvents.entrySet()) {
+			AttendanceEventModel importEvent = importList.get(change.getKey());
+			AttendanceEventModel dbAttendance = change.getValue();
+			String teachers = teacherList.get(change.getKey());
+
+			// Debug: track changing event names
+			if (dbAttendance != null && !importEvent.getEventName().contains("(")
+					&& !dbAttendance.getEventName().trim().equals(importEvent.getEventName().trim()))
+				System.out.println("Event name changed: " + importEvent.getServiceDateString() + ", "
+						+ dbAttendance.getEventName().trim() + " (" + dbAttendance.getVisitID() + ") to "
+						+ importEvent.getEventName().trim() + " (" + importEvent.getVisitID() + ") ["
+						+ importEvent.getStudentNameModel().getFirstName() + ", " + importEvent.getClientID() + ", "
+						+ importEvent.getState() + "]");
+
+			StudentModel student = students.findByClientID(importEvent.getClientID());
+			if (student == null) {
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_NOT_FOUND,
+						new StudentNameModel(importEvent.getStudentNameModel().getFirstName(), "", false),
+						importEvent.getClientID(),
+						": " + importEvent.getEventName().trim() + " on " + importEvent.getServiceDateString());
+
+			} else if (dbAttendance == null)
+				addAttendance(importEvent, teachers, student);
+			else
+				updateAttendanceState(importEvent, dbAttendance, teachers, student);
+		}
+
+		// Delete registered classes that were canceled
+		for (AttendanceEventModel m : changes.deletedAttendance)
+			deleteFromAttendance(m.getClientID(), m.getVisitID(), m.getStudentNameModel());
+
+		attendanceWriter.flush();
+		System.out.println("Attendance staging merge: " + importList.size() + " staged, " + changes.changedEvents.size()
+				+ " new or changed, " + changes.deletedAttendance.size() + " canceled");
+		return true;
+	}
+
+	private AttendanceChangeSet getAttendanceChanges(String startDate, ArrayList<AttendanceEventModel> importList,
+			ArrayList<String> teacherList, boolean fullList) {
+		String today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).toString("yyyy-MM-dd");
+
 		for (int i = 0; i < 2; i++) {
+			// Staging table belongs to this connection, so re-load it on every attempt
+			AttendanceChangeSet changes = new AttendanceChangeSet();
 			try {
-				// The only fields that should be updated are the comments and repo name
-				updateAttendanceStmt = sqlDb.dbConnection.prepareStatement(
-						"UPDATE Attendance SET Comments=?, RepoName=?, GitDescription=? WHERE ClientID=? AND ServiceDate=?;");
+				// If Database no longer connected, the exception code will re-connect
+				PreparedStatement createStmt = getConnection().prepareStatement(ATTENDANCE_STAGING_CREATE);
+				createStmt.executeUpdate();
+				createStmt.close();
 
-				int col = 1;
-				if (comments != null && comments.length() >= COMMENT_WIDTH)
-					comments = comments.substring(0, COMMENT_WIDTH);
-				updateAttendanceStmt.setString(col++, comments);
-				if (repoName != null && repoName.length() >= REPO_NAME_WIDTH)
-					repoName = repoName.substring(0, REPO_NAME_WIDTH);
-				updateAttendanceStmt.setString(col++, repoName);
-				if (gitDescription != null && gitDescription.length() >= COMMENT_WIDTH)
-					updateAttendanceStmt.setString(col++, gitDescription.substring(0, COMMENT_WIDTH));
-				else
-					updateAttendanceStmt.setString(col++, gitDescription);
-				updateAttendanceStmt.setInt(col++, clientID);
-				updateAttendanceStmt.setDate(col++, java.sql.Date.valueOf(serviceDate));
+				PreparedStatement truncateStmt = getConnection().prepareStatement("TRUNCATE TABLE AttendanceStaging;");
+				truncateStmt.executeUpdate();
+				truncateStmt.close();
+
+				for (int j = 0; j < importList.size(); j += MAX_STAGING_INSERT_ROWS)
+					loadAttendanceStaging(importList, teacherList, j,
+							Math.min(j + MAX_STAGING_INSERT_ROWS, importList.size()));
+
+				// New attendance: no matching row in the import window
+				PreparedStatement selectStmt = getConnection().prepareStatement("SELECT s.ImportIdx "
+						+ "FROM AttendanceStaging s WHERE NOT EXISTS (SELECT 1 FROM Attendance a "
+						+ "WHERE a.ClientID = s.ClientID AND a.ServiceDate = s.ServiceDate AND a.VisitID = s.VisitID "
+						+ "AND a.ServiceTime = s.ServiceTime AND (a.State = 'completed' OR a.State = 'registered') "
+						+ "AND a.ServiceDate >= ?) ORDER BY s.ImportIdx;");
+				selectStmt.setString(1, startDate);
+				ResultSet result = selectStmt.executeQuery();
+				while (result.next())
+					changes.changedEvents.put(result.getInt("ImportIdx"), null);
+				result.close();
+				selectStmt.close();
 
-				updateAttendanceStmt.executeUpdate();
-				updateAttendanceStmt.close();
+				// Changed attendance: state, teachers, event name or a new service time
+				selectStmt = getConnection().prepareStatement("SELECT s.ImportIdx, a.*, Students.GithubName, "
+						+ "Students.FirstName, Students.LastName FROM AttendanceStaging s JOIN Attendance a "
+						+ "ON a.ClientID = s.ClientID AND a.ServiceDate = s.ServiceDate AND a.VisitID = s.VisitID "
+						+ "AND a.ServiceTime = s.ServiceTime JOIN Students ON a.ClientID = Students.ClientID "
+						+ "WHERE (a.State = 'completed' OR a.State = 'registered') AND a.ServiceDate >= ? "
+						+ "AND (a.State <> s.State OR NOT (a.TeacherNames <=> s.TeacherNames) "
+						+ "OR (s.EventName NOT LIKE '%(%' AND TRIM(a.EventName) <> s.EventName) "
+						+ "OR (a.ServiceTime = '' AND s.ServiceTime <> '')) ORDER BY s.ImportIdx;");
+				selectStmt.setString(1, startDate);
+				result = selectStmt.executeQuery();
+				while (result.next()) {
+					changes.changedEvents.put(result.getInt("ImportIdx"), new AttendanceEventModel(result.getInt("ClientID"),
+							result.getInt("VisitID"), result.getDate("ServiceDate"), result.getString("ServiceTime"),
+							result.getString("EventName"), result.getString("GithubName"),
+							result.getString("RepoName"), result.getString("Comments"),
+							result.getString("GitDescription"),
+							new StudentNameModel(result.getString("FirstName"), result.getString("LastName"), true),
+							result.getString("ServiceCategory"), result.getString("State"),
+							result.getString("LastSFState"), result.getString("TeacherNames"),
+							result.getString("ClassLevel")));
+				}
+				result.close();
+				selectStmt.close();
 
-				// Now update student latest module using repo name
-				updateStudentModule(clientID, getStudentCurrentLevel(clientID), repoName);
-				return;
+				// Canceled classes: future registered classes missing from a full import
+				if (fullList) {
+					selectStmt = getConnection().prepareStatement("SELECT a.ClientID, a.VisitID, a.ServiceDate, "
+							+ "Students.FirstName, Students.LastName FROM Attendance a "
+							+ "JOIN Students ON a.ClientID = Students.ClientID WHERE a.State = 'registered' "
+							+ "AND a.ServiceCategory LIKE 'class%' AND a.ServiceDate >= ? AND a.ServiceDate >= ? "
+							+ "AND NOT EXISTS (SELECT 1 FROM AttendanceStaging s WHERE s.ClientID = a.ClientID "
+							+ "AND s.ServiceDate = a.ServiceDate AND s.VisitID = a.VisitID "
+							+ "AND s.ServiceTime = a.ServiceTime);");
+					selectStmt.setString(1, startDate);
+					selectStmt.setString(2, today);
+					result = selectStmt.executeQuery();
+					while (result.next()) {
+						changes.deletedAttendance.add(new AttendanceEventModel(result.getInt("ClientID"),
+								result.getInt("VisitID"), result.getDate("ServiceDate"), "", "", "", "", "", "",
+								new StudentNameModel(result.getString("FirstName"), result.getString("LastName"),
+										true),
+								"", "registered", "", "", ""));
+					}
+					result.close();
+					selectStmt.close();
+				}
+				return changes;
 
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
-					System.out.println("updateAttendance: " + clientID + " " + serviceDate + ", " + eventName + ", " +  e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					System.out.println("getAttendanceChanges: " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
-			} catch (SQLException | NullPointerException e) {
-				e.printStackTrace();
-				StudentNameModel studentModel = new StudentNameModel(nameModel.getFirstName(), nameModel.getLastName(),
-						nameModel.getIsInMasterDb());
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, studentModel, clientID,
-						": " + e.getMessage());
+			} catch (SQLException | NullPointerException e2) {
+				e2.printStackTrace();
+				LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
+						" staging: " + e2.getMessage());
+				break;
 			}
 		}
+		return null;
 	}
 
-	public void deleteExpiredAttendance(ArrayList<AttendanceEventModel> attendList) {
-		for (AttendanceEventModel a : attendList) {
-			deleteFromAttendance(a.getClientID(), a.getVisitID(), a.getStudentNameModel());
-		}
+	private void loadAttendanceStaging(ArrayList<AttendanceEventModel> importList, ArrayList<String> teacherList,
+			int startIdx, int endIdx) throws SQLException {
+		// Multi-row insert of one chunk of the import list
+		StringBuilder values = new StringBuilder();
+		for (int j = startIdx; j < endIdx; j++)
+			values.append(j == startIdx ? "(?, ?, ?, ?, ?, ?, ?, ?, ?)" : ",(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+		PreparedStatement insertStmt = getConnection().prepareStatement("INSERT INTO AttendanceStaging (ImportIdx, "
+				+ "ClientID, VisitID, ServiceDate, ServiceTime, EventName, TeacherNames, ServiceCategory, State) "
+				+ "VALUES " + values + ";");
+
+		int col = 1;
+		for (int j = startIdx; j < endIdx; j++) {
+			AttendanceEventModel importEvent = importList.get(j);
+			insertStmt.setInt(col++, j);
+			insertStmt.setInt(col++, importEvent.getClientID());
+			insertStmt.setInt(col++, importEvent.getVisitID());
+			insertStmt.setDate(col++, java.sql.Date.valueOf(importEvent.getServiceDateString()));
+			insertStmt.setString(col++, importEvent.getServiceTime());
+			insertStmt.setString(col++, importEvent.getEventName().trim());
+			insertStmt.setString(col++, teacherList.get(j));
+			insertStmt.setString(col++, importEvent.getServiceCategory());
+			insertStmt.setString(col++, importEvent.getState());
+		}
+
+		insertStmt.executeUpdate();
+		insertStmt.close();
+	}
+
+	public void updateAttendance(int clientID, StudentNameModel nameModel, String serviceDate, String eventName,
+			String repoName, String comments, String gitDescription) {
+		// The only fields that should be updated are the comments and repo name
+		if (comments != null && comments.length() >= COMMENT_WIDTH)
+			comments = comments.substring(0, COMMENT_WIDTH);
+		if (repoName != null && repoName.length() >= REPO_NAME_WIDTH)
+			repoName = repoName.substring(0, REPO_NAME_WIDTH);
+		if (gitDescription != null && gitDescription.length() >= COMMENT_WIDTH)
+			gitDescription = gitDescription.substring(0, COMMENT_WIDTH);
+
+		// Once updated, update student latest module using repo name
+		final String repo = repoName;
+		changedServiceDateKeys.add(clientID + "," + serviceDate);
+		attendanceWriter.addRow(
+				"UPDATE Attendance SET Comments=?, RepoName=?, GitDescription=? WHERE ClientID=? AND ServiceDate=?",
+				false, ": ", new StudentNameModel(nameModel.getFirstName(), nameModel.getLastName(),
+						nameModel.getIsInMasterDb()),
+				clientID, () -> updateStudentModule(clientID, getStudentCurrentLevel(clientID), repo), comments,
+				repoName, gitDescription, clientID, java.sql.Date.valueOf(serviceDate));
+	}
+
+	public void flushAttendanceUpdates() {
+		// Send any queued attendance writes to the database
+		attendanceWriter.flush();
+	}
+
+	public int deleteExpiredAttendance(String sinceDate) {
+		// Queued attendance writes go first, then expired (not completed) registrations are
+		// removed from the sorted copy and from Attendance; returns the number removed
+		attendanceWriter.flush();
+		String expiredJoin = "JOIN Students ON Attendance.ClientID = Students.ClientID "
+				+ "WHERE Attendance.State = 'registered' AND Attendance.ServiceDate < ?;";
+
+		executeUpdate("deleteExpiredAttendance", "DELETE SortedAttendance FROM SortedAttendance "
+				+ "JOIN Attendance ON SortedAttendance.VisitID = Attendance.VisitID " + expiredJoin,
+				LogDataModel.ATTENDANCE_DB_ERROR, sinceDate);
+		return executeUpdate("deleteExpiredAttendance", "DELETE Attendance FROM Attendance " + expiredJoin,
+				LogDataModel.ATTENDANCE_DB_ERROR, sinceDate);
 	}
 
 	public void createSortedAttendanceList() {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// Empty the sorted list
-				PreparedStatement truncateStmt = sqlDb.dbConnection
+				PreparedStatement truncateStmt = getConnection()
 						.prepareStatement("TRUNCATE TABLE SortedAttendance;");
 				truncateStmt.executeUpdate();
 				truncateStmt.close();
 
 				// Now re-sort in descending date order
-				PreparedStatement insertStmt = sqlDb.dbConnection.prepareStatement("INSERT INTO SortedAttendance "
+				PreparedStatement insertStmt = getConnection().prepareStatement("INSERT INTO SortedAttendance "
 						+ "SELECT * FROM Attendance ORDER BY ClientID, ServiceDate DESC, EventName;");
 				insertStmt.executeUpdate();
 				insertStmt.close();
+
+				changedVisitKeys.clear();
+				changedServiceDateKeys.clear();
 				break;
 
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("createSortedAttendanceList: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
 						" sorting: " + e2.getMessage());
 				break;
 			}
 		}
 	}
 
+	public void updateSortedAttendanceList() {
+		// Replace only the sorted rows that changed in Attendance during this run
+		ArrayList<String> visitKeys = takeChangedKeys(changedVisitKeys);
+		ArrayList<String> serviceDateKeys = takeChangedKeys(changedServiceDateKeys);
+
+		// Keys in each list are distinct, so all of a list's deletes are queued before its inserts
+		// and each statement is sent as one batch
+		for (String key : visitKeys) {
+			String[] fields = key.split(",");
+			attendanceWriter.addRow("DELETE FROM SortedAttendance WHERE ClientID=? AND VisitID=?", false, " sorting: ",
+					new StudentNameModel("", "", false), Integer.parseInt(fields[0]), null,
+					Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+		}
+		for (String key : visitKeys) {
+			String[] fields = key.split(",");
+			attendanceWriter.addRow("INSERT INTO SortedAttendance SELECT * FROM Attendance WHERE ClientID=? AND VisitID=?",
+					true, " sorting: ", new StudentNameModel("", "", false), Integer.parseInt(fields[0]), null,
+					Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
+		}
+
+		for (String key : serviceDateKeys) {
+			String[] fields = key.split(",");
+			attendanceWriter.addRow("DELETE FROM SortedAttendance WHERE ClientID=? AND ServiceDate=?", false,
+					" sorting: ", new StudentNameModel("", "", false), Integer.parseInt(fields[0]), null,
+					Integer.parseInt(fields[0]), java.sql.Date.valueOf(fields[1]));
+		}
+		for (String key : serviceDateKeys) {
+			String[] fields = key.split(",");
+			attendanceWriter.addRow("INSERT INTO SortedAttendance SELECT * FROM Attendance WHERE ClientID=? AND ServiceDate=?",
+					true, " sorting: ", new StudentNameModel("", "", false), Integer.parseInt(fields[0]), null,
+					Integer.parseInt(fields[0]), java.sql.Date.valueOf(fields[1]));
+		}
+		attendanceWriter.flush();
+
+		if (visitKeys.size() + serviceDateKeys.size() > 0)
+			System.out.println((visitKeys.size() + serviceDateKeys.size()) + " sorted attendance updates");
+	}
+
+	private ArrayList<String> takeChangedKeys(Set<String> changedKeys) {
+		// Copy and clear while other threads may still be adding keys
+		synchronized (changedKeys) {
+			ArrayList<String> keys = new ArrayList<String>(changedKeys);
+			changedKeys.clear();
+			return keys;
+		}
+	}
+
 	public ArrayList<AttendanceEventModel> getEventsWithNoComments(String startDate, int clientID,
 			boolean includeEmpty) {
 		ArrayList<AttendanceEventModel> eventList = new ArrayList<AttendanceEventModel>();
@@ -1147,49 +1661,91 @@ public class MySqlDbImports {
 		else
 			clientIdFilter += "Comments IS NULL AND LEFT(EventName,2) != 'EL' AND LEFT(EventName,2) != 'PG' ";
 
+		// Get attendance data from the DB for all students that have a github user name
+		// and the comment field is blank
+		DbRowReader<AttendanceEventModel> reader = openReader("getEventsWithNoComments",
+				"SELECT " + ATTENDANCE_EVENT_COLUMNS + " FROM Attendance, Students "
+						+ "WHERE Attendance.ClientID = Students.ClientID AND " + clientIdFilter
+						+ " AND State = 'completed' AND (CurrentLevel = '' OR CurrentLevel <= '5') "
+						+ "AND GithubName IS NOT NULL AND ServiceDate >= ? ORDER BY GithubName;",
+				LogDataModel.ATTENDANCE_DB_ERROR, this::readAttendanceEvent, java.sql.Date.valueOf(startDate));
+
+		while (reader.hasNext())
+			eventList.add(reader.next());
+		return eventList;
+	}
+
+	private AttendanceEventModel readAttendanceEvent(ResultSet result) throws SQLException {
+		// Row mapper for ATTENDANCE_EVENT_COLUMNS
+		return new AttendanceEventModel(result.getInt("ClientID"), result.getInt("VisitID"),
+				result.getDate("ServiceDate"), result.getString("ServiceTime"), result.getString("EventName"),
+				result.getString("GithubName"), result.getString("RepoName"), result.getString("Comments"),
+				result.getString("GitDescription"),
+				new StudentNameModel(result.getString("FirstName"), result.getString("LastName"), true),
+				result.getString("ServiceCategory"), result.getString("State"), result.getString("LastSFState"),
+				result.getString("TeacherNames"), result.getString("ClassLevel"));
+	}
+
+	private <T> DbRowReader<T> openReader(String methodName, String sql, int errorLogType,
+			DbRowReader.RowMapper<T> mapper, Object... params) {
 		for (int i = 0; i < 2; i++) {
 			try {
-				// Get attendance data from the DB for all students that have a github user name
-				// and the comment field is blank
-				PreparedStatement selectStmt = sqlDb.dbConnection.prepareStatement(
-						"SELECT * FROM Attendance, Students WHERE Attendance.ClientID = Students.ClientID AND "
-								+ clientIdFilter + " AND State = 'completed' AND (CurrentLevel = '' OR CurrentLevel <= '5') "
-								+ "AND GithubName IS NOT NULL AND ServiceDate >= ? ORDER BY GithubName;");
-				selectStmt.setDate(1, java.sql.Date.valueOf(startDate));
-				ResultSet result = selectStmt.executeQuery();
+				// Server-side cursor, so that other statements can run while rows are read
+				com.mysql.jdbc.Connection conn = getConnection().unwrap(com.mysql.jdbc.Connection.class);
+				conn.setUseCursorFetch(true);
+				PreparedStatement selectStmt = conn.serverPrepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY);
+				selectStmt.setFetchSize(DbRowReader.FETCH_SIZE);
+				for (int col = 0; col < params.length; col++)
+					selectStmt.setObject(col + 1, params[col]);
 
-				while (result.next()) {
-					eventList
-							.add(new AttendanceEventModel(result.getInt("ClientID"), result.getInt("VisitID"),
-									result.getDate("ServiceDate"), result.getString("ServiceTime"),
-									result.getString("EventName"), result.getString("GithubName"),
-									result.getString("RepoName"), result.getString("Comments"), result.getString("GitDescription"),
-									new StudentNameModel(result.getString("FirstName"), result.getString("LastName"),
-											true),
-									result.getString("ServiceCategory"), result.getString("State"),
-									result.getString("LastSFState"), result.getString("TeacherNames"),
-									result.getString("ClassLevel")));
+				return new DbRowReader<T>(selectStmt, selectStmt.executeQuery(), mapper, errorLogType);
+
+			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
+				if (i == 0) {
+					// First attempt to re-connect
+					System.out.println(methodName + ": " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
-				result.close();
-				selectStmt.close();
+			} catch (SQLException | NullPointerException e2) {
+				e2.printStackTrace();
+				LogBatchWriter.insertLogData(errorLogType, new StudentNameModel("", "", false), 0,
+						": " + e2.getMessage());
 				break;
+			}
+		}
+		return DbRowReader.failed();
+	}
+
+	private int executeUpdate(String methodName, String sql, int errorLogType, Object... params) {
+		// Single set-based statement; returns the affected-row count, or 0 on error
+		for (int i = 0; i < 2; i++) {
+			try {
+				// If Database no longer connected, the exception code will re-connect
+				PreparedStatement updateStmt = getConnection().prepareStatement(sql);
+				for (int col = 0; col < params.length; col++)
+					updateStmt.setObject(col + 1, params[col]);
+
+				int numRows = updateStmt.executeUpdate();
+				updateStmt.close();
+				return numRows;
 
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
-					System.out.println("getEventsWithNoComments: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					System.out.println(methodName + ": " + e1.getMessage() + ", " + e1);
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(errorLogType, new StudentNameModel("", "", false), 0,
 						": " + e2.getMessage());
 				break;
 			}
 		}
-		return eventList;
+		return 0;
 	}
 
 	public ArrayList<PendingGithubModel> getPendingGithubEvents() {
@@ -1199,7 +1755,7 @@ public class MySqlDbImports {
 			try {
 				// Get pending github event data from the DB. This data is populated by
 				// a Github "hook" each time a student commits to a github classroom.
-				PreparedStatement selectStmt = sqlDb.dbConnection
+				PreparedStatement selectStmt = getConnection()
 						.prepareStatement("SELECT * FROM PendingGithub ORDER BY GitUser;");
 				ResultSet result = selectStmt.executeQuery();
 
@@ -1221,12 +1777,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("getPendingGithubEvents: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e.getMessage());
 				break;
 			}
@@ -1238,7 +1794,7 @@ public class MySqlDbImports {
 		PreparedStatement deleteGithubStmt;
 		for (int i = 0; i < 2; i++) {
 			try {
-				deleteGithubStmt = sqlDb.dbConnection.prepareStatement("DELETE FROM PendingGithub WHERE PrimaryID=?;");
+				deleteGithubStmt = getConnection().prepareStatement("DELETE FROM PendingGithub WHERE PrimaryID=?;");
 				deleteGithubStmt.setInt(1, primaryID);
 				deleteGithubStmt.executeUpdate();
 				deleteGithubStmt.close();
@@ -1247,94 +1803,108 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("deletePendingGithubEvent: " + e1.getMessage());
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
 						" deleting record: " + e.getMessage());
 				break;
 			}
 		}
 	}
 
+	public void setTeacherGithubUsers(String gitUsers) {
+		// Comma separated list replaces the default teacher accounts
+		teacherGithubUsers.clear();
+		for (String gitUser : gitUsers.split(",")) {
+			if (!gitUser.trim().equals(""))
+				teacherGithubUsers.add(gitUser.toLowerCase().trim());
+		}
+	}
+
 	public void updatePendingGithubComments(ArrayList<PendingGithubModel> githubList, String startDate,
-			ArrayList<AttendanceEventModel> attendList, ArrayList<AttendanceEventModel> incompAttendList, ArrayList<StudentModel> studentList) {
+			ArrayList<AttendanceEventModel> attendList, ArrayList<AttendanceEventModel> incompAttendList, StudentIndex students) {
 		
 		int origSize = githubList.size();
 		clearAllPendGithubStatus();
-		
-		// Process all the pending commits
-		for (int i = 0; i < githubList.size(); i++) {
+
+		// Index completed attendance by git user & date, incomplete attendance by client & date
+		HashMap<String, ArrayList<AttendanceEventModel>> attendMap = new HashMap<String, ArrayList<AttendanceEventModel>>();
+		for (AttendanceEventModel event : attendList) {
+			if (event.getGithubName() != null)
+				addToEventMap(attendMap, event.getGithubName().trim().toLowerCase() + "," + event.getServiceDateString(),
+						event);
+		}
+		HashMap<String, ArrayList<AttendanceEventModel>> incompAttendMap = new HashMap<String, ArrayList<AttendanceEventModel>>();
+		for (AttendanceEventModel att : incompAttendList)
+			addToEventMap(incompAttendMap, att.getClientID() + "," + att.getServiceDateString(), att);
+
+		// Process all the pending commits, keeping those not yet processed
+		ArrayList<PendingGithubModel> remainingList = new ArrayList<PendingGithubModel>();
+		for (PendingGithubModel pendingGit : githubList) {
 			// Get commit date
-			PendingGithubModel pendingGit = githubList.get(i);
 			String gitUser = pendingGit.getGitUser().toLowerCase().trim();
 			String commitDate = pendingGit.getServiceDate().substring(0, 10);
 
 			// Record is out-of-date (attendance never updated!), or teacher, so remove
-			if (commitDate.compareTo(startDate) < 0 || gitUser.equals("wavis421") || gitUser.equals("keithagroves")
-					|| gitUser.equals("davedleague") || gitUser.equals("sebastiantroncoso93")
-					|| gitUser.equals("codybsauer") || gitUser.equals("shacheeparikh") || gitUser.equals("tylercwiltz")
-					|| gitUser.equals("colbyschexnayder")
-					|| gitUser.equals("mwoguri")      // Michiyo
-					|| gitUser.equals("jaleague")     // Jackie
-					|| gitUser.equals("zaelix")       // Mike
-					|| gitUser.equals("dencee")       // Daniel
-					|| gitUser.equals("mjfre")        // Matt
-					|| gitUser.equals("awasicek")     // Andrew
-					|| gitUser.equals("dkunkler")     // David Kunkler, volunteer (parent of 3 students)
-					|| gitUser.equals("bschurter")    // Bruce Schurter, limited staff member
-					|| gitUser.equals("tsneuhaus")    // Tammy Neuhaus, limited staff member
-					|| gitUser.equals("rey-rey"))     // Rey Fidel, volunteer teacher
-			{
+			if (commitDate.compareTo(startDate) < 0 || teacherGithubUsers.contains(gitUser)) {
 				deletePendingGithubEvent(pendingGit.getPrimaryID());
-				githubList.remove(i);
-				i--;
 				continue;
 			}
 
 			// Find gituser & date match in event list; append multiple comments
-			boolean foundMatch = false;
-			for (int j = 0; j < attendList.size(); j++) {
-				AttendanceEventModel event = attendList.get(j);
-				if (commitDate.equals(event.getServiceDateString())
-						&& gitUser.equals(event.getGithubName().trim().toLowerCase())) {
+			ArrayList<AttendanceEventModel> matches = attendMap.get(gitUser + "," + commitDate);
+			if (matches != null) {
+				for (AttendanceEventModel event : matches) {
 					// Update comments & repo name
 					event.setGithubComments(pendingGit.getComments());
 					updateAttendance(event.getClientID(), event.getStudentNameModel(), commitDate, event.getEventName().trim(),
 							pendingGit.getRepoName(), event.getGithubComments(), event.getGitDescription());
-					foundMatch = true;
 				}
-			}
-			if (foundMatch) {
+
 				// This pending github record has been processed, so remove!
 				deletePendingGithubEvent(pendingGit.getPrimaryID());
-				githubList.remove(i);
-				i--;
 			}
 			else {
 				// No completed attendance found for this GitUser; now check incomplete attendance
-				StudentModel stud = findGithubUser (studentList, gitUser);
+				remainingList.add(pendingGit);
+				StudentModel stud = students.findByGithubName(gitUser);
 				if (stud == null) {
 					// This GitUser is not attached to any student in the DB, so mark as missing
 					setMissingGithub (pendingGit);
 				}
 				else {
-					// Found student, so search incomplete attendance and update state in pending Github table
-					for (AttendanceEventModel att : incompAttendList) {
-						if (commitDate.equals(att.getServiceDateString()) && att.getClientID() == stud.getClientID())
+					// Found student, so update state in pending Github table from incomplete attendance
+					ArrayList<AttendanceEventModel> incompMatches = incompAttendMap.get(stud.getClientID() + "," + commitDate);
+					if (incompMatches != null) {
+						for (AttendanceEventModel att : incompMatches)
 							setGithubStatus (pendingGit, att.getState());
 					}
 				}
 			}
 		}
+		githubList.clear();
+		githubList.addAll(remainingList);
 		
+		attendanceWriter.flush();
+
 		if (origSize > githubList.size())
 			System.out.println((origSize - githubList.size()) + " pending github processed");
 	}
+
+	private void addToEventMap(HashMap<String, ArrayList<AttendanceEventModel>> eventMap, String key,
+			AttendanceEventModel event) {
+		ArrayList<AttendanceEventModel> events = eventMap.get(key);
+		if (events == null) {
+			events = new ArrayList<AttendanceEventModel>();
+			eventMap.put(key, events);
+		}
+		events.add(event);
+	}
 	
-	private int addAttendance(AttendanceEventModel importEvent, String teacherNames, StudentModel student) {
+	private void addAttendance(AttendanceEventModel importEvent, String teacherNames, StudentModel student) {
 		// Update class level if <= L8
 		boolean addLevel = false;
 		String today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles")).toString("yyyy-MM-dd");
@@ -1344,66 +1914,37 @@ public class MySqlDbImports {
 						|| importEvent.getEventName().startsWith("PG") || importEvent.getEventName().startsWith("Java@")
 						|| (importEvent.getServiceCategory().startsWith("class ")
 								&& !student.getCurrentLevel().equals("") && student.getCurrentLevel().charAt(0) <= '8'))) {
-			// Update student's current level and last visit date
+			// Update student's current level and last visit date, in order with other student updates
 			addLevel = true;
-			updateStudentLastVisit(student, importEvent);
-		}
-
-		for (int i = 0; i < 2; i++) {
-			try {
-				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement addAttendanceStmt;
-				if (addLevel)
-					addAttendanceStmt = sqlDb.dbConnection.prepareStatement(
-							"INSERT INTO Attendance (ClientID, ServiceDate, ServiceTime, EventName, VisitID, TeacherNames, "
-									+ "ServiceCategory, State, ClassLevel) " + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);");
-				else
-					addAttendanceStmt = sqlDb.dbConnection.prepareStatement(
-							"INSERT INTO Attendance (ClientID, ServiceDate, ServiceTime, EventName, VisitID, TeacherNames, "
-									+ "ServiceCategory, State) " + "VALUES (?, ?, ?, ?, ?, ?, ?, ?);");
-
-				int col = 1;
-				addAttendanceStmt.setInt(col++, importEvent.getClientID());
-				addAttendanceStmt.setDate(col++, java.sql.Date.valueOf(importEvent.getServiceDateString()));
-				addAttendanceStmt.setString(col++, importEvent.getServiceTime());
-				addAttendanceStmt.setString(col++, importEvent.getEventName().trim());
-				addAttendanceStmt.setInt(col++, importEvent.getVisitID());
-				addAttendanceStmt.setString(col++, teacherNames);
-				addAttendanceStmt.setString(col++, importEvent.getServiceCategory());
-				addAttendanceStmt.setString(col++, importEvent.getState());
-				if (addLevel)
-					addAttendanceStmt.setString(col, student.getCurrentLevel());
-
-				addAttendanceStmt.executeUpdate();
-				addAttendanceStmt.close();
-
-				// Now update student's last visit date (if not already done)
-				if (!addLevel)
-					updateLastVisitDate(importEvent, student, today);
-				return 1;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("addAttendance: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLIntegrityConstraintViolationException e2) {
-				// Attendance data already exists, do nothing
-				break;
-
-			} catch (SQLException | NullPointerException e3) {
-				e3.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, student.getNameModel(),
-						importEvent.getClientID(), ": " + e3.getMessage());
-				break;
-			}
-		}
-		return 0;
+			attendanceWriter.addCallback(() -> updateStudentLastVisit(student, importEvent));
+		}
+
+		// Once added, update student's last visit date (if not already done)
+		Runnable onSuccess = null;
+		if (!addLevel)
+			onSuccess = () -> updateLastVisitDate(importEvent, student, today);
+
+		// Queue insert; if attendance data already exists, do nothing
+		changedVisitKeys.add(importEvent.getClientID() + "," + importEvent.getVisitID());
+		if (addLevel)
+			attendanceWriter.addRow(
+					"INSERT INTO Attendance (ClientID, ServiceDate, ServiceTime, EventName, VisitID, TeacherNames, "
+							+ "ServiceCategory, State, ClassLevel) " + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+					true, ": ", student.getNameModel(), importEvent.getClientID(), onSuccess,
+					importEvent.getClientID(), java.sql.Date.valueOf(importEvent.getServiceDateString()),
+					importEvent.getServiceTime(), importEvent.getEventName().trim(), importEvent.getVisitID(),
+					teacherNames, importEvent.getServiceCategory(), importEvent.getState(), student.getCurrentLevel());
+		else
+			attendanceWriter.addRow(
+					"INSERT INTO Attendance (ClientID, ServiceDate, ServiceTime, EventName, VisitID, TeacherNames, "
+							+ "ServiceCategory, State) " + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+					true, ": ", student.getNameModel(), importEvent.getClientID(), onSuccess,
+					importEvent.getClientID(), java.sql.Date.valueOf(importEvent.getServiceDateString()),
+					importEvent.getServiceTime(), importEvent.getEventName().trim(), importEvent.getVisitID(),
+					teacherNames, importEvent.getServiceCategory(), importEvent.getState());
 	}
 
-	private int updateAttendanceState(AttendanceEventModel importEvent, AttendanceEventModel dbAttendance,
+	private void updateAttendanceState(AttendanceEventModel importEvent, AttendanceEventModel dbAttendance,
 			String teachers, StudentModel student) {
 		// When transitioning to completed, update current level for students <= L8.
 		// Only set level for Slams & Make-ups.
@@ -1416,56 +1957,32 @@ public class MySqlDbImports {
 						|| (importEvent.getServiceCategory().startsWith("class ")
 								&& !student.getCurrentLevel().equals("") && student.getCurrentLevel().charAt(0) <= '8'))) {
 			addLevel = true;
-			updateStudentLastVisit(student, importEvent);
-		}
-
-		PreparedStatement updateAttendanceStmt;
-		for (int i = 0; i < 2; i++) {
-			try {
-				// The only fields that should be updated are the State & Teacher fields
-				if (addLevel)
-					updateAttendanceStmt = sqlDb.dbConnection.prepareStatement(
-							"UPDATE Attendance SET State=?, TeacherNames=?, ServiceTime=?, ClassLevel=?, EventName=? "
-									+ "WHERE ClientID=? AND VisitID=? AND ServiceDate=? AND (ServiceTime='' OR ServiceTime=?);");
-				else
-					updateAttendanceStmt = sqlDb.dbConnection
-							.prepareStatement("UPDATE Attendance SET State=?, TeacherNames=?, ServiceTime=?, EventName=? "
-									+ "WHERE ClientID=? AND VisitID=? AND ServiceDate=? AND (ServiceTime='' OR ServiceTime=?);");
-				int col = 1;
-				updateAttendanceStmt.setString(col++, importEvent.getState());
-				updateAttendanceStmt.setString(col++, teachers);
-				updateAttendanceStmt.setString(col++, importEvent.getServiceTime());
-				if (addLevel)
-					updateAttendanceStmt.setString(col++, student.getCurrentLevel());
-				updateAttendanceStmt.setString(col++,  importEvent.getEventName().trim());
-				updateAttendanceStmt.setInt(col++, importEvent.getClientID());
-				updateAttendanceStmt.setInt(col++, importEvent.getVisitID());
-				updateAttendanceStmt.setDate(col++, java.sql.Date.valueOf(importEvent.getServiceDateString()));
-				updateAttendanceStmt.setString(col++, importEvent.getServiceTime());
-
-				updateAttendanceStmt.executeUpdate();
-				updateAttendanceStmt.close();
-
-				// Now update student's last visit date (if not already done)
-				if (!addLevel)
-					updateLastVisitDate(importEvent, student, today);
-				return 1;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("updateAttendanceState: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e) {
-				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, student.getNameModel(),
-						importEvent.getClientID(), ": " + e.getMessage());
-				break;
-			}
-		}
-		return 0;
+			attendanceWriter.addCallback(() -> updateStudentLastVisit(student, importEvent));
+		}
+
+		// Once updated, update student's last visit date (if not already done)
+		Runnable onSuccess = null;
+		if (!addLevel)
+			onSuccess = () -> updateLastVisitDate(importEvent, student, today);
+
+		// The only fields that should be updated are the State & Teacher fields
+		changedVisitKeys.add(importEvent.getClientID() + "," + importEvent.getVisitID());
+		if (addLevel)
+			attendanceWriter.addRow(
+					"UPDATE Attendance SET State=?, TeacherNames=?, ServiceTime=?, ClassLevel=?, EventName=? "
+							+ "WHERE ClientID=? AND VisitID=? AND ServiceDate=? AND (ServiceTime='' OR ServiceTime=?)",
+					false, ": ", student.getNameModel(), importEvent.getClientID(), onSuccess, importEvent.getState(),
+					teachers, importEvent.getServiceTime(), student.getCurrentLevel(),
+					importEvent.getEventName().trim(), importEvent.getClientID(), importEvent.getVisitID(),
+					java.sql.Date.valueOf(importEvent.getServiceDateString()), importEvent.getServiceTime());
+		else
+			attendanceWriter.addRow(
+					"UPDATE Attendance SET State=?, TeacherNames=?, ServiceTime=?, EventName=? "
+							+ "WHERE ClientID=? AND VisitID=? AND ServiceDate=? AND (ServiceTime='' OR ServiceTime=?)",
+					false, ": ", student.getNameModel(), importEvent.getClientID(), onSuccess, importEvent.getState(),
+					teachers, importEvent.getServiceTime(), importEvent.getEventName().trim(),
+					importEvent.getClientID(), importEvent.getVisitID(),
+					java.sql.Date.valueOf(importEvent.getServiceDateString()), importEvent.getServiceTime());
 	}
 
 	private void updateLastVisitDate(AttendanceEventModel importEvent, StudentModel student, String today) {
@@ -1486,39 +2003,16 @@ public class MySqlDbImports {
 	}
 
 	private void deleteFromAttendance(int clientID, int visitID, StudentNameModel studentModel) {
-		PreparedStatement deleteAttendanceStmt;
-		for (int i = 0; i < 2; i++) {
-			try {
-				deleteAttendanceStmt = sqlDb.dbConnection
-						.prepareStatement("DELETE FROM Attendance WHERE ClientID=? AND VisitID=?;");
-
-				deleteAttendanceStmt.setInt(1, clientID);
-				deleteAttendanceStmt.setInt(2, visitID);
-
-				deleteAttendanceStmt.executeUpdate();
-				deleteAttendanceStmt.close();
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("deleteFromAttendance: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e) {
-				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, studentModel, clientID,
-						" removing registered attendance record: " + e.getMessage());
-				break;
-			}
-		}
+		changedVisitKeys.add(clientID + "," + visitID);
+		attendanceWriter.addRow("DELETE FROM Attendance WHERE ClientID=? AND VisitID=?", false,
+				" removing registered attendance record: ", studentModel, clientID, null, clientID, visitID);
 	}
 
 	public void updateAttendLevelChanges(int visitID, String state) {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateAttendanceStmt = sqlDb.dbConnection
+				PreparedStatement updateAttendanceStmt = getConnection()
 						.prepareStatement("UPDATE Attendance SET LastSFState = ? WHERE VisitID = ?;");
 
 				updateAttendanceStmt.setString(1, state);
@@ -1526,18 +2020,28 @@ public class MySqlDbImports {
 
 				updateAttendanceStmt.executeUpdate();
 				updateAttendanceStmt.close();
+
+				// Keep sorted copy in sync, since it is no longer rebuilt every run
+				PreparedStatement updateSortedStmt = getConnection()
+						.prepareStatement("UPDATE SortedAttendance SET LastSFState = ? WHERE VisitID = ?;");
+
+				updateSortedStmt.setString(1, state);
+				updateSortedStmt.setInt(2, visitID);
+
+				updateSortedStmt.executeUpdate();
+				updateSortedStmt.close();
 				break;
 
 			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateAttendLevelChanges: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
 						" updating LastSFState: " + e2.getMessage());
 				break;
 			}
@@ -1552,7 +2056,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateGraduateStmt = sqlDb.dbConnection
+				PreparedStatement updateGraduateStmt = getConnection()
 						.prepareStatement("UPDATE Graduation SET InSalesForce=? WHERE ClientID=? AND GradLevel=?;");
 
 				updateGraduateStmt.setInt(1, newValue ? 1 : 0);
@@ -1567,12 +2071,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateGradInSfField: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR,
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR,
 						new StudentNameModel("", "", false), clientID, " for Graduation: " + e2.getMessage());
 				break;
 			}
@@ -1645,7 +2149,7 @@ public class MySqlDbImports {
 					+ dbStudent.getCurrLevel() + ", Score " + score);
 					
 			} else {
-				MySqlDbLogging.insertLogData(LogDataModel.EXAM_SCORE_INVALID,
+				LogBatchWriter.insertLogData(LogDataModel.EXAM_SCORE_INVALID,
 						new StudentNameModel(dbStudent.getFirstName(), dbStudent.getLastName(), true),
 						dbStudent.getClientID(),
 						" for Level " + dbStudent.getCurrLevel() + ": " + importStudent.getLastExamScore());
@@ -1697,7 +2201,7 @@ public class MySqlDbImports {
 				}
 
 				// Now add graduation info to database
-				PreparedStatement addGrad = sqlDb.dbConnection.prepareStatement(cmdString + values + ");");
+				PreparedStatement addGrad = getConnection().prepareStatement(cmdString + values + ");");
 
 				// Fill in the input fields
 				int col = 1;
@@ -1726,12 +2230,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("addGraduationRecord: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
 						gradModel.getClientID(), " for Graduation: " + e2.getMessage());
 				break;
 			}
@@ -1755,7 +2259,7 @@ public class MySqlDbImports {
 					cmdString += ", Promoted=?";
 
 				// Update database
-				PreparedStatement updateGraduateStmt = sqlDb.dbConnection
+				PreparedStatement updateGraduateStmt = getConnection()
 						.prepareStatement(cmdString + " WHERE ClientID=? AND GradLevel=?;");
 
 				// Fill in the input fields
@@ -1779,58 +2283,23 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateGraduationRecord: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
+				LogBatchWriter.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
 						gradModel.getClientID(), " for Graduation: " + e2.getMessage());
 				break;
 			}
 		}
 	}
 
-	public void removeProcessedGraduations() {
-		for (int i = 0; i < 2; i++) {
-			try {
-				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement selectStmt = sqlDb.dbConnection.prepareStatement("SELECT * FROM Graduation;");
-				ResultSet result = selectStmt.executeQuery();
-
-				while (result.next()) {
-					// When "in salesforce" flag is true, record can be removed
-					if (result.getBoolean(MySqlDatabase.GRAD_MODEL_IN_SF_FIELD)) {
-						// Graduation record has been processed, so remove from DB
-						PreparedStatement deleteGradStmt = sqlDb.dbConnection
-								.prepareStatement("DELETE FROM Graduation WHERE ClientID=? AND GradLevel=?;");
-
-						// Delete student
-						deleteGradStmt.setInt(1, result.getInt("ClientID"));
-						deleteGradStmt.setInt(2, result.getInt("GradLevel"));
-						deleteGradStmt.executeUpdate();
-						deleteGradStmt.close();
-					}
-				}
-
-				result.close();
-				selectStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("removeProcessedGraduations: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
-						" for Graduation: " + e2.getMessage());
-				break;
-			}
-		}
+	public int removeProcessedGraduations() {
+		// When "in salesforce" flag is true, graduation record has been processed and can be removed
+		return executeUpdate("removeProcessedGraduations",
+				"DELETE FROM Graduation WHERE " + MySqlDatabase.GRAD_MODEL_IN_SF_FIELD + " = 1;",
+				LogDataModel.STUDENT_DB_ERROR);
 	}
 
 	private String getStartDateByClientIdAndLevel(int clientID, int level) {
@@ -1843,7 +2312,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement selectStmt = sqlDb.dbConnection
+				PreparedStatement selectStmt = getConnection()
 						.prepareStatement("SELECT ServiceDate, EventName, ClassLevel FROM Attendance "
 								+ "WHERE ClientID = ? AND State = 'completed' ORDER BY ServiceDate ASC;");
 				selectStmt.setInt(1, clientID);
@@ -1871,12 +2340,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("getStartDateByClientIdAndLevel: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.ATTENDANCE_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e2.getMessage());
 				break;
 			}
@@ -1946,167 +2415,49 @@ public class MySqlDbImports {
 		}
 	}
 
-	public void updateMissingCurrentClass() {
+	public int updateMissingCurrentClass() {
 		DateTime today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"));
 		DateTime endDate = today.plusDays(7);
 
-		for (int i = 0; i < 2; i++) {
-			try {
-				// Get next registered class for student
-				PreparedStatement selectStmt = sqlDb.dbConnection
-						.prepareStatement("SELECT Students.ClientID, EventName "
-								+ "FROM Attendance, Students WHERE Attendance.ClientID = Students.ClientID "
-								+ "AND CurrentClass = '' AND State = 'registered' AND ServiceDate >= ? AND ServiceDate <= ? "
-								+ "ORDER BY Students.ClientID, ServiceDate ASC;");
-				selectStmt.setString(1, today.toString("yyyy-MM-dd"));
-				selectStmt.setString(2, endDate.toString("yyyy-MM-dd"));
-				ResultSet result = selectStmt.executeQuery();
-
-				String lastClientID = "";
-				while (result.next()) {
-					String thisClientID = result.getString("Students.ClientID");
-					if (thisClientID.equals(lastClientID))
-						continue;
-
-					lastClientID = thisClientID;
-					updateLastEventInfoByStudent(Integer.parseInt(thisClientID), result.getString("EventName"), null,
-							null);
-				}
-
-				result.close();
-				selectStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("updateMissingCurrentClass: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				StudentNameModel model = new StudentNameModel("", "", false);
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, model, 0, ": " + e2.getMessage());
-				break;
-			}
-		}
+		// Students with no current class get their next registered class this week
+		return executeUpdate("updateMissingCurrentClass", "UPDATE Students "
+				+ "JOIN (SELECT ClientID, MIN(ServiceDate) AS NextDate FROM Attendance "
+				+ "WHERE State = 'registered' AND ServiceDate >= ? AND ServiceDate <= ? GROUP BY ClientID) AS NextClass "
+				+ "ON Students.ClientID = NextClass.ClientID "
+				+ "JOIN Attendance ON Attendance.ClientID = NextClass.ClientID "
+				+ "AND Attendance.ServiceDate = NextClass.NextDate AND Attendance.State = 'registered' "
+				+ "SET Students.CurrentClass = Attendance.EventName WHERE Students.CurrentClass = '';",
+				LogDataModel.STUDENT_DB_ERROR, today.toString("yyyy-MM-dd"), endDate.toString("yyyy-MM-dd"));
 	}
 
-	public void updateRegisteredClass() {
+	public int updateRegisteredClass() {
 		DateTime today = new DateTime().withZone(DateTimeZone.forID("America/Los_Angeles"));
 		DateTime endDate = today.plusDays(7);
-
-		// First clear all currently registered classes
-		clearRegisteredClasses();
-
-		for (int i = 0; i < 2; i++) {
-			try {
-				// Get next registered class for student.
-				// A registered class is only updated when different from the current class.
-				PreparedStatement selectStmt = sqlDb.dbConnection
-						.prepareStatement("SELECT Students.ClientID, EventName "
-								+ "FROM Attendance, Students WHERE Attendance.ClientID = Students.ClientID "
-								+ "AND LEFT(EventName,4) = 'Java' "
-								+ "AND CurrentClass != EventName AND State = 'registered' "
-								+ "AND ServiceDate >= ? AND ServiceDate <= ? ORDER BY Students.ClientID, ServiceDate ASC;");
-				selectStmt.setString(1, today.toString("yyyy-MM-dd"));
-				selectStmt.setString(2, endDate.toString("yyyy-MM-dd"));
-				ResultSet result = selectStmt.executeQuery();
-
-				String lastClientID = "";
-				while (result.next()) {
-					String thisClientID = result.getString("Students.ClientID");
-					if (thisClientID.equals(lastClientID))
-						continue;
-
-					lastClientID = thisClientID;
-					updateRegisteredClassByStudent(result.getInt("ClientID"), result.getString("EventName"));
-				}
-
-				result.close();
-				selectStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("updateRegisteredClass: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				StudentNameModel model = new StudentNameModel("", "", false);
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, model, 0, ": " + e2.getMessage());
-				break;
-			}
-		}
-	}
-
-	private void updateRegisteredClassByStudent(int clientID, String eventName) {
-		// Update registered (future) class for a student
-		for (int i = 0; i < 2; i++) {
-			try {
-				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateStudentStmt = sqlDb.dbConnection
-						.prepareStatement("UPDATE Students SET RegisterClass=? WHERE ClientID=?;");
-				updateStudentStmt.setString(1, eventName);
-				updateStudentStmt.setInt(2, clientID);
-
-				updateStudentStmt.executeUpdate();
-				updateStudentStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("updateRegisteredClassByStudent: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false),
-						clientID, ": " + e2.getMessage());
-				break;
-			}
-		}
-	}
-
-	private void clearRegisteredClasses() {
-		// Clear registered classes field for all students (updated daily)
-		for (int i = 0; i < 2; i++) {
-			try {
-				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateStudentStmt = sqlDb.dbConnection
-						.prepareStatement("UPDATE Students SET RegisterClass = '';");
-
-				updateStudentStmt.executeUpdate();
-				updateStudentStmt.close();
-				break;
-
-			} catch (CommunicationsException | MySQLNonTransientConnectionException e1) {
-				if (i == 0) {
-					// First attempt to re-connect
-					System.out.println("clearRegisteredClasses: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
-				}
-
-			} catch (SQLException | NullPointerException e2) {
-				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.STUDENT_DB_ERROR, new StudentNameModel("", "", false), 0,
-						": " + e2.getMessage());
-				break;
-			}
-		}
+		String registeredJava = "LEFT(Attendance.EventName,4) = 'Java' AND Attendance.EventName != Students.CurrentClass "
+				+ "AND Attendance.State = 'registered' ";
+
+		// First clear all currently registered classes (updated daily)
+		executeUpdate("clearRegisteredClasses", "UPDATE Students SET RegisterClass = '';",
+				LogDataModel.STUDENT_DB_ERROR);
+
+		// Set next registered class for each student.
+		// A registered class is only updated when different from the current class.
+		return executeUpdate("updateRegisteredClass", "UPDATE Students "
+				+ "JOIN (SELECT Attendance.ClientID, MIN(ServiceDate) AS NextDate FROM Attendance "
+				+ "JOIN Students ON Attendance.ClientID = Students.ClientID WHERE " + registeredJava
+				+ "AND ServiceDate >= ? AND ServiceDate <= ? GROUP BY Attendance.ClientID) AS NextClass "
+				+ "ON Students.ClientID = NextClass.ClientID "
+				+ "JOIN Attendance ON Attendance.ClientID = NextClass.ClientID "
+				+ "AND Attendance.ServiceDate = NextClass.NextDate AND " + registeredJava
+				+ "SET Students.RegisterClass = Attendance.EventName;",
+				LogDataModel.STUDENT_DB_ERROR, today.toString("yyyy-MM-dd"), endDate.toString("yyyy-MM-dd"));
 	}
 
 	private void removeClassFromSchedule(ScheduleModel model) {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement deleteClassStmt = sqlDb.dbConnection
+				PreparedStatement deleteClassStmt = getConnection()
 						.prepareStatement("DELETE FROM Schedule WHERE ScheduleID=?;");
 
 				// Delete class from schedule
@@ -2119,12 +2470,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("removeClassFromSchedule: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.SCHEDULE_DB_ERROR, null, 0, ": " + e2.getMessage());
+				LogBatchWriter.insertLogData(LogDataModel.SCHEDULE_DB_ERROR, null, 0, ": " + e2.getMessage());
 				break;
 			}
 		}
@@ -2134,7 +2485,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement addScheduleStmt = sqlDb.dbConnection.prepareStatement(
+				PreparedStatement addScheduleStmt = getConnection().prepareStatement(
 						"INSERT INTO Schedule (DayOfWeek, StartTime, Duration, ClassName, NumStudents, "
 								+ "Youngest, Oldest, AverageAge, ModuleCount) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);");
 
@@ -2161,7 +2512,7 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("addClassToSchedule: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLIntegrityConstraintViolationException e2) {
@@ -2170,7 +2521,7 @@ public class MySqlDbImports {
 
 			} catch (SQLException | NullPointerException e3) {
 				e3.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.SCHEDULE_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.SCHEDULE_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e3.getMessage());
 				break;
 			}
@@ -2181,7 +2532,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateScheduleStmt = sqlDb.dbConnection.prepareStatement(
+				PreparedStatement updateScheduleStmt = getConnection().prepareStatement(
 						"UPDATE Schedule SET NumStudents=?, Youngest=?, Oldest=?, AverageAge=?, ModuleCount=?, "
 								+ "Room=?, RoomMismatch=? WHERE ScheduleID=?;");
 
@@ -2203,12 +2554,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateClassInSchedule: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e3) {
 				e3.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.SCHEDULE_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.SCHEDULE_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e3.getMessage());
 				break;
 			}
@@ -2291,7 +2642,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement addCourseStmt = sqlDb.dbConnection
+				PreparedStatement addCourseStmt = getConnection()
 						.prepareStatement("INSERT INTO Courses (CourseID, EventName, Enrolled) " + "VALUES (?, ?, ?);");
 
 				int col = 1;
@@ -2307,7 +2658,7 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("addCourseToSchedule: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLIntegrityConstraintViolationException e2) {
@@ -2316,7 +2667,7 @@ public class MySqlDbImports {
 
 			} catch (SQLException | NullPointerException e3) {
 				e3.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.COURSES_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.COURSES_DB_ERROR, new StudentNameModel("", "", false), 0,
 						": " + e3.getMessage());
 				break;
 			}
@@ -2327,7 +2678,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement updateCourseStmt = sqlDb.dbConnection
+				PreparedStatement updateCourseStmt = getConnection()
 						.prepareStatement("UPDATE Courses SET EventName=?, Enrolled=? WHERE CourseID=?;");
 
 				int col = 1;
@@ -2343,13 +2694,13 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("updateCourse: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
 				StudentNameModel studentModel = new StudentNameModel("", "", true);
-				MySqlDbLogging.insertLogData(LogDataModel.COURSES_DB_ERROR, studentModel, 0,
+				LogBatchWriter.insertLogData(LogDataModel.COURSES_DB_ERROR, studentModel, 0,
 						" for " + course.getEventName().trim() + ": " + e2.getMessage());
 				break;
 			}
@@ -2360,7 +2711,7 @@ public class MySqlDbImports {
 		for (int i = 0; i < 2; i++) {
 			try {
 				// If Database no longer connected, the exception code will re-connect
-				PreparedStatement deleteClassStmt = sqlDb.dbConnection
+				PreparedStatement deleteClassStmt = getConnection()
 						.prepareStatement("DELETE FROM Courses WHERE CourseID=?;");
 
 				// Delete class from schedule
@@ -2373,12 +2724,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("removeCourseFromSchedule: " + e1.getMessage() + ", " + e1);
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e2) {
 				e2.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.COURSES_DB_ERROR, null, 0, ": " + e2.getMessage());
+				LogBatchWriter.insertLogData(LogDataModel.COURSES_DB_ERROR, null, 0, ": " + e2.getMessage());
 				break;
 			}
 		}
@@ -2387,23 +2738,13 @@ public class MySqlDbImports {
 	/*
 	 * ------- Github utilities -------
 	 */
-	private StudentModel findGithubUser (ArrayList<StudentModel> students, String gitUser)
-	{
-		// Find the Git User name in the student list
-		for (StudentModel s : students) {
-			if (s.getGithubName() != null && gitUser.equals(s.getGithubName().toLowerCase().trim()))
-				return s;
-		}
-		return null;
-	}
-	
 	private void clearAllPendGithubStatus ()
 	{
 		// Clear all the missed Git and Git state in the Pending Github table
 		PreparedStatement clrPendingGitStmt;
 		for (int i = 0; i < 2; i++) {
 			try {
-				clrPendingGitStmt = sqlDb.dbConnection.prepareStatement("UPDATE PendingGithub SET GotGit='', Status='';");
+				clrPendingGitStmt = getConnection().prepareStatement("UPDATE PendingGithub SET GotGit='', Status='';");
 				clrPendingGitStmt.executeUpdate();
 				clrPendingGitStmt.close();
 
@@ -2411,12 +2752,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("clearAllGithubStatus: " + e1.getMessage());
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
 						" clearing git status: " + e.getMessage());
 				break;
 			}
@@ -2429,7 +2770,7 @@ public class MySqlDbImports {
 		PreparedStatement setMissingGitStmt;
 		for (int i = 0; i < 2; i++) {
 			try {
-				setMissingGitStmt = sqlDb.dbConnection.prepareStatement("UPDATE PendingGithub SET GotGit='?' WHERE PrimaryID=?;");
+				setMissingGitStmt = getConnection().prepareStatement("UPDATE PendingGithub SET GotGit='?' WHERE PrimaryID=?;");
 				setMissingGitStmt.setInt(1, git.getPrimaryID());
 				setMissingGitStmt.executeUpdate();
 				setMissingGitStmt.close();
@@ -2438,12 +2779,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("setMissingGithub: " + e1.getMessage());
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
 						" updating missing git in record: " + e.getMessage());
 				break;
 			}
@@ -2456,7 +2797,7 @@ public class MySqlDbImports {
 		PreparedStatement setGitStatusStmt;
 		for (int i = 0; i < 2; i++) {
 			try {
-				setGitStatusStmt = sqlDb.dbConnection.prepareStatement("UPDATE PendingGithub SET Status=? WHERE PrimaryID=?;");
+				setGitStatusStmt = getConnection().prepareStatement("UPDATE PendingGithub SET Status=? WHERE PrimaryID=?;");
 				setGitStatusStmt.setString(1, status);
 				setGitStatusStmt.setInt(2, git.getPrimaryID());
 				setGitStatusStmt.executeUpdate();
@@ -2466,12 +2807,12 @@ public class MySqlDbImports {
 				if (i == 0) {
 					// First attempt to re-connect
 					System.out.println("setGithubStatus: " + e1.getMessage());
-					sqlDb.connectDatabase();
+					reconnect();
 				}
 
 			} catch (SQLException | NullPointerException e) {
 				e.printStackTrace();
-				MySqlDbLogging.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
+				LogBatchWriter.insertLogData(LogDataModel.GITHUB_DB_ERROR, new StudentNameModel("", "", false), 0,
 						" updating git status in record: " + e.getMessage());
 				break;
 			}
@@ -2514,11 +2855,26 @@ public class MySqlDbImports {
 		return teachers;
 	}
 
-	private int getClientIdxInStudentList(ArrayList<StudentModel> list, int clientID) {
-		for (int i = 0; i < list.size(); i++) {
-			if (list.get(i).getClientID() == clientID)
-				return i;
+	private class StudentUpsertRow {
+		StudentImportModel student;
+		boolean isInsert;
+		boolean newStudent;
+		String changedFields;
+		int changedMask;
+
+		StudentUpsertRow(StudentImportModel student, boolean isInsert, boolean newStudent, String changedFields,
+				int changedMask) {
+			this.student = student;
+			this.isInsert = isInsert;
+			this.newStudent = newStudent;
+			this.changedFields = changedFields;
+			this.changedMask = changedMask;
 		}
-		return -1;
+	}
+
+	private class AttendanceChangeSet {
+		// DB row of each new or changed event by import list index; null if new
+		TreeMap<Integer, AttendanceEventModel> changedEvents = new TreeMap<Integer, AttendanceEventModel>();
+		ArrayList<AttendanceEventModel> deletedAttendance = new ArrayList<AttendanceEventModel>();
 	}
 }
@@ -1,6 +1,31 @@
 package model;
 
 public class StudentImportModel implements Comparable<StudentImportModel> {
+	// Fields compared with the database, as bits of the changed-field mask
+	public static final int LAST_NAME_FIELD = 0x1;
+	public static final int FIRST_NAME_FIELD = 0x2;
+	public static final int GITHUB_NAME_FIELD = 0x4;
+	public static final int START_DATE_FIELD = 0x8;
+	public static final int HOME_LOCATION_FIELD = 0x10;
+	public static final int GENDER_FIELD = 0x20;
+	public static final int GRAD_YEAR_FIELD = 0x40;
+	public static final int IN_MASTER_DB_FIELD = 0x80;
+	public static final int EMAIL_FIELD = 0x100;
+	public static final int EMERG_EMAIL_FIELD = 0x200;
+	public static final int ACCT_MGR_EMAIL_FIELD = 0x400;
+	public static final int PHONE1_FIELD = 0x800;
+	public static final int ACCT_MGR_PHONE_FIELD = 0x1000;
+	public static final int PHONE2_FIELD = 0x2000;
+	public static final int EMERG_PHONE_FIELD = 0x4000;
+	public static final int BIRTH_DATE_FIELD = 0x8000;
+	public static final int STAFF_SINCE_FIELD = 0x10000;
+	public static final int STAFF_PAST_EVENTS_FIELD = 0x20000;
+	public static final int CURR_LEVEL_FIELD = 0x40000;
+	public static final int LAST_EXAM_SCORE_FIELD = 0x80000;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
 	private int     clientID;
 	private String  lastName, firstName, githubName, startDate, homeLocString, currLevel;
 	private int     homeLocation, gender, gradYear, isInMasterDb;
@@ -18,6 +43,7 @@ public class StudentImportModel implements Comparable<StudentImportModel> {
 	private int     completedVisits, futureVisits, staffPastEvents;
 	private boolean signedWaiver, stopEmail, financialAid;
 	private Object  sfContact;
+	private Long    storedHash;   // Content hash saved with the database row
 	
 	public String   relationToStudent, phone1_type, phone2_type, prefContactMethod, primaryLanguage;
 	public String   prefContactLang, emergRelationToStud, prefClassLoc, studAddrIfDiff;
@@ -437,6 +463,92 @@ public class StudentImportModel implements Comparable<StudentImportModel> {
 		}
 	}
 
+	public int getChangedFields(StudentImportModel other) {
+		// Mask of the compared fields that differ from the other student
+		int changed = 0;
+
+		if (!fieldEquals(lastName, other.getLastName()))
+			changed |= LAST_NAME_FIELD;
+		if (!fieldEquals(firstName, other.getFirstName()))
+			changed |= FIRST_NAME_FIELD;
+		if (!fieldEquals(githubName, other.getGithubName()))
+			changed |= GITHUB_NAME_FIELD;
+		if (!fieldEquals(startDate, other.getStartDate()))
+			changed |= START_DATE_FIELD;
+		if (homeLocation != other.getHomeLocation())
+			changed |= HOME_LOCATION_FIELD;
+		if (gender != other.getGender())
+			changed |= GENDER_FIELD;
+		if (gradYear != other.getGradYear())
+			changed |= GRAD_YEAR_FIELD;
+		if (isInMasterDb != other.getIsInMasterDb())
+			changed |= IN_MASTER_DB_FIELD;
+		if (!fieldEquals(email, other.getEmail()))
+			changed |= EMAIL_FIELD;
+		if (!fieldEquals(emergContactEmail, other.getEmergContactEmail()))
+			changed |= EMERG_EMAIL_FIELD;
+		if (!fieldEquals(accountMgrEmails, other.getAccountMgrEmails()))
+			changed |= ACCT_MGR_EMAIL_FIELD;
+		if (!fieldEquals(phone1, other.getPhone1()))
+			changed |= PHONE1_FIELD;
+		if (!fieldEquals(accountMgrPhones, other.getAccountMgrPhones()))
+			changed |= ACCT_MGR_PHONE_FIELD;
+		if (!fieldEquals(phone2, other.getPhone2()))
+			changed |= PHONE2_FIELD;
+		if (!fieldEquals(emergContactPhone, other.getEmergContactPhone()))
+			changed |= EMERG_PHONE_FIELD;
+		if (!fieldEquals(birthDate, other.getBirthDate()))
+			changed |= BIRTH_DATE_FIELD;
+		if (!fieldEquals(staffSinceDate, other.getStaffSinceDate()))
+			changed |= STAFF_SINCE_FIELD;
+		if (staffPastEvents != other.getStaffPastEvents())
+			changed |= STAFF_PAST_EVENTS_FIELD;
+		if (!fieldEquals(currLevel, other.currLevel))
+			changed |= CURR_LEVEL_FIELD;
+		if (!fieldEquals(lastExamScore, other.lastExamScore))
+			changed |= LAST_EXAM_SCORE_FIELD;
+
+		return changed;
+	}
+
+	public long getContentHash() {
+		// 64-bit FNV-1a hash of the compared fields; not cached since level can be changed
+		long hash = FNV_OFFSET_BASIS;
+		for (String field : new String[] { lastName, firstName, githubName, startDate, email, emergContactEmail,
+				accountMgrEmails, phone1, accountMgrPhones, phone2, emergContactPhone, birthDate, staffSinceDate,
+				currLevel, lastExamScore })
+			hash = hashField(hash, field);
+		for (int field : new int[] { homeLocation, gender, gradYear, isInMasterDb, staffPastEvents })
+			hash = hashField(hash, Integer.toString(field));
+		return hash;
+	}
+
+	public Long getStoredHash() {
+		return storedHash;
+	}
+
+	public void setStoredHash(Long storedHash) {
+		this.storedHash = storedHash;
+	}
+
+	private static long hashField(long hash, String field) {
+		// Null and empty fields hash differently; separator keeps field boundaries
+		if (field != null) {
+			for (int i = 0; i < field.length(); i++) {
+				hash ^= field.charAt(i);
+				hash *= FNV_PRIME;
+			}
+		}
+		hash ^= (field == null ? 0xfffe : 0xffff);
+		return hash * FNV_PRIME;
+	}
+
+	private static boolean fieldEquals(String field1, String field2) {
+		if (field1 == null)
+			return field2 == null;
+		return field1.equals(field2);
+	}
+
 	public String displayAll() {
 		return (clientID + ": " + firstName + " " + lastName + " (" + gender + "), github: " + githubName + ", home: "
 				+ homeLocString + ", start: " + startDate + ", grad: " + gradYear + ", " + isInMasterDb);
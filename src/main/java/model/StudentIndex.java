@@ -0,0 +1,45 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * StudentIndex: Active student list, indexed by client ID and by github user
+ *        name so that attendance and github imports can look up students
+ *        without searching the list.
+ *
+ */
+public class StudentIndex {
+	private ArrayList<StudentModel> studentList;
+	private HashMap<Integer, StudentModel> clientIdMap = new HashMap<Integer, StudentModel>();
+	private HashMap<String, StudentModel> githubNameMap = new HashMap<String, StudentModel>();
+
+	public StudentIndex(ArrayList<StudentModel> studentList) {
+		this.studentList = studentList;
+
+		// First student in list wins for duplicates
+		for (StudentModel s : studentList) {
+			if (!clientIdMap.containsKey(s.getClientID()))
+				clientIdMap.put(s.getClientID(), s);
+
+			if (s.getGithubName() != null) {
+				String gitUser = s.getGithubName().toLowerCase().trim();
+				if (!githubNameMap.containsKey(gitUser))
+					githubNameMap.put(gitUser, s);
+			}
+		}
+	}
+
+	public ArrayList<StudentModel> getStudentList() {
+		return studentList;
+	}
+
+	public StudentModel findByClientID(int clientID) {
+		return clientIdMap.get(clientID);
+	}
+
+	public StudentModel findByGithubName(String gitUser) {
+		// Git user must already be lower case and trimmed
+		return githubNameMap.get(gitUser);
+	}
+}
@@ -0,0 +1,30 @@
+package model;
+
+/**
+ * SyncWatermarkModel: Time of the last successful sync of a Pike13 dataset, and
+ *        of the last full reconciliation of that dataset. Times are ISO-8601 UTC.
+ *
+ */
+public class SyncWatermarkModel {
+	private String dataset;
+	private String lastSync;
+	private String lastFullSync;
+
+	public SyncWatermarkModel(String dataset, String lastSync, String lastFullSync) {
+		this.dataset = dataset;
+		this.lastSync = lastSync;
+		this.lastFullSync = lastFullSync;
+	}
+
+	public String getDataset() {
+		return dataset;
+	}
+
+	public String getLastSync() {
+		return lastSync;
+	}
+
+	public String getLastFullSync() {
+		return lastFullSync;
+	}
+}